@@ -0,0 +1,47 @@
+package com.tracer.bench;
+
+import com.tracer.TracerApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Starts the application (without the web server, the history tailer and
+ * the file watcher) against a given SQLite file, and provides the shared
+ * database the query benchmarks read.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(Path database) {
+        return new SpringApplicationBuilder(TracerApplication.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            .properties(
+                "SPRING_DATASOURCE_URL=jdbc:sqlite:" + database.toAbsolutePath(),
+                "command.history.tail.enabled=false",
+                "file.watch.enabled=false",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN")
+            .run();
+    }
+
+    /**
+     * The database given by -Dbench.db (default build/jmh/tracer-bench.db),
+     * generated with -Dbench.rows commands (default 1,000,000) and half as
+     * many file changes on first use.
+     */
+    public static synchronized Path sharedDatabase() throws Exception {
+        Path database = Path.of(System.getProperty("bench.db", "build/jmh/tracer-bench.db"));
+        if (!Files.exists(database)) {
+            long rows = Long.getLong("bench.rows", 1_000_000);
+            BenchmarkDataGenerator.generate(database, rows, rows / 2);
+        }
+        return database;
+    }
+}
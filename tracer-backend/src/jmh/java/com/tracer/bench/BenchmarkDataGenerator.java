@@ -0,0 +1,312 @@
+package com.tracer.bench;
+
+import com.tracer.service.DailyRollupService;
+import com.tracer.util.DedupKey;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+
+/**
+ * Synthesizes command logs and file changes for the benchmarks: a few dozen
+ * users with their own project trees, two years of activity in working
+ * hours, a skewed mix of git, kubectl, docker, build and shell commands and
+ * mostly edits (some creates, deletes and moves) of source files.
+ *
+ * The same seed always produces the same rows. Run as a program it fills an
+ * SQLite database through the application's own schema, so the search
+ * indexes and daily rollups are built as they would be in production:
+ * {@code gradle generateBenchmarkData -Pbench.db=build/jmh/tracer-bench.db -Pbench.rows=10000000}
+ */
+public final class BenchmarkDataGenerator {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 730;
+    private static final int BATCH_SIZE = 10_000;
+    private static final DateTimeFormatter ISO_SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final String[] USERS = {
+        "john", "mary", "admin", "alice", "bob", "carol", "dave", "erin", "frank", "grace",
+        "heidi", "ivan", "judy", "mallory", "niaj", "olivia", "peggy", "rupert", "sybil", "trent",
+        "victor", "walter", "yuki", "zoe", "deploy", "ci", "root", "minho", "jisoo", "taeyang"
+    };
+    private static final String[] PROJECTS = {
+        "api", "web", "infra", "tracer", "billing", "auth", "mobile", "data-pipeline", "docs", "ml-models"
+    };
+    private static final String[] SUBDIRS = {
+        "", "", "", "/src", "/src/main/java/com/acme", "/src/components", "/deploy", "/scripts", "/docs", "/test"
+    };
+    private static final String[] BRANCHES = {
+        "main", "develop", "feature/login", "feature/search", "fix/timeout", "release/2.3", "hotfix/cve", "feature/export"
+    };
+    private static final String[] FILES = {
+        "README.md", "pom.xml", "build.gradle", "package.json", "Dockerfile", "app.py", "main.go", "index.js",
+        "UserService.java", "OrderController.java", "config.yaml", "docker-compose.yml", "schema.sql", "Makefile",
+        "values.yaml", "App.tsx", "utils.ts", "requirements.txt", ".env", "deploy.sh"
+    };
+    private static final String[] EXTENSIONS = {
+        ".java", ".java", ".java", ".ts", ".tsx", ".js", ".py", ".py", ".go", ".md", ".json", ".yaml", ".yml",
+        ".sql", ".sh", ".css", ".html", ".xml", ".txt", ".log"
+    };
+    private static final String[] NAMESPACES = {"default", "prod", "staging", "monitoring", "kube-system"};
+    private static final String[] SERVICES = {"api", "web", "worker", "gateway", "auth", "billing", "redis", "postgres"};
+    private static final String[] PACKAGES = {"requests", "flask", "numpy", "pandas", "react", "lodash", "express", "pytest"};
+    private static final String[] HOSTS = {"prod-1", "prod-2", "bastion", "db-primary", "build-agent", "staging"};
+    private static final String[] WORDS = {"TODO", "timeout", "NullPointerException", "password", "deprecated", "userId", "retry"};
+    private static final String[] TARGETS = {"build", "test", "lint", "clean", "deploy", "dev", "start"};
+    private static final String[] MESSAGES = {
+        "fix typo", "add tests", "update deps", "refactor service", "wip", "handle timeout", "bump version"
+    };
+
+    // Template and relative weight; {x} placeholders are filled from the lists above
+    private static final Object[][] COMMANDS = {
+        {"git status", 60}, {"git add {file}", 25}, {"git add -A", 15}, {"git commit -m \"{msg}\"", 25},
+        {"git push origin {branch}", 15}, {"git pull origin {branch}", 15}, {"git checkout {branch}", 15},
+        {"git checkout -b {branch}-{n}", 5}, {"git log --oneline -n {n}", 8}, {"git diff {file}", 12},
+        {"git stash", 4}, {"git rebase -i HEAD~{n}", 3},
+        {"ls -la", 50}, {"ls", 30}, {"cd {dir}", 45}, {"cd ..", 20}, {"pwd", 5}, {"clear", 10},
+        {"cat {file}", 15}, {"vim {file}", 20}, {"less /var/log/{service}.log", 4},
+        {"grep -rn \"{word}\" .", 10}, {"find . -name \"*{ext}\"", 5}, {"tail -f /var/log/{service}.log", 6},
+        {"rm -rf /tmp/{service}-{n}", 3}, {"rm -rf node_modules", 2}, {"mkdir -p {dir}/tmp", 3},
+        {"kubectl get pods -n {ns}", 18}, {"kubectl apply -f deploy/{service}.yaml", 8},
+        {"kubectl logs -f {service}-{hash} -n {ns}", 8}, {"kubectl describe pod {service}-{hash} -n {ns}", 5},
+        {"kubectl rollout restart deployment/{service} -n {ns}", 3},
+        {"docker ps", 12}, {"docker build -t {service}:{n}.{n}.{n} .", 6}, {"docker compose up -d", 6},
+        {"docker logs -f {service}", 5}, {"docker exec -it {service} bash", 4},
+        {"npm install", 8}, {"npm run {target}", 10}, {"./gradlew {target}", 8}, {"mvn -q {target}", 5},
+        {"make {target}", 8}, {"python {file}", 6}, {"pip install {pkg}", 5}, {"pytest -k {word}", 4},
+        {"ssh {host}", 8}, {"scp {file} {host}:/tmp/", 2}, {"curl -s http://localhost:{port}/health", 6},
+        {"htop", 4}, {"df -h", 3}, {"history | grep {word}", 3}, {"export JAVA_HOME=/usr/lib/jvm/java-21", 1}
+    };
+    private static final int TOTAL_WEIGHT;
+
+    static {
+        int total = 0;
+        for (Object[] command : COMMANDS) {
+            total += (Integer) command[1];
+        }
+        TOTAL_WEIGHT = total;
+    }
+
+    private final SplittableRandom random;
+
+    public BenchmarkDataGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public record Command(LocalDateTime timestamp, String user, String directory, String command) {
+    }
+
+    public record Change(LocalDateTime timestamp, String eventType, String filePath, String srcPath, int size) {
+    }
+
+    /**
+     * @return the index-th of count commands; days advance with the index so
+     *         the rows span two years in roughly chronological order
+     */
+    public Command command(long index, long count) {
+        String user = pick(USERS);
+        String directory = projectDirectory(user);
+        Object[] template = COMMANDS[COMMANDS.length - 1];
+        int roll = random.nextInt(TOTAL_WEIGHT);
+        for (Object[] candidate : COMMANDS) {
+            roll -= (Integer) candidate[1];
+            if (roll < 0) {
+                template = candidate;
+                break;
+            }
+        }
+        return new Command(timestamp(index, count), user, directory, fill((String) template[0], directory));
+    }
+
+    public Change change(long index, long count) {
+        String user = pick(USERS);
+        String name = pick(FILES);
+        int dot = name.indexOf('.');
+        String path = projectDirectory(user) + "/" + (dot > 0 ? name.substring(0, dot) : name)
+            + "-" + random.nextInt(200) + pick(EXTENSIONS);
+        int roll = random.nextInt(100);
+        String eventType = roll < 70 ? "modified" : roll < 85 ? "created" : roll < 95 ? "deleted" : "moved";
+        String srcPath = eventType.equals("moved") ? path.replace("/src", "/old") + ".bak" : null;
+        int size = eventType.equals("deleted") ? 0 : 200 + (int) Math.abs(random.nextGaussian() * 8_000);
+        return new Change(timestamp(index, count), eventType, path, srcPath, size);
+    }
+
+    /**
+     * @return the command as a line of the JSONL history format
+     */
+    public static String toJsonLine(Command command) {
+        return "{\"timestamp\": \"" + command.timestamp().format(ISO_SECONDS)
+            + "\", \"user\": \"" + escape(command.user())
+            + "\", \"directory\": \"" + escape(command.directory())
+            + "\", \"command\": \"" + escape(command.command()) + "\"}";
+    }
+
+    private LocalDateTime timestamp(long index, long count) {
+        LocalDate day = FIRST_DAY.plusDays(index * DAYS / Math.max(count, 1));
+        // Mostly working hours, some late nights
+        int hour = random.nextInt(10) < 9 ? 8 + random.nextInt(11) : random.nextInt(24);
+        return day.atTime(hour, random.nextInt(60), random.nextInt(60));
+    }
+
+    private String projectDirectory(String user) {
+        // Each user works on a few of the projects
+        String project = PROJECTS[(Math.abs(user.hashCode()) + random.nextInt(3)) % PROJECTS.length];
+        return "/home/" + user + "/projects/" + project + pick(SUBDIRS);
+    }
+
+    private String fill(String template, String directory) {
+        if (template.indexOf('{') == -1) {
+            return template;
+        }
+        StringBuilder command = new StringBuilder(template.length() + 32);
+        int i = 0;
+        while (i < template.length()) {
+            int open = template.indexOf('{', i);
+            if (open == -1) {
+                command.append(template, i, template.length());
+                break;
+            }
+            int close = template.indexOf('}', open);
+            command.append(template, i, open);
+            command.append(switch (template.substring(open + 1, close)) {
+                case "file" -> pick(FILES);
+                case "ext" -> pick(EXTENSIONS);
+                case "dir" -> directory.substring(0, directory.indexOf("/projects/") + 10) + pick(PROJECTS);
+                case "branch" -> pick(BRANCHES);
+                case "msg" -> pick(MESSAGES);
+                case "service" -> pick(SERVICES);
+                case "ns" -> pick(NAMESPACES);
+                case "pkg" -> pick(PACKAGES);
+                case "host" -> pick(HOSTS);
+                case "word" -> pick(WORDS);
+                case "target" -> pick(TARGETS);
+                case "port" -> String.valueOf(8000 + random.nextInt(100));
+                case "hash" -> Integer.toHexString(0x10000 + random.nextInt(0xeffff));
+                default -> String.valueOf(1 + random.nextInt(20));
+            });
+            i = close + 1;
+        }
+        return command.toString();
+    }
+
+    /**
+     * Skewed pick: earlier entries are chosen more often.
+     */
+    private String pick(String[] values) {
+        double r = random.nextDouble();
+        return values[(int) (r * r * values.length)];
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Usage: BenchmarkDataGenerator &lt;database file&gt; [command rows] [file change rows]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: BenchmarkDataGenerator <database file> [command rows] [file change rows]");
+            System.exit(1);
+        }
+        long commands = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        long changes = args.length > 2 ? Long.parseLong(args[2]) : commands / 2;
+        generate(Path.of(args[0]), commands, changes);
+    }
+
+    /**
+     * Creates the database (which must not exist yet) and fills it.
+     */
+    public static void generate(Path database, long commands, long changes) throws Exception {
+        if (Files.exists(database)) {
+            throw new IllegalStateException(database + " already exists");
+        }
+        if (database.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(database.toAbsolutePath().getParent());
+        }
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = BenchmarkContext.start(database)) {
+            DataSource dataSource = context.getBean(DataSource.class);
+            BenchmarkDataGenerator generator = new BenchmarkDataGenerator(42);
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                insertCommands(connection, generator, commands);
+                insertChanges(connection, generator, changes);
+            }
+            int rollups = context.getBean(DailyRollupService.class).rebuild();
+            System.out.printf("Generated %d commands and %d file changes (%d rollup rows) in %d s%n",
+                commands, changes, rollups, (System.nanoTime() - started) / 1_000_000_000);
+        }
+    }
+
+    private static void insertCommands(Connection connection, BenchmarkDataGenerator generator, long count)
+            throws Exception {
+        String sql = "INSERT OR IGNORE INTO command_logs "
+            + "(timestamp, date, time, user, directory, command, raw_line, dedup_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (long i = 0; i < count; i++) {
+                Command command = generator.command(i, count);
+                String iso = command.timestamp().format(ISO_SECONDS);
+                statement.setTimestamp(1, Timestamp.valueOf(command.timestamp()));
+                statement.setString(2, iso.substring(0, 10));
+                statement.setString(3, iso.substring(11));
+                statement.setString(4, command.user());
+                statement.setString(5, command.directory());
+                statement.setString(6, command.command());
+                statement.setString(7, toJsonLine(command));
+                statement.setString(8, DedupKey.of(command.timestamp(), command.user(), command.command()));
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i + 1 == count) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+                if ((i + 1) % 1_000_000 == 0) {
+                    System.out.println("  " + (i + 1) + " commands");
+                }
+            }
+        }
+    }
+
+    private static void insertChanges(Connection connection, BenchmarkDataGenerator generator, long count)
+            throws Exception {
+        String sql = "INSERT INTO file_changes (timestamp, date, event_type, file_path, directory, file_name, "
+            + "file_extension, size, is_directory, src_path, raw_event_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (long i = 0; i < count; i++) {
+                Change change = generator.change(i, count);
+                String path = change.filePath();
+                int slash = path.lastIndexOf('/');
+                String fileName = path.substring(slash + 1);
+                int dot = fileName.lastIndexOf('.');
+                statement.setTimestamp(1, Timestamp.valueOf(change.timestamp()));
+                statement.setString(2, change.timestamp().toLocalDate().toString());
+                statement.setString(3, change.eventType());
+                statement.setString(4, path);
+                statement.setString(5, path.substring(0, slash));
+                statement.setString(6, fileName);
+                statement.setString(7, dot > 0 ? fileName.substring(dot) : null);
+                statement.setInt(8, change.size());
+                statement.setString(9, "False");
+                statement.setString(10, change.srcPath());
+                statement.setInt(11, 1);
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i + 1 == count) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+                if ((i + 1) % 1_000_000 == 0) {
+                    System.out.println("  " + (i + 1) + " file changes");
+                }
+            }
+        }
+    }
+}
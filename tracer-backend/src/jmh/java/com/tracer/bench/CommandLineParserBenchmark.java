@@ -0,0 +1,51 @@
+package com.tracer.bench;
+
+import com.tracer.util.CommandLineParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lines per second through CommandLineParser, cycling over the sample
+ * history files in data/.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandLineParserBenchmark {
+
+    @Param({"text", "jsonl"})
+    private String format;
+
+    private final CommandLineParser parser = new CommandLineParser();
+    private String[] lines;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Path file = Path.of(format.equals("text") ? "data/sample_command_history.txt" : "data/sample_command_log.jsonl");
+        lines = Files.readAllLines(file).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public CommandLineParser.ParsedCommand parseLine() {
+        String line = lines[next];
+        next = next + 1 == lines.length ? 0 : next + 1;
+        return parser.parseCommandLine(line);
+    }
+}
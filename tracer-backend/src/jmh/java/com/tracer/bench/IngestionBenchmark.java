@@ -0,0 +1,81 @@
+package com.tracer.bench;
+
+import com.tracer.entity.IngestionCheckpoint;
+import com.tracer.service.CommandLogService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One CommandLogService.loadLogsFromFile pass over a fresh JSONL history
+ * file per iteration, into a temporary SQLite database that keeps the rows
+ * of the earlier iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngestionBenchmark {
+
+    @Param({"100000"})
+    private int lines;
+
+    @Param({"500", "5000"})
+    private int batchSize;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private CommandLogService commandLogService;
+    private Path historyFile;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        directory = Files.createTempDirectory("tracer-jmh");
+        context = BenchmarkContext.start(directory.resolve("ingestion.db"));
+        commandLogService = context.getBean(CommandLogService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void writeHistoryFile() throws Exception {
+        // A new seed per iteration, so the lines are not dropped as duplicates
+        BenchmarkDataGenerator generator = new BenchmarkDataGenerator(iteration);
+        historyFile = directory.resolve("history-" + iteration++ + ".jsonl");
+        try (BufferedWriter writer = Files.newBufferedWriter(historyFile)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(BenchmarkDataGenerator.toJsonLine(generator.command(i, lines)));
+                writer.newLine();
+            }
+        }
+    }
+
+    @Benchmark
+    public IngestionCheckpoint loadLogsFromFile() throws Exception {
+        return commandLogService.loadLogsFromFile(historyFile, batchSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws Exception {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+}
@@ -0,0 +1,71 @@
+package com.tracer.bench;
+
+import com.tracer.service.CommandLogService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CommandLogService.getLogs (GET /api/logs) on the shared benchmark
+ * database with different filter mixes, first page of 100 rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogQueryBenchmark {
+
+    @Param({"none", "deep_offset", "user", "date_range", "user_and_directory", "search", "contains", "regex"})
+    private String filter;
+
+    private ConfigurableApplicationContext context;
+    private CommandLogService commandLogService;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = BenchmarkContext.start(BenchmarkContext.sharedDatabase());
+        commandLogService = context.getBean(CommandLogService.class);
+    }
+
+    @Benchmark
+    public Map<String, Object> getLogs() {
+        return switch (filter) {
+            case "none" -> getLogs(null, null, null, null, null, null, null, 0);
+            case "deep_offset" -> getLogs(null, null, null, null, null, null, null, 50_000);
+            case "user" -> getLogs(null, null, "alice", null, null, null, null, 0);
+            case "date_range" -> getLogs("2024-06-01", "2024-06-30", null, null, null, null, null, 0);
+            case "user_and_directory" -> getLogs(null, null, "john", null, "projects/api", null, null, 0);
+            case "search" -> getLogs(null, null, null, "kubectl apply", null, null, null, 0);
+            case "contains" -> getLogs(null, null, null, null, null, "rf /tmp/web", null, 0);
+            case "regex" -> getLogs(null, null, null, null, null, null, "git (push|pull) origin feature/", 0);
+            default -> throw new IllegalArgumentException(filter);
+        };
+    }
+
+    private Map<String, Object> getLogs(String startDate, String endDate, String user, String search,
+                                        String directory, String contains, String regex, int offset) {
+        return commandLogService.getLogs(
+            startDate, endDate, user, search, directory, contains, regex, 100, offset, null, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+}
@@ -0,0 +1,70 @@
+package com.tracer.bench;
+
+import com.tracer.service.CommandLogService;
+import com.tracer.service.FileWatchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stats and by-date endpoints of /api/logs and /api/changes on the
+ * shared benchmark database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CommandLogService commandLogService;
+    private FileWatchService fileWatchService;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = BenchmarkContext.start(BenchmarkContext.sharedDatabase());
+        commandLogService = context.getBean(CommandLogService.class);
+        fileWatchService = context.getBean(FileWatchService.class);
+    }
+
+    @Benchmark
+    public Map<String, Object> logStats() {
+        return commandLogService.getLogStats();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> logsByDate() {
+        return commandLogService.getLogsByDate();
+    }
+
+    @Benchmark
+    public Map<String, Object> fileChangeStats() {
+        return fileWatchService.getFileChangeStats();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> changesByDate() {
+        return fileWatchService.getChangesByDate();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+}
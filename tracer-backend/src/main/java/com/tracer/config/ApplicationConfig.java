@@ -1,20 +1,37 @@
 package com.tracer.config;
 
+import com.tracer.service.ChangeSequence;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class ApplicationConfig implements WebMvcConfigurer {
     
+    private final ChangeSequence changeSequence;
+    
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOriginPatterns("*")  // Use allowedOriginPatterns instead of allowedOrigins
                 .allowedMethods("*")
                 .allowedHeaders("*")
+                .exposedHeaders(HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED)
                 .allowCredentials(true)
                 .maxAge(3600);
     }
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Ingestion status and import jobs change without new rows, so they are not conditional
+        registry.addInterceptor(new ConditionalGetInterceptor(changeSequence, ChangeSequence.LOGS))
+                .addPathPatterns("/api/logs", "/api/logs/**")
+                .excludePathPatterns("/api/logs/ingestion", "/api/logs/import", "/api/logs/import/**");
+        registry.addInterceptor(new ConditionalGetInterceptor(changeSequence, ChangeSequence.CHANGES))
+                .addPathPatterns("/api/changes", "/api/changes/**");
+    }
 }
-
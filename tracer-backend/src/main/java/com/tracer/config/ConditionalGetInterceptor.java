@@ -0,0 +1,49 @@
+package com.tracer.config;
+
+import com.tracer.service.ChangeSequence;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Conditional GET for read endpoints whose responses only depend on the rows
+ * of one {@link ChangeSequence} area (and the request URL).
+ *
+ * The ETag and Last-Modified are taken from the area's sequence before the
+ * handler runs. A request whose If-None-Match (or, without one,
+ * If-Modified-Since) still matches is answered with 304 Not Modified here,
+ * without calling the handler or touching the database. Responses carry
+ * Cache-Control: no-cache so browsers revalidate instead of reusing them
+ * heuristically.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final ChangeSequence changeSequence;
+    private final String area;
+
+    public ConditionalGetInterceptor(ChangeSequence changeSequence, String area) {
+        this.changeSequence = changeSequence;
+        this.area = area;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // Weak: the same data may be sent with different encodings
+        String etag = "W/\"" + changeSequence.tag(area) + "\"";
+        // Last-Modified has one-second resolution, so it is only sent once the second
+        // of the last write has passed: a later write in that second would otherwise
+        // still match If-Modified-Since
+        long lastModified = changeSequence.lastModified(area);
+        if (lastModified / 1000 >= System.currentTimeMillis() / 1000) {
+            lastModified = -1;
+        }
+        return !new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+}
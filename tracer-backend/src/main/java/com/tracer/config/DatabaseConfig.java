@@ -1,11 +1,14 @@
 package com.tracer.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteOpenMode;
 
 import javax.sql.DataSource;
 
@@ -16,17 +19,86 @@ import javax.sql.DataSource;
  * Environment variables:
  *   - SPRING_DATASOURCE_URL (preferred)
  *   - DATABASE_URL (fallback)
+ * 
+ * SQLite gets two connection pools behind the primary DataSource:
+ *   - a write pool with a single connection, so every read-write transaction
+ *     (ingestion batches, rollups, watcher changes) runs one after the other
+ *     on it instead of meeting SQLITE_BUSY; the others wait for the
+ *     connection up to database.sqlite.write-wait-ms
+ *   - a read pool of database.sqlite.read-pool-size connections opened
+ *     read-only, used by @Transactional(readOnly = true) code (the query
+ *     services and Spring Data's find methods)
+ * The primary DataSource picks the pool when a transaction runs its first
+ * statement, so read-only transactions never wait for the writer. In WAL
+ * mode they see the last committed state while a write is in progress.
+ * 
+ * The write connection is opened with the database.sqlite.* pragmas: WAL
+ * journaling with synchronous=NORMAL (a commit no longer waits for an fsync),
+ * a larger page cache and a busy timeout.
  */
 @Configuration
+@Profile("!local")
 public class DatabaseConfig {
     
+    @Value("${SPRING_DATASOURCE_URL:jdbc:sqlite:./data/logs.db}")
+    private String springDatasourceUrl;
+    
+    @Value("${DATABASE_URL:}")
+    private String databaseUrl;
+    
+    @Value("${database.sqlite.cache-size:-65536}")
+    private int cacheSize;
+    
+    @Value("${database.sqlite.busy-timeout-ms:10000}")
+    private int busyTimeoutMs;
+    
     @Bean
     @Primary
-    @Profile("!local")
-    public DataSource dataSource(
-            @Value("${SPRING_DATASOURCE_URL:jdbc:sqlite:./data/logs.db}") String springDatasourceUrl,
-            @Value("${DATABASE_URL:}") String databaseUrl) {
-        
+    public DataSource dataSource(HikariDataSource sqliteWriteDataSource, HikariDataSource sqliteReadDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(sqliteWriteDataSource);
+        dataSource.setReadOnlyDataSource(sqliteReadDataSource);
+        return dataSource;
+    }
+    
+    @Bean
+    public HikariDataSource sqliteWriteDataSource(
+            @Value("${database.sqlite.journal-mode:WAL}") String journalMode,
+            @Value("${database.sqlite.synchronous:NORMAL}") String synchronous,
+            @Value("${database.sqlite.write-wait-ms:120000}") long writeWaitMs) {
+        HikariDataSource dataSource = createPool("sqlite-write");
+        dataSource.setMaximumPoolSize(1);
+        dataSource.setConnectionTimeout(writeWaitMs);
+        // Applied by the driver to every connection it opens
+        dataSource.addDataSourceProperty("journal_mode", journalMode);
+        dataSource.addDataSourceProperty("synchronous", synchronous);
+        return dataSource;
+    }
+    
+    @Bean
+    public HikariDataSource sqliteReadDataSource(
+            @Value("${database.sqlite.read-pool-size:4}") int readPoolSize) {
+        HikariDataSource dataSource = createPool("sqlite-read");
+        dataSource.setMaximumPoolSize(readPoolSize);
+        // SQLite cannot switch a connection to read-only once it is open
+        dataSource.setReadOnly(true);
+        dataSource.addDataSourceProperty("open_mode", String.valueOf(SQLiteOpenMode.READONLY.flag));
+        return dataSource;
+    }
+    
+    private HikariDataSource createPool(String name) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(resolveUrl())
+                .driverClassName("org.sqlite.JDBC")
+                .build();
+        dataSource.setPoolName(name);
+        dataSource.addDataSourceProperty("cache_size", String.valueOf(cacheSize));
+        dataSource.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeoutMs));
+        dataSource.addDataSourceProperty("temp_store", "MEMORY");
+        return dataSource;
+    }
+    
+    private String resolveUrl() {
         String url = springDatasourceUrl;
         if (url == null || url.isEmpty() || url.equals("jdbc:sqlite:./data/logs.db")) {
             if (databaseUrl != null && !databaseUrl.isEmpty()) {
@@ -41,11 +113,6 @@ public class DatabaseConfig {
                 }
             }
         }
-        
-        return DataSourceBuilder.create()
-                .url(url)
-                .driverClassName("org.sqlite.JDBC")
-                .build();
+        return url;
     }
 }
-
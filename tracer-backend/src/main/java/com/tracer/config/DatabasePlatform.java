@@ -0,0 +1,38 @@
+package com.tracer.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Which database the application is connected to, for features that only
+ * exist on SQLite (FTS5 indexes).
+ */
+@Component
+@RequiredArgsConstructor
+public class DatabasePlatform {
+    
+    private final DataSource dataSource;
+    
+    private volatile Boolean sqlite;
+    
+    public boolean isSqlite() {
+        if (sqlite == null) {
+            // Inside a transaction this reuses its connection: SQLite has a
+            // single write connection, which the transaction may be holding
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                sqlite = "SQLite".equals(connection.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                return false;
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+        return sqlite;
+    }
+}
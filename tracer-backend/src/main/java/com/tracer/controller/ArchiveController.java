@@ -0,0 +1,53 @@
+package com.tracer.controller;
+
+import com.tracer.dto.archive.ArchiveStatsResponse;
+import com.tracer.dto.archive.RunArchiveResponse;
+import com.tracer.dto.common.ApiResponse;
+import com.tracer.service.LogArchiveService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/archive")
+@RequiredArgsConstructor
+@Tag(name = "Archive", description = "로그 보관소 API")
+public class ArchiveController {
+    
+    private final LogArchiveService logArchiveService;
+    
+    @GetMapping("/stats")
+    @Operation(summary = "로그 보관소 상태", description = "세그먼트 파일로 보관된 오래된 명령어 로그의 수와 크기를 조회합니다")
+    public ResponseEntity<ApiResponse<ArchiveStatsResponse>> getStats() {
+        Map<String, Object> stats = logArchiveService.getStats();
+        ArchiveStatsResponse response = new ArchiveStatsResponse();
+        response.setEnabled((Boolean) stats.get("enabled"));
+        response.setAfterDays((Integer) stats.get("after_days"));
+        response.setSegments((Integer) stats.get("segments"));
+        response.setLogs((Long) stats.get("logs"));
+        response.setBytes((Long) stats.get("bytes"));
+        response.setFirstDate((String) stats.get("first_date"));
+        response.setLastDate((String) stats.get("last_date"));
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+    
+    @PostMapping("/run")
+    @Operation(summary = "로그 보관 실행", description = "보관 기준일보다 오래된 로그를 지금 command_logs에서 세그먼트 파일로 이동합니다")
+    public ResponseEntity<ApiResponse<RunArchiveResponse>> run() {
+        int archived;
+        try {
+            archived = logArchiveService.archive();
+        } catch (IllegalStateException e) {
+            // Long queries on the archive; the days left over are archived by the next run
+            return ResponseEntity.status(503).body(ApiResponse.error("503", e.getMessage()));
+        }
+        return ResponseEntity.ok(ApiResponse.success("로그 보관이 완료되었습니다", new RunArchiveResponse(archived)));
+    }
+}
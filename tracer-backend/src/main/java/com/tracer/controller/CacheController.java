@@ -0,0 +1,43 @@
+package com.tracer.controller;
+
+import com.tracer.dto.cache.CacheStatsResponse;
+import com.tracer.dto.common.ApiResponse;
+import com.tracer.service.QueryCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Tag(name = "Cache", description = "조회 캐시 API")
+public class CacheController {
+    
+    private final QueryCache queryCache;
+    
+    @GetMapping("/stats")
+    @Operation(summary = "조회 캐시 통계", description = "대시보드 조회(필터 옵션, 통계, 날짜별 집계) 캐시의 적중/미스/제거 통계를 조회합니다")
+    public ResponseEntity<ApiResponse<CacheStatsResponse>> getStats() {
+        Map<String, Object> stats = queryCache.getStats();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setSize((Integer) stats.get("size"));
+        response.setMaxEntries((Integer) stats.get("max_entries"));
+        response.setTtlMs((Long) stats.get("ttl_ms"));
+        response.setHits((Long) stats.get("hits"));
+        response.setMisses((Long) stats.get("misses"));
+        response.setHitRate((Double) stats.get("hit_rate"));
+        response.setEvictions((Long) stats.get("evictions"));
+        response.setExpirations((Long) stats.get("expirations"));
+        response.setInvalidations((Long) stats.get("invalidations"));
+        @SuppressWarnings("unchecked")
+        Map<String, Long> versions = (Map<String, Long>) stats.get("versions");
+        response.setVersions(versions);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+}
@@ -0,0 +1,100 @@
+package com.tracer.controller;
+
+import com.tracer.dto.common.ApiResponse;
+import com.tracer.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@Tag(name = "Export", description = "데이터 내보내기 API")
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final ExportService exportService;
+
+    @GetMapping("/logs/export")
+    @Operation(summary = "로그 내보내기",
+        description = "필터와 일치하는 로그 전체를 오래된 순으로 NDJSON 또는 CSV 파일로 내려받습니다. "
+            + "행을 DB에서 읽는 대로 전송하므로 건수와 관계없이 메모리를 일정하게 사용합니다")
+    public ResponseEntity<StreamingResponseBody> exportLogs(
+            @Parameter(description = "시작 날짜 (YYYY-MM-DD)") @RequestParam(required = false) String start_date,
+            @Parameter(description = "종료 날짜 (YYYY-MM-DD)") @RequestParam(required = false) String end_date,
+            @Parameter(description = "사용자명 필터") @RequestParam(required = false) String user,
+            @Parameter(description = "검색어 (GET /api/logs와 같은 문법)") @RequestParam(required = false) String search,
+            @Parameter(description = "디렉토리 필터") @RequestParam(required = false) String directory,
+            @Parameter(description = "명령어 또는 디렉토리에 포함된 문자열 (대소문자 무시)") @RequestParam(required = false) String contains,
+            @Parameter(description = "명령어 또는 디렉토리에 대한 정규식 (Java 문법)") @RequestParam(required = false) String regex,
+            @Parameter(description = "형식: ndjson 또는 csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "gzip 압축 여부") @RequestParam(defaultValue = "false") boolean gzip) {
+
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        ExportService.Export export = exportService.exportLogs(
+            start_date, end_date, user, search, directory, contains, regex, exportFormat, gzip);
+        return download("command_logs", exportFormat, gzip, export);
+    }
+
+    @GetMapping("/changes/export")
+    @Operation(summary = "파일 변경 내역 내보내기",
+        description = "필터와 일치하는 파일 변경 내역 전체를 오래된 순으로 NDJSON 또는 CSV 파일로 내려받습니다. "
+            + "행을 DB에서 읽는 대로 전송하므로 건수와 관계없이 메모리를 일정하게 사용합니다")
+    public ResponseEntity<StreamingResponseBody> exportFileChanges(
+            @Parameter(description = "시작 날짜 (YYYY-MM-DD)") @RequestParam(required = false) String start_date,
+            @Parameter(description = "종료 날짜 (YYYY-MM-DD)") @RequestParam(required = false) String end_date,
+            @Parameter(description = "이벤트 타입 필터") @RequestParam(required = false) String event_type,
+            @Parameter(description = "파일 확장자 필터") @RequestParam(required = false) String file_extension,
+            @Parameter(description = "파일 경로에 포함된 문자열 (대소문자 무시)") @RequestParam(required = false) String contains,
+            @Parameter(description = "파일 경로에 대한 정규식 (Java 문법)") @RequestParam(required = false) String regex,
+            @Parameter(description = "형식: ndjson 또는 csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "gzip 압축 여부") @RequestParam(defaultValue = "false") boolean gzip) {
+
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        ExportService.Export export = exportService.exportFileChanges(
+            start_date, end_date, event_type, file_extension, contains, regex, exportFormat, gzip);
+        return download("file_changes", exportFormat, gzip, export);
+    }
+
+    /**
+     * Invalid filters, reported before the download starts.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<Void>> invalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(ApiResponse.error("400", e.getMessage()));
+    }
+
+    /**
+     * The client went away during the download; the request is already
+     * over, so there is nothing to answer.
+     */
+    @ExceptionHandler(IOException.class)
+    public void clientDisconnected() {
+    }
+
+    private static ResponseEntity<StreamingResponseBody> download(String name, ExportService.Format format,
+                                                                  boolean gzip, ExportService.Export export) {
+        String fileName = name + (format == ExportService.Format.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? GZIP : format == ExportService.Format.CSV ? CSV : NDJSON;
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+            .body(export::writeTo);
+    }
+}
@@ -4,7 +4,9 @@ import com.tracer.dto.common.ApiResponse;
 import com.tracer.dto.filewatch.*;
 import com.tracer.dto.filewatch.FileChangeMapper;
 import com.tracer.dto.filewatch.WatchFolderMapper;
+import com.tracer.service.FileDiffService;
 import com.tracer.service.FileWatchService;
+import com.tracer.util.LineDiff;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -23,6 +25,7 @@ import java.util.Map;
 public class FileWatchController {
     
     private final FileWatchService fileWatchService;
+    private final FileDiffService fileDiffService;
     private final WatchFolderMapper watchFolderMapper;
     private final FileChangeMapper fileChangeMapper;
     
@@ -74,18 +77,27 @@ public class FileWatchController {
             @Parameter(description = "종료 날짜 (YYYY-MM-DD)") @RequestParam(required = false) String end_date,
             @Parameter(description = "이벤트 타입 필터") @RequestParam(required = false) String event_type,
             @Parameter(description = "파일 확장자 필터") @RequestParam(required = false) String file_extension,
+            @Parameter(description = "파일 경로에 포함된 문자열 (대소문자 무시)") @RequestParam(required = false) String contains,
+            @Parameter(description = "파일 경로에 대한 정규식 (Java 문법)") @RequestParam(required = false) String regex,
             @Parameter(description = "최대 결과 수") @RequestParam(defaultValue = "100") int limit,
-            @Parameter(description = "페이지네이션 오프셋") @RequestParam(defaultValue = "0") int offset) {
+            @Parameter(description = "페이지네이션 오프셋") @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "다음 페이지 커서 (이전 응답의 nextCursor, 지정 시 offset 무시)") @RequestParam(required = false) String cursor) {
         
-        Map<String, Object> result = fileWatchService.getFileChanges(
-            start_date, end_date, event_type, file_extension, limit, offset);
+        Map<String, Object> result;
+        try {
+            result = fileWatchService.getFileChanges(
+                start_date, end_date, event_type, file_extension, contains, regex, limit, offset, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("400", e.getMessage()));
+        }
         
         FileChangesResponse response = new FileChangesResponse();
-        response.setTotal((Long) result.getOrDefault("total", 0L));
+        response.setTotal((Long) result.get("total"));
         response.setCount((Integer) result.getOrDefault("count", 0));
         @SuppressWarnings("unchecked")
-        List<com.tracer.entity.FileChange> changes = (List<com.tracer.entity.FileChange>) result.get("changes");
+        List<com.tracer.repository.FileChangeSummary> changes = (List<com.tracer.repository.FileChangeSummary>) result.get("changes");
         response.setChanges(fileChangeMapper.toDtoList(changes != null ? changes : List.of()));
+        response.setNextCursor((String) result.get("next_cursor"));
         
         return ResponseEntity.ok(ApiResponse.success(response));
     }
@@ -104,6 +116,9 @@ public class FileWatchController {
         Map<String, Object> stats = fileWatchService.getFileChangeStats();
         FileChangeStatsResponse response = new FileChangeStatsResponse();
         response.setTotalChanges((Long) stats.getOrDefault("total_changes", 0L));
+        Map<String, Object> dateRange = (Map<String, Object>) stats.getOrDefault("date_range", new HashMap<>());
+        response.setFirstChange((String) dateRange.get("first_change"));
+        response.setLastChange((String) dateRange.get("last_change"));
         response.setChangesByEventType((Map<String, Long>) stats.getOrDefault("changes_by_event_type", new HashMap<>()));
         response.setChangesByDate((Map<String, Long>) stats.getOrDefault("changes_by_date", new HashMap<>()));
         response.setChangesByExtension((Map<String, Long>) stats.getOrDefault("changes_by_extension", new HashMap<>()));
@@ -114,7 +129,7 @@ public class FileWatchController {
     @Operation(summary = "특정 날짜 파일 변경 내역 조회", description = "특정 날짜의 파일 변경 내역을 조회합니다")
     public ResponseEntity<ApiResponse<ChangesForDateResponse>> getChangesForDate(
             @Parameter(description = "날짜 (YYYY-MM-DD)", required = true) @PathVariable String date) {
-        List<com.tracer.entity.FileChange> changes = fileWatchService.getChangesForDate(date);
+        List<com.tracer.repository.FileChangeSummary> changes = fileWatchService.getChangesForDate(date);
         ChangesForDateResponse response = new ChangesForDateResponse();
         response.setDate(date);
         response.setCount(changes.size());
@@ -122,6 +137,67 @@ public class FileWatchController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
     
+    @GetMapping("/changes/{changeId}")
+    @Operation(summary = "파일 변경 상세 조회", description = "목록 API에서 제외되는 스냅샷 버전과 원본 데이터를 포함해 변경 내역 하나를 조회합니다")
+    public ResponseEntity<ApiResponse<FileChangeDetailResponse>> getFileChange(
+            @Parameter(description = "변경 내역 ID", required = true) @PathVariable Integer changeId) {
+        com.tracer.entity.FileChange change = fileWatchService.findChange(changeId);
+        if (change == null) {
+            return ResponseEntity.status(404).body(ApiResponse.error("404", "File change not found"));
+        }
+        return ResponseEntity.ok(ApiResponse.success(fileChangeMapper.toDetail(change)));
+    }
+    
+    @GetMapping("/changes/{changeId}/content")
+    @Operation(summary = "파일 변경 전후 내용 조회", description = "저장된 스냅샷에서 변경 전후의 파일 내용을 복원합니다")
+    public ResponseEntity<ApiResponse<FileChangeContentResponse>> getChangeContent(
+            @Parameter(description = "변경 내역 ID", required = true) @PathVariable Integer changeId) {
+        Map<String, Object> content = fileWatchService.getChangeContent(changeId);
+        if (content == null) {
+            return ResponseEntity.status(404).body(ApiResponse.error("404", "File change not found"));
+        }
+        
+        FileChangeContentResponse response = new FileChangeContentResponse();
+        response.setId((Integer) content.get("id"));
+        response.setFilePath((String) content.get("file_path"));
+        response.setSrcPath((String) content.get("src_path"));
+        response.setContentBefore((String) content.get("content_before"));
+        response.setContentAfter((String) content.get("content_after"));
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+    
+    @GetMapping("/changes/{changeId}/diff")
+    @Operation(summary = "파일 변경 diff 조회", description = "서버에서 계산한 줄 단위 diff를 헌크 단위로 반환합니다")
+    public ResponseEntity<ApiResponse<FileChangeDiffResponse>> getChangeDiff(
+            @Parameter(description = "변경 내역 ID", required = true) @PathVariable Integer changeId,
+            @Parameter(description = "비교 대상: previous(직전 버전) 또는 다른 변경 내역 ID") @RequestParam(defaultValue = "previous") String against,
+            @Parameter(description = "헌크 앞뒤로 포함할 context 줄 수") @RequestParam(defaultValue = "3") int context) {
+        
+        Map<String, Object> diff;
+        try {
+            diff = fileDiffService.getDiff(changeId, against, context);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("400", e.getMessage()));
+        }
+        if (diff == null) {
+            return ResponseEntity.status(404).body(ApiResponse.error("404", "File change not found"));
+        }
+        
+        FileChangeDiffResponse response = new FileChangeDiffResponse();
+        response.setId((Integer) diff.get("id"));
+        response.setAgainstId((Integer) diff.get("against_id"));
+        response.setFilePath((String) diff.get("file_path"));
+        response.setTooLarge((Boolean) diff.get("too_large"));
+        response.setAdditions((Integer) diff.get("additions"));
+        response.setDeletions((Integer) diff.get("deletions"));
+        @SuppressWarnings("unchecked")
+        List<LineDiff.Hunk> hunks = (List<LineDiff.Hunk>) diff.get("hunks");
+        response.setHunks(hunks.stream()
+            .map(h -> new DiffHunkDto(h.oldStart(), h.oldLines(), h.newStart(), h.newLines(), h.lines()))
+            .toList());
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+    
     @DeleteMapping("/changes/{changeId}")
     @Operation(summary = "파일 변경 내역 삭제", description = "파일 변경 내역을 삭제합니다")
     public ResponseEntity<ApiResponse<DeleteFileChangeResponse>> deleteFileChange(
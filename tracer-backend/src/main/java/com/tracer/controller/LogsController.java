@@ -3,14 +3,27 @@ package com.tracer.controller;
 import com.tracer.dto.common.ApiResponse;
 import com.tracer.dto.logs.*;
 import com.tracer.dto.logs.CommandLogMapper;
+import com.tracer.service.CommandHistoryTailService;
 import com.tracer.service.CommandLogService;
+import com.tracer.service.IngestCounts;
+import com.tracer.service.LogImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,7 +35,12 @@ import java.util.Map;
 public class LogsController {
     
     private final CommandLogService commandLogService;
+    private final CommandHistoryTailService commandHistoryTailService;
     private final CommandLogMapper commandLogMapper;
+    private final LogImportService logImportService;
+    
+    @Value("${command.history.path}")
+    private String commandHistoryPath;
     
     @GetMapping
     @Operation(summary = "로그 조회", description = "필터링 조건에 따라 로그를 조회합니다")
@@ -30,20 +48,35 @@ public class LogsController {
             @Parameter(description = "시작 날짜 (YYYY-MM-DD)") @RequestParam(required = false) String start_date,
             @Parameter(description = "종료 날짜 (YYYY-MM-DD)") @RequestParam(required = false) String end_date,
             @Parameter(description = "사용자명 필터") @RequestParam(required = false) String user,
-            @Parameter(description = "검색어 (명령어 내 검색)") @RequestParam(required = false) String search,
+            @Parameter(description = "검색어. 단어는 모두 포함(AND), \"따옴표\"는 구문, 단어* 는 접두어 검색이며 관련도순으로 정렬됩니다") @RequestParam(required = false) String search,
             @Parameter(description = "디렉토리 필터") @RequestParam(required = false) String directory,
+            @Parameter(description = "명령어 또는 디렉토리에 포함된 문자열 (대소문자 무시, 예: -rf /)") @RequestParam(required = false) String contains,
+            @Parameter(description = "명령어 또는 디렉토리에 대한 정규식 (Java 문법)") @RequestParam(required = false) String regex,
             @Parameter(description = "최대 결과 수") @RequestParam(defaultValue = "100") int limit,
-            @Parameter(description = "페이지네이션 오프셋") @RequestParam(defaultValue = "0") int offset) {
+            @Parameter(description = "페이지네이션 오프셋") @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "다음 페이지 커서 (이전 응답의 nextCursor, 지정 시 offset 무시)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "검색어 하이라이트 스니펫 포함 여부") @RequestParam(defaultValue = "false") boolean highlight) {
         
-        Map<String, Object> result = commandLogService.getLogs(
-            start_date, end_date, user, search, directory, limit, offset);
+        Map<String, Object> result;
+        try {
+            result = commandLogService.getLogs(
+                start_date, end_date, user, search, directory, contains, regex, limit, offset, cursor, highlight);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("400", e.getMessage()));
+        }
         
         GetLogsResponse response = new GetLogsResponse();
-        response.setTotal((Long) result.getOrDefault("total", 0L));
+        response.setTotal((Long) result.get("total"));
         response.setCount((Integer) result.getOrDefault("count", 0));
         @SuppressWarnings("unchecked")
-        List<com.tracer.entity.CommandLog> logs = (List<com.tracer.entity.CommandLog>) result.get("logs");
+        List<com.tracer.repository.CommandLogSummary> logs = (List<com.tracer.repository.CommandLogSummary>) result.get("logs");
         response.setLogs(commandLogMapper.toDtoList(logs != null ? logs : List.of()));
+        response.setNextCursor((String) result.get("next_cursor"));
+        @SuppressWarnings("unchecked")
+        Map<Integer, String> highlights = (Map<Integer, String>) result.get("highlights");
+        if (highlights != null) {
+            response.getLogs().forEach(log -> log.setHighlight(highlights.get(log.getId())));
+        }
         
         return ResponseEntity.ok(ApiResponse.success(response));
     }
@@ -62,6 +95,10 @@ public class LogsController {
         Map<String, Object> stats = commandLogService.getLogStats();
         LogStatsResponse response = new LogStatsResponse();
         response.setTotalLogs((Long) stats.getOrDefault("total_logs", 0L));
+        response.setUniqueUsers((Long) stats.getOrDefault("unique_users", 0L));
+        Map<String, Object> dateRange = (Map<String, Object>) stats.getOrDefault("date_range", new HashMap<>());
+        response.setFirstLog((String) dateRange.get("first_log"));
+        response.setLastLog((String) dateRange.get("last_log"));
         response.setLogsByUser((Map<String, Long>) stats.getOrDefault("logs_by_user", new HashMap<>()));
         response.setLogsByDate((Map<String, Long>) stats.getOrDefault("logs_by_date", new HashMap<>()));
         response.setTopCommands((Map<String, Long>) stats.getOrDefault("top_commands", new HashMap<>()));
@@ -82,7 +119,7 @@ public class LogsController {
     @Operation(summary = "특정 날짜 로그 조회", description = "특정 날짜의 로그를 조회합니다")
     public ResponseEntity<ApiResponse<LogsForDateResponse>> getLogsForDate(
             @Parameter(description = "날짜 (YYYY-MM-DD)", required = true) @PathVariable String date) {
-        List<com.tracer.entity.CommandLog> logs = commandLogService.getLogsForDate(date);
+        List<com.tracer.repository.CommandLogSummary> logs = commandLogService.getLogsForDate(date);
         LogsForDateResponse response = new LogsForDateResponse();
         response.setDate(date);
         response.setCount(logs.size());
@@ -90,12 +127,147 @@ public class LogsController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
     
+    @GetMapping("/{logId}")
+    @Operation(summary = "로그 상세 조회", description = "목록 API에서 제외되는 원본 줄을 포함해 로그 하나를 조회합니다")
+    public ResponseEntity<ApiResponse<CommandLogDetailResponse>> getLog(
+            @Parameter(description = "로그 ID", required = true) @PathVariable Integer logId) {
+        com.tracer.entity.CommandLog log = commandLogService.getLog(logId);
+        if (log == null) {
+            return ResponseEntity.status(404).body(ApiResponse.error("404", "Log not found"));
+        }
+        return ResponseEntity.ok(ApiResponse.success(commandLogMapper.toDetail(log)));
+    }
+    
+    @GetMapping("/ingestion")
+    @Operation(summary = "로그 수집 상태 조회", description = "백그라운드 로그 수집의 지연 상태를 조회합니다")
+    public ResponseEntity<ApiResponse<IngestionStatusResponse>> getIngestionStatus() {
+        Map<String, Object> status = commandHistoryTailService.getStatus();
+        IngestionStatusResponse response = new IngestionStatusResponse();
+        response.setSource((String) status.get("source"));
+        response.setEnabled((Boolean) status.get("enabled"));
+        response.setFileSize((Long) status.get("file_size"));
+        response.setIngestedOffset((Long) status.get("ingested_offset"));
+        response.setBytesBehind((Long) status.get("bytes_behind"));
+        response.setLastIngestedAt((LocalDateTime) status.get("last_ingested_at"));
+        response.setLastPolledAt((LocalDateTime) status.get("last_polled_at"));
+        response.setLatestCommandTimestamp((LocalDateTime) status.get("latest_command_timestamp"));
+        response.setLastError((String) status.get("last_error"));
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+    
     @PostMapping("/refresh")
-    @Operation(summary = "로그 새로고침", description = "로그 파일에서 로그를 다시 로드합니다")
+    @Operation(summary = "로그 새로고침", description = "로그 파일에서 마지막으로 읽은 위치 이후에 추가된 로그를 로드합니다")
     public ResponseEntity<ApiResponse<RefreshLogsResponse>> refreshLogs() {
+        Path path = Paths.get(commandHistoryPath);
+        if (!Files.exists(path)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("404", "Command history file not found at " + commandHistoryPath));
+        }
+        
+        IngestCounts counts = new IngestCounts();
+        try {
+            commandHistoryTailService.ingest(path, counts);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("500", "Error reloading logs: " + e.getMessage()));
+        }
+        
         RefreshLogsResponse response = new RefreshLogsResponse();
-        response.setSource("Command history file");
-        response.setReloadedCount(0);
+        response.setSource(commandHistoryPath);
+        response.setReloadedCount((int) counts.getInserted());
         return ResponseEntity.ok(ApiResponse.success("로그 새로고침이 요청되었습니다", response));
     }
+    
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "로그 파일 업로드 가져오기", description = "업로드한 명령어 기록 파일(텍스트/JSONL, .gz 가능)을 백그라운드 작업으로 가져옵니다")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> importUploadedLogs(
+            @Parameter(description = "가져올 파일 (여러 개 가능)") @RequestPart("files") List<MultipartFile> files) {
+        try {
+            return importStarted(logImportService.importUploads(files));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("400", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("500", "Error receiving upload: " + e.getMessage()));
+        }
+    }
+    
+    @PostMapping(value = "/import", consumes = {
+        MediaType.APPLICATION_OCTET_STREAM_VALUE, MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+        "application/gzip", "application/x-gzip", "application/jsonl"})
+    @Operation(summary = "로그 파일 스트림 가져오기", description = "요청 본문으로 보낸 명령어 기록 파일 하나(텍스트/JSONL, .gz 가능)를 백그라운드 작업으로 가져옵니다")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> importStreamedLogs(
+            @Parameter(description = "파일 이름 (진행 상황 표시용)") @RequestParam(required = false) String name,
+            HttpServletRequest request) {
+        try {
+            return importStarted(logImportService.importStream(request.getInputStream(), name));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("400", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("500", "Error receiving upload: " + e.getMessage()));
+        }
+    }
+    
+    @PostMapping(value = "/import", params = "path")
+    @Operation(summary = "로컬 로그 파일 가져오기", description = "서버의 파일 또는 디렉토리(하위 디렉토리 포함)에 있는 명령어 기록 파일을 백그라운드 작업으로 가져옵니다. command.import.allowed-roots 아래의 경로만 허용됩니다")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> importLocalLogs(
+            @Parameter(description = "파일 또는 디렉토리 경로") @RequestParam String path,
+            @Parameter(description = "디렉토리 기준 상대 경로 glob 패턴 (예: **.command_log.jsonl*, 없으면 모든 파일)") @RequestParam(required = false) String glob) {
+        try {
+            return importStarted(logImportService.importLocal(path, glob));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("400", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("500", "Error reading " + path + ": " + e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/import")
+    @Operation(summary = "로그 가져오기 작업 목록", description = "최근 가져오기 작업을 최신순으로 조회합니다")
+    public ResponseEntity<ApiResponse<List<ImportJobResponse>>> getImportJobs() {
+        List<ImportJobResponse> jobs = logImportService.getJobs().stream().map(this::toImportJobResponse).toList();
+        return ResponseEntity.ok(ApiResponse.success(jobs));
+    }
+    
+    @GetMapping("/import/{jobId}")
+    @Operation(summary = "로그 가져오기 진행 상황 조회", description = "가져오기 작업의 진행 상황과 저장/건너뜀/실패 건수를 조회합니다")
+    public ResponseEntity<ApiResponse<ImportJobResponse>> getImportJob(
+            @Parameter(description = "작업 ID", required = true) @PathVariable String jobId) {
+        Map<String, Object> job = logImportService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("404", "Import job not found: " + jobId));
+        }
+        return ResponseEntity.ok(ApiResponse.success(toImportJobResponse(job)));
+    }
+    
+    private ResponseEntity<ApiResponse<ImportJobResponse>> importStarted(Map<String, Object> job) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(ApiResponse.success("로그 가져오기 작업이 시작되었습니다", toImportJobResponse(job)));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private ImportJobResponse toImportJobResponse(Map<String, Object> job) {
+        ImportJobResponse response = new ImportJobResponse();
+        response.setJobId((String) job.get("job_id"));
+        response.setStatus((String) job.get("status"));
+        response.setSource((String) job.get("source"));
+        response.setFiles((List<String>) job.get("files"));
+        response.setFilesTotal((Integer) job.get("files_total"));
+        response.setFilesDone((Integer) job.get("files_done"));
+        response.setCurrentFile((String) job.get("current_file"));
+        response.setBytesTotal((Long) job.get("bytes_total"));
+        response.setBytesRead((Long) job.get("bytes_read"));
+        response.setProgress((Double) job.get("progress"));
+        response.setInserted((Long) job.get("inserted"));
+        response.setSkipped((Long) job.get("skipped"));
+        response.setFailed((Long) job.get("failed"));
+        response.setErrors((List<String>) job.get("errors"));
+        response.setCreatedAt((LocalDateTime) job.get("created_at"));
+        response.setStartedAt((LocalDateTime) job.get("started_at"));
+        response.setFinishedAt((LocalDateTime) job.get("finished_at"));
+        return response;
+    }
 }
@@ -2,7 +2,8 @@ package com.tracer.controller;
 
 import com.tracer.dto.common.ApiResponse;
 import com.tracer.dto.logs.RefreshLogsResponse;
-import com.tracer.service.CommandLogService;
+import com.tracer.service.CommandHistoryTailService;
+import com.tracer.service.IngestCounts;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -22,10 +23,10 @@ import java.nio.file.Paths;
 @Tag(name = "Reload Logs", description = "로그 새로고침 API")
 public class ReloadLogsController {
     
-    private final CommandLogService commandLogService;
+    private final CommandHistoryTailService commandHistoryTailService;
     
     @PostMapping
-    @Operation(summary = "로그 새로고침", description = "로그 파일에서 로그를 다시 로드합니다")
+    @Operation(summary = "로그 새로고침", description = "로그 파일에서 마지막으로 읽은 위치 이후에 추가된 로그를 로드합니다")
     public ResponseEntity<ApiResponse<RefreshLogsResponse>> reloadLogs() {
         String commandHistoryPath = System.getenv("COMMAND_HISTORY_PATH");
         if (commandHistoryPath == null || commandHistoryPath.isEmpty()) {
@@ -40,10 +41,11 @@ public class ReloadLogsController {
         }
         
         try {
-            commandLogService.loadLogsFromFile(path, 1000);
+            IngestCounts counts = new IngestCounts();
+            commandHistoryTailService.ingest(path, counts);
             RefreshLogsResponse response = new RefreshLogsResponse();
             response.setSource(commandHistoryPath);
-            response.setReloadedCount(1000); // 실제로는 로드된 수를 반환해야 함
+            response.setReloadedCount((int) counts.getInserted());
             return ResponseEntity.ok(ApiResponse.success("로그가 성공적으로 새로고침되었습니다", response));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
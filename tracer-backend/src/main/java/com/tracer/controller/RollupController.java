@@ -0,0 +1,28 @@
+package com.tracer.controller;
+
+import com.tracer.dto.common.ApiResponse;
+import com.tracer.dto.rollup.RebuildRollupsResponse;
+import com.tracer.service.DailyRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/rollups")
+@RequiredArgsConstructor
+@Tag(name = "Rollups", description = "일별 집계 API")
+public class RollupController {
+    
+    private final DailyRollupService dailyRollupService;
+    
+    @PostMapping("/rebuild")
+    @Operation(summary = "일별 집계 재생성", description = "command_logs와 file_changes 전체에서 일별 집계를 다시 계산합니다")
+    public ResponseEntity<ApiResponse<RebuildRollupsResponse>> rebuild() {
+        int rows = dailyRollupService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("일별 집계가 재생성되었습니다", new RebuildRollupsResponse(rows)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.tracer.controller;
+
+import com.tracer.dto.filewatch.FileChangeMapper;
+import com.tracer.dto.logs.CommandLogMapper;
+import com.tracer.service.LiveStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@Tag(name = "Stream", description = "실시간 스트림 API")
+public class StreamController {
+
+    private final LiveStreamService liveStreamService;
+    private final CommandLogMapper commandLogMapper;
+    private final FileChangeMapper fileChangeMapper;
+
+    @GetMapping("/stream")
+    @Operation(summary = "실시간 로그/파일 변경 스트림",
+        description = "새로 저장된 명령어 로그와 파일 변경 내역을 Server-Sent Events로 전송합니다. "
+            + "저장된 배치마다 \"logs\" 이벤트(CommandLogDto 배열) 또는 \"changes\" 이벤트(FileChangeDto 배열)가 전송됩니다. "
+            + "연결 직후의 과거 데이터는 전송되지 않으며, 처리가 늦은 클라이언트는 연결이 끊어지므로 재연결 시 목록을 다시 조회해야 합니다")
+    public SseEmitter stream(
+            @Parameter(description = "명령어 로그 수신 여부") @RequestParam(defaultValue = "true") boolean logs,
+            @Parameter(description = "파일 변경 내역 수신 여부") @RequestParam(defaultValue = "true") boolean changes,
+            @Parameter(description = "사용자명 필터 (로그에만 적용)") @RequestParam(required = false) String user,
+            @Parameter(description = "디렉토리에 포함된 문자열 (대소문자 무시)") @RequestParam(required = false) String directory,
+            @Parameter(description = "이벤트 타입 필터 (파일 변경에만 적용)") @RequestParam(required = false) String event_type) {
+        
+        LiveStreamService.Filter filter = new LiveStreamService.Filter(
+            logs, changes, blankToNull(user), blankToNull(directory), blankToNull(event_type));
+        return liveStreamService.subscribe(filter, commandLogMapper::toDto, fileChangeMapper::toDto);
+    }
+
+    /**
+     * A subscriber went away while an event was being sent; the request is
+     * already over, so there is nothing to answer.
+     */
+    @ExceptionHandler(IOException.class)
+    public void subscriberDisconnected() {
+    }
+
+    private static String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value : null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.tracer.dto.archive;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "로그 보관소 상태 응답 데이터")
+public class ArchiveStatsResponse {
+    
+    @Schema(description = "주기적인 보관 작업 활성화 여부", example = "true")
+    private Boolean enabled;
+    
+    @Schema(description = "이 일수보다 오래된 로그를 보관소로 이동", example = "90")
+    private Integer afterDays;
+    
+    @Schema(description = "세그먼트 파일 수 (날짜별, 나중에 보관된 로그는 같은 날짜의 다음 세그먼트)", example = "365")
+    private Integer segments;
+    
+    @Schema(description = "보관된 로그 수", example = "240000")
+    private Long logs;
+    
+    @Schema(description = "세그먼트 파일 크기 합계 (바이트)", example = "5242880")
+    private Long bytes;
+    
+    @Schema(description = "보관된 가장 오래된 날짜", example = "2024-01-01")
+    private String firstDate;
+    
+    @Schema(description = "보관된 가장 최근 날짜", example = "2024-12-31")
+    private String lastDate;
+}
@@ -0,0 +1,16 @@
+package com.tracer.dto.archive;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "로그 보관 실행 응답 데이터")
+public class RunArchiveResponse {
+    
+    @Schema(description = "보관소로 이동한 로그 수", example = "1200")
+    private Integer archived;
+}
@@ -0,0 +1,45 @@
+package com.tracer.dto.cache;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "조회 캐시 통계 응답 데이터")
+public class CacheStatsResponse {
+    
+    @Schema(description = "현재 캐시된 항목 수", example = "5")
+    private Integer size;
+    
+    @Schema(description = "최대 항목 수 (초과 시 가장 오래 사용되지 않은 항목 제거)", example = "256")
+    private Integer maxEntries;
+    
+    @Schema(description = "항목 유효 시간 (밀리초)", example = "300000")
+    private Long ttlMs;
+    
+    @Schema(description = "캐시 적중 수", example = "120")
+    private Long hits;
+    
+    @Schema(description = "캐시 미스 수", example = "8")
+    private Long misses;
+    
+    @Schema(description = "적중률 (0~1)", example = "0.9375")
+    private Double hitRate;
+    
+    @Schema(description = "크기 제한으로 제거된 항목 수", example = "0")
+    private Long evictions;
+    
+    @Schema(description = "유효 시간이 지나 다시 조회된 항목 수", example = "2")
+    private Long expirations;
+    
+    @Schema(description = "데이터 저장으로 무효화된 항목 수", example = "6")
+    private Long invalidations;
+    
+    @Schema(description = "영역(logs, changes)별 데이터 버전, 저장할 때마다 증가", example = "{\"logs\": 3, \"changes\": 1}")
+    private Map<String, Long> versions;
+}
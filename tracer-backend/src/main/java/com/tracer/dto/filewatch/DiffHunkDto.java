@@ -0,0 +1,30 @@
+package com.tracer.dto.filewatch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "diff 헌크 (unified diff 형식)")
+public class DiffHunkDto {
+    
+    @Schema(description = "변경 전 시작 줄 번호", example = "12")
+    private Integer oldStart;
+    
+    @Schema(description = "변경 전 줄 수", example = "7")
+    private Integer oldLines;
+    
+    @Schema(description = "변경 후 시작 줄 번호", example = "12")
+    private Integer newStart;
+    
+    @Schema(description = "변경 후 줄 수", example = "8")
+    private Integer newLines;
+    
+    @Schema(description = "줄 목록. 첫 글자가 ' '(유지), '-'(삭제), '+'(추가)", example = "[\" def main():\", \"-    run()\", \"+    run(args)\"]")
+    private List<String> lines;
+}
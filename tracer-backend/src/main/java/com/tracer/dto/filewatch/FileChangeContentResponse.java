@@ -0,0 +1,28 @@
+package com.tracer.dto.filewatch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "파일 변경 전후 내용 응답 데이터")
+public class FileChangeContentResponse {
+    
+    @Schema(description = "변경 내역 ID", example = "1")
+    private Integer id;
+    
+    @Schema(description = "파일 경로", example = "/Users/username/project/main.py")
+    private String filePath;
+    
+    @Schema(description = "이동 전 경로 (이동 이벤트인 경우)")
+    private String srcPath;
+    
+    @Schema(description = "변경 전 내용 (없거나 텍스트가 아닌 경우 null)")
+    private String contentBefore;
+    
+    @Schema(description = "변경 후 내용 (삭제되었거나 텍스트가 아닌 경우 null)")
+    private String contentAfter;
+}
@@ -0,0 +1,36 @@
+package com.tracer.dto.filewatch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "파일 변경 diff 응답 데이터")
+public class FileChangeDiffResponse {
+    
+    @Schema(description = "변경 내역 ID", example = "42")
+    private Integer id;
+    
+    @Schema(description = "비교 대상 변경 내역 ID (직전 버전과 비교한 경우 null)", example = "40")
+    private Integer againstId;
+    
+    @Schema(description = "파일 경로", example = "/Users/username/project/main.py")
+    private String filePath;
+    
+    @Schema(description = "변경 영역이 file.diff.max-lines를 넘어 diff를 생략했는지 여부", example = "false")
+    private Boolean tooLarge;
+    
+    @Schema(description = "추가된 줄 수", example = "3")
+    private Integer additions;
+    
+    @Schema(description = "삭제된 줄 수", example = "1")
+    private Integer deletions;
+    
+    @Schema(description = "변경된 헌크 목록 (앞뒤 context 줄 포함)")
+    private List<DiffHunkDto> hunks;
+}
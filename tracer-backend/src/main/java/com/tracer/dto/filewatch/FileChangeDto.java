@@ -45,5 +45,8 @@ public class FileChangeDto {
     
     @Schema(description = "원본 경로 (이동 이벤트의 경우)", example = "/home/user/old/config.yml")
     private String srcPath;
+    
+    @Schema(description = "이 변경으로 합쳐진 원본 파일 이벤트 수", example = "3")
+    private Integer rawEventCount;
 }
 
@@ -1,6 +1,7 @@
 package com.tracer.dto.filewatch;
 
 import com.tracer.entity.FileChange;
+import com.tracer.repository.FileChangeSummary;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -24,11 +25,52 @@ public class FileChangeMapper {
             change.getFileExtension(),
             change.getSize(),
             change.getIsDirectory(),
-            change.getSrcPath()
+            change.getSrcPath(),
+            change.getRawEventCount()
         );
     }
     
-    public List<FileChangeDto> toDtoList(List<FileChange> changes) {
+    public FileChangeDto toDto(FileChangeSummary change) {
+        if (change == null) {
+            return null;
+        }
+        return new FileChangeDto(
+            change.id(),
+            change.timestamp(),
+            change.date(),
+            change.eventType(),
+            change.filePath(),
+            change.directory(),
+            change.fileName(),
+            change.fileExtension(),
+            change.size(),
+            change.isDirectory(),
+            change.srcPath(),
+            change.rawEventCount()
+        );
+    }
+    
+    public FileChangeDetailResponse toDetail(FileChange change) {
+        return new FileChangeDetailResponse(
+            change.getId(),
+            change.getTimestamp(),
+            change.getDate(),
+            change.getEventType(),
+            change.getFilePath(),
+            change.getDirectory(),
+            change.getFileName(),
+            change.getFileExtension(),
+            change.getSize(),
+            change.getIsDirectory(),
+            change.getSrcPath(),
+            change.getRawEventCount(),
+            change.getContentVersion(),
+            change.getPreviousContentVersion(),
+            change.getRawData()
+        );
+    }
+    
+    public List<FileChangeDto> toDtoList(List<FileChangeSummary> changes) {
         return changes.stream()
             .map(this::toDto)
             .collect(Collectors.toList());
@@ -16,6 +16,12 @@ public class FileChangeStatsResponse {
     @Schema(description = "전체 변경 내역 수", example = "500")
     private Long totalChanges;
     
+    @Schema(description = "가장 오래된 변경 시각", example = "2025-10-01T09:00:00")
+    private String firstChange;
+    
+    @Schema(description = "가장 최근 변경 시각", example = "2025-10-27T18:30:00")
+    private String lastChange;
+    
     @Schema(description = "이벤트 타입별 변경 수")
     private Map<String, Long> changesByEventType;
     
@@ -0,0 +1,39 @@
+package com.tracer.dto.logs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "명령어 로그 상세 응답 데이터")
+public class CommandLogDetailResponse {
+    
+    @Schema(description = "로그 ID", example = "1")
+    private Integer id;
+    
+    @Schema(description = "타임스탬프", example = "2025-01-27T09:15:22")
+    private LocalDateTime timestamp;
+    
+    @Schema(description = "날짜", example = "2025-01-27")
+    private String date;
+    
+    @Schema(description = "시간", example = "09:15:22")
+    private String time;
+    
+    @Schema(description = "사용자명", example = "john")
+    private String user;
+    
+    @Schema(description = "디렉토리", example = "/home/user/project")
+    private String directory;
+    
+    @Schema(description = "실행된 명령어", example = "ls -la")
+    private String command;
+    
+    @Schema(description = "히스토리 파일의 원본 줄 (목록 API에는 포함되지 않음)")
+    private String rawLine;
+}
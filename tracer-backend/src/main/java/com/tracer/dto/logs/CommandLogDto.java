@@ -33,5 +33,8 @@ public class CommandLogDto {
     
     @Schema(description = "실행된 명령어", example = "ls -la")
     private String command;
+    
+    @Schema(description = "검색어가 <mark>로 표시된 스니펫 (search와 highlight=true를 함께 지정한 경우)", example = "<mark>kubectl</mark> <mark>apply</mark> -f deploy.yaml")
+    private String highlight;
 }
 
@@ -1,6 +1,7 @@
 package com.tracer.dto.logs;
 
 import com.tracer.entity.CommandLog;
+import com.tracer.repository.CommandLogSummary;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -20,11 +21,41 @@ public class CommandLogMapper {
             log.getTime(),
             log.getUser(),
             log.getDirectory(),
-            log.getCommand()
+            log.getCommand(),
+            null
         );
     }
     
-    public List<CommandLogDto> toDtoList(List<CommandLog> logs) {
+    public CommandLogDto toDto(CommandLogSummary log) {
+        if (log == null) {
+            return null;
+        }
+        return new CommandLogDto(
+            log.id(),
+            log.timestamp(),
+            log.date(),
+            log.time(),
+            log.user(),
+            log.directory(),
+            log.command(),
+            null
+        );
+    }
+    
+    public CommandLogDetailResponse toDetail(CommandLog log) {
+        return new CommandLogDetailResponse(
+            log.getId(),
+            log.getTimestamp(),
+            log.getDate(),
+            log.getTime(),
+            log.getUser(),
+            log.getDirectory(),
+            log.getCommand(),
+            log.getRawLine()
+        );
+    }
+    
+    public List<CommandLogDto> toDtoList(List<CommandLogSummary> logs) {
         return logs.stream()
             .map(this::toDto)
             .collect(Collectors.toList());
@@ -13,7 +13,7 @@ import java.util.List;
 @Schema(description = "로그 조회 응답 데이터")
 public class GetLogsResponse {
     
-    @Schema(description = "전체 로그 수", example = "150")
+    @Schema(description = "전체 로그 수 (커서 조회 시, contains/regex 조회에서 다음 페이지가 있을 때 null)", example = "150")
     private Long total;
     
     @Schema(description = "현재 페이지의 로그 수", example = "100")
@@ -21,5 +21,8 @@ public class GetLogsResponse {
     
     @Schema(description = "로그 목록")
     private List<CommandLogDto> logs;
+    
+    @Schema(description = "다음 페이지 커서 (더 이상 결과가 없으면 null)", example = "MjAyNS0wMS0yN1QwOToxNToyMnwxMjM")
+    private String nextCursor;
 }
 
@@ -0,0 +1,67 @@
+package com.tracer.dto.logs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "로그 가져오기 작업 응답 데이터")
+public class ImportJobResponse {
+
+    @Schema(description = "작업 ID (진행 상황 조회에 사용)", example = "3f2b6c1e-8a4d-4a51-9a5e-2f0c7d9b1e42")
+    private String jobId;
+
+    @Schema(description = "작업 상태 (queued, running, completed, failed)", example = "running")
+    private String status;
+
+    @Schema(description = "가져오는 경로 (업로드는 upload)", example = "/backup/command-logs")
+    private String source;
+
+    @Schema(description = "가져올 파일 목록")
+    private List<String> files;
+
+    @Schema(description = "전체 파일 수", example = "12")
+    private Integer filesTotal;
+
+    @Schema(description = "처리가 끝난 파일 수", example = "5")
+    private Integer filesDone;
+
+    @Schema(description = "현재 처리 중인 파일", example = "/backup/command-logs/.command_log.jsonl.3.gz")
+    private String currentFile;
+
+    @Schema(description = "전체 파일 크기 (바이트, 압축 파일은 압축된 크기)", example = "734003200")
+    private Long bytesTotal;
+
+    @Schema(description = "지금까지 읽은 바이트 수 (파싱이 저장보다 조금 앞서 읽으므로 저장 진행보다 클 수 있음)", example = "301989888")
+    private Long bytesRead;
+
+    @Schema(description = "진행률 (0.0 ~ 1.0)", example = "0.41")
+    private Double progress;
+
+    @Schema(description = "새로 저장된 로그 수", example = "1523400")
+    private Long inserted;
+
+    @Schema(description = "이미 저장되어 있거나 중복이라 건너뛴 로그 수", example = "20311")
+    private Long skipped;
+
+    @Schema(description = "파싱하지 못한 줄 수", example = "12")
+    private Long failed;
+
+    @Schema(description = "파일별 오류 메시지")
+    private List<String> errors;
+
+    @Schema(description = "작업 생성 시각", example = "2025-01-27T09:15:22")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "작업 시작 시각", example = "2025-01-27T09:15:22")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "작업 종료 시각 (진행 중이면 null)", example = "2025-01-27T09:17:05")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,42 @@
+package com.tracer.dto.logs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "명령어 로그 수집 상태 응답 데이터")
+public class IngestionStatusResponse {
+
+    @Schema(description = "수집 중인 로그 파일 경로", example = "/home/user/.command_log.jsonl")
+    private String source;
+
+    @Schema(description = "백그라운드 수집 활성화 여부", example = "true")
+    private Boolean enabled;
+
+    @Schema(description = "현재 로그 파일 크기 (바이트)", example = "17241")
+    private Long fileSize;
+
+    @Schema(description = "마지막으로 수집한 위치 (바이트)", example = "17046")
+    private Long ingestedOffset;
+
+    @Schema(description = "아직 수집되지 않은 바이트 수", example = "195")
+    private Long bytesBehind;
+
+    @Schema(description = "마지막으로 새 로그를 수집한 시각", example = "2025-01-27T09:15:22")
+    private LocalDateTime lastIngestedAt;
+
+    @Schema(description = "마지막으로 파일을 확인한 시각", example = "2025-01-27T09:15:23")
+    private LocalDateTime lastPolledAt;
+
+    @Schema(description = "저장된 가장 최근 명령어의 타임스탬프", example = "2025-01-27T09:15:20")
+    private LocalDateTime latestCommandTimestamp;
+
+    @Schema(description = "마지막 수집 오류 (없으면 null)")
+    private String lastError;
+}
@@ -16,6 +16,15 @@ public class LogStatsResponse {
     @Schema(description = "전체 로그 수", example = "1000")
     private Long totalLogs;
     
+    @Schema(description = "고유 사용자 수", example = "3")
+    private Long uniqueUsers;
+    
+    @Schema(description = "가장 오래된 로그 시각", example = "2025-10-01T09:00:00")
+    private String firstLog;
+    
+    @Schema(description = "가장 최근 로그 시각", example = "2025-10-27T18:30:00")
+    private String lastLog;
+    
     @Schema(description = "사용자별 로그 수")
     private Map<String, Long> logsByUser;
     
@@ -0,0 +1,16 @@
+package com.tracer.dto.rollup;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "일별 집계 재생성 응답 데이터")
+public class RebuildRollupsResponse {
+    
+    @Schema(description = "다시 계산된 집계 행 수", example = "1200")
+    private Integer rows;
+}
@@ -40,5 +40,11 @@ public class CommandLog {
     
     @Column(nullable = false, columnDefinition = "TEXT")
     private String rawLine;
+    
+    // SHA-256 of timestamp + user + command, see DedupKey. The unique index
+    // idx_dedup_key is created in schema.sql because ddl-auto cannot add a
+    // unique constraint to an existing SQLite table.
+    @Column(name = "dedup_key")
+    private String dedupKey;
 }
 
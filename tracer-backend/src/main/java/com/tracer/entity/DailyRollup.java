@@ -0,0 +1,37 @@
+package com.tracer.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Precomputed per-day row count of command_logs or file_changes, optionally
+ * broken down by one column. Maintained by DailyRollupService.
+ */
+@Entity
+@Table(name = "daily_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    // e.g. "logs", "logs.user", "changes.extension"; see DailyRollupService
+    @Column(nullable = false)
+    private String dimension;
+    
+    @Column(nullable = false)
+    private String date;
+    
+    // Value of the broken-down column, "" for the per-day totals. The unique
+    // index idx_daily_rollups_key on (dimension, date, dimension_value) is
+    // created in schema.sql, like idx_dedup_key.
+    @Column(name = "dimension_value", nullable = false, columnDefinition = "VARCHAR")
+    private String dimensionValue;
+    
+    @Column(nullable = false)
+    private Long count;
+}
@@ -9,8 +9,9 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "file_changes", indexes = {
-    @Index(name = "idx_timestamp", columnList = "timestamp"),
-    @Index(name = "idx_date", columnList = "date")
+    @Index(name = "idx_file_changes_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_file_changes_date", columnList = "date"),
+    @Index(name = "idx_file_changes_path", columnList = "file_path, timestamp")
 })
 @Data
 @NoArgsConstructor
@@ -48,6 +49,12 @@ public class FileChange {
     private String srcPath; // For moved events
     
     @Column(columnDefinition = "TEXT")
-    private String rawData; // Store file content as JSON
+    private String rawData; // Legacy: file content as JSON, superseded by file_snapshots
+    
+    private Integer contentVersion; // file_snapshots version of filePath after the change
+    
+    private Integer previousContentVersion; // file_snapshots version before the change (of srcPath for moves)
+    
+    private Integer rawEventCount; // Watch events coalesced into this row
 }
 
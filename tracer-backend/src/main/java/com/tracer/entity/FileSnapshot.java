@@ -0,0 +1,42 @@
+package com.tracer.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "file_snapshots", indexes = {
+    @Index(name = "idx_file_snapshots_path_version", columnList = "file_path, version")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private String filePath;
+
+    @Column(nullable = false)
+    private Integer version; // 1, 2, ... per file path
+
+    @Column(nullable = false)
+    private String kind; // "full" or "delta"
+
+    @Column(nullable = false)
+    private Integer baseVersion; // Full snapshot this version is rebuilt from
+
+    @Column(nullable = false, columnDefinition = "BLOB")
+    private byte[] data; // Deflated content or deflated line delta, see SnapshotCodec
+
+    @Column(nullable = false)
+    private Integer contentLength; // Characters in the rebuilt content
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
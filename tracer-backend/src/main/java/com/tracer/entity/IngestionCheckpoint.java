@@ -0,0 +1,33 @@
+package com.tracer.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ingestion_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String source; // Absolute path of the ingested file
+
+    @Column(nullable = false)
+    private Long byteOffset; // End of the last fully ingested line
+
+    private String inode; // File key reported by the OS, null where unsupported
+
+    @Column(nullable = false)
+    private Long fileSize; // File size when the offset was recorded
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,85 @@
+package com.tracer.repository;
+
+import com.tracer.entity.CommandLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC writes for the ingestion hot path on SQLite.
+ *
+ * Saving CommandLog entities through JPA costs one INSERT round trip per
+ * row (IDENTITY ids rule out Hibernate's batching) and the rollups need a
+ * read-modify-write of every touched row. Here the logs go out as multi-row
+ * INSERT ... RETURNING statements and the rollups as one batched upsert, on
+ * the connection of the surrounding transaction. The FTS and trigram
+ * triggers still index every inserted row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkWriteRepository {
+
+    // 8 parameters per row, well below SQLite's 32766 variables per statement
+    static final int ROWS_PER_STATEMENT = 200;
+
+    private static final String INSERT_LOGS =
+        "INSERT INTO command_logs (timestamp, date, time, user, directory, command, raw_line, dedup_key) VALUES ";
+    private static final String LOG_ROW = "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_ROLLUP =
+        "INSERT INTO daily_rollups (dimension, date, dimension_value, count) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (dimension, date, dimension_value) DO UPDATE SET count = count + excluded.count";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the logs, ROWS_PER_STATEMENT rows per statement, and sets their
+     * ids (read back through RETURNING, matched by dedup key).
+     */
+    public void insertCommandLogs(List<CommandLog> logs) {
+        for (int from = 0; from < logs.size(); from += ROWS_PER_STATEMENT) {
+            List<CommandLog> rows = logs.subList(from, Math.min(from + ROWS_PER_STATEMENT, logs.size()));
+            Map<String, CommandLog> byKey = new HashMap<>();
+            rows.forEach(log -> byKey.put(log.getDedupKey(), log));
+            RowCallbackHandler setId = rs -> byKey.get(rs.getString(2)).setId(rs.getInt(1));
+            jdbcTemplate.query(insertLogsSql(rows.size()), setId, logParameters(rows));
+        }
+    }
+
+    /**
+     * Adds each increment ({dimension, date, value, delta} with delta &gt; 0)
+     * to its daily_rollups row, creating the rows that do not exist yet.
+     */
+    public void addRollupCounts(List<Object[]> increments) {
+        if (!increments.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ROLLUP, increments);
+        }
+    }
+
+    private static String insertLogsSql(int rows) {
+        return INSERT_LOGS + String.join(", ", Collections.nCopies(rows, LOG_ROW)) + " RETURNING id, dedup_key";
+    }
+
+    private static Object[] logParameters(List<CommandLog> logs) {
+        Object[] parameters = new Object[logs.size() * 8];
+        int i = 0;
+        for (CommandLog log : logs) {
+            parameters[i++] = Timestamp.valueOf(log.getTimestamp());
+            parameters[i++] = log.getDate();
+            parameters[i++] = log.getTime();
+            parameters[i++] = log.getUser();
+            parameters[i++] = log.getDirectory();
+            parameters[i++] = log.getCommand();
+            parameters[i++] = log.getRawLine();
+            parameters[i++] = log.getDedupKey();
+        }
+        return parameters;
+    }
+}
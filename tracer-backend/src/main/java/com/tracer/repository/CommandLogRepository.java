@@ -1,16 +1,20 @@
 package com.tracer.repository;
 
 import com.tracer.entity.CommandLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
-public interface CommandLogRepository extends JpaRepository<CommandLog, Integer> {
+public interface CommandLogRepository extends JpaRepository<CommandLog, Integer>, JpaSpecificationExecutor<CommandLog> {
     
     List<CommandLog> findByTimestampBetweenOrderByTimestampDesc(
         LocalDateTime start, LocalDateTime end);
@@ -24,6 +28,13 @@ public interface CommandLogRepository extends JpaRepository<CommandLog, Integer>
     @Query("SELECT c.date, COUNT(c.id) FROM CommandLog c GROUP BY c.date ORDER BY c.date DESC")
     List<Object[]> findLogsByDate();
     
+    // MIN/MAX over the timestamp index read one index entry each
+    @Query("SELECT MIN(c.timestamp) FROM CommandLog c")
+    LocalDateTime findEarliestTimestamp();
+    
+    @Query("SELECT MAX(c.timestamp) FROM CommandLog c")
+    LocalDateTime findLatestTimestamp();
+    
     @Query("SELECT COUNT(DISTINCT c.user) FROM CommandLog c")
     Long countDistinctUsers();
     
@@ -41,5 +52,34 @@ public interface CommandLogRepository extends JpaRepository<CommandLog, Integer>
     
     @Query("SELECT c FROM CommandLog c WHERE c.timestamp >= :start AND c.timestamp < :end ORDER BY c.timestamp DESC")
     List<CommandLog> findByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    // List columns only, see CommandLogSummary
+    @Query("SELECT new com.tracer.repository.CommandLogSummary(c.id, c.timestamp, c.date, c.time, c.user, c.directory, c.command) "
+        + "FROM CommandLog c WHERE c.timestamp >= :start AND c.timestamp < :end ORDER BY c.timestamp DESC")
+    List<CommandLogSummary> findSummariesByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    @Query("SELECT new com.tracer.repository.CommandLogSummary(c.id, c.timestamp, c.date, c.time, c.user, c.directory, c.command) "
+        + "FROM CommandLog c WHERE c.id IN :ids")
+    List<CommandLogSummary> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+    
+    @Query("SELECT MAX(c.id) FROM CommandLog c")
+    Integer findMaxId();
+    
+    /**
+     * Reads one row. On SQLite a transaction's view of the database is fixed
+     * by its first read, so this pins what its later queries see.
+     */
+    @Query(value = "SELECT 1 FROM command_logs LIMIT 1", nativeQuery = true)
+    List<Integer> startRead();
+    
+    // Days to archive, see LogArchiveService
+    @Query("SELECT DISTINCT c.date FROM CommandLog c WHERE c.date < :date ORDER BY c.date")
+    List<String> findDatesBefore(@Param("date") String date);
+    
+    List<CommandLog> findByDateOrderByTimestampAscIdAsc(String date);
+    
+    @Query("SELECT c.dedupKey FROM CommandLog c WHERE c.dedupKey IN :keys")
+    Set<String> findExistingDedupKeys(@Param("keys") Collection<String> keys);
+    
+    List<CommandLog> findByDedupKeyIsNull(Pageable pageable);
 }
-
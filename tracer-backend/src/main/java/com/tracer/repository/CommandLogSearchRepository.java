@@ -0,0 +1,142 @@
+package com.tracer.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQLite FTS5 index over command_logs.command and command_logs.directory.
+ *
+ * command_logs_fts is an external-content table: it stores only the index and
+ * reads the text back from command_logs. Triggers on command_logs keep it in
+ * sync for every insert, update and delete, whichever code path writes.
+ */
+@Repository
+public class CommandLogSearchRepository {
+
+    private static final String[] CREATE_INDEX = {
+        "CREATE VIRTUAL TABLE IF NOT EXISTS command_logs_fts USING fts5("
+            + "command, directory, content='command_logs', content_rowid='id', prefix='2 3')",
+        "CREATE TRIGGER IF NOT EXISTS command_logs_fts_insert AFTER INSERT ON command_logs BEGIN "
+            + "INSERT INTO command_logs_fts (rowid, command, directory) VALUES (new.id, new.command, new.directory); "
+            + "END",
+        "CREATE TRIGGER IF NOT EXISTS command_logs_fts_delete AFTER DELETE ON command_logs BEGIN "
+            + "INSERT INTO command_logs_fts (command_logs_fts, rowid, command, directory) "
+            + "VALUES ('delete', old.id, old.command, old.directory); "
+            + "END",
+        "CREATE TRIGGER IF NOT EXISTS command_logs_fts_update AFTER UPDATE OF command, directory ON command_logs BEGIN "
+            + "INSERT INTO command_logs_fts (command_logs_fts, rowid, command, directory) "
+            + "VALUES ('delete', old.id, old.command, old.directory); "
+            + "INSERT INTO command_logs_fts (rowid, command, directory) VALUES (new.id, new.command, new.directory); "
+            + "END"
+    };
+
+    // Matches in the command weigh more than matches in the directory
+    private static final String RANK = "bm25(command_logs_fts, 2.0, 1.0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Creates the FTS table and its triggers if they do not exist yet.
+     */
+    public void createIndex() {
+        for (String statement : CREATE_INDEX) {
+            entityManager.createNativeQuery(statement).executeUpdate();
+        }
+    }
+
+    /**
+     * @return the number of rows in the index; the docsize shadow table has
+     *         one row per indexed document (the FTS table itself would read
+     *         the content table)
+     */
+    public long countIndexed() {
+        return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM command_logs_fts_docsize")
+            .getSingleResult()).longValue();
+    }
+
+    /**
+     * Re-indexes every row of command_logs.
+     */
+    public void rebuildIndex() {
+        entityManager.createNativeQuery("INSERT INTO command_logs_fts (command_logs_fts) VALUES ('rebuild')")
+            .executeUpdate();
+    }
+
+    /**
+     * Ranked page of logs matching an FTS5 expression and the /api/logs
+     * filters (null filters are ignored), best match first.
+     *
+     * @param highlight whether to build a snippet of the best matching column
+     * @return log id to snippet (null without highlight), in rank order
+     */
+    public Map<Integer, String> search(String match, LocalDateTime start, LocalDateTime end,
+                                       String user, String directory, boolean highlight,
+                                       int limit, int offset) {
+        String snippet = highlight
+            ? "snippet(command_logs_fts, -1, '<mark>', '</mark>', '...', 16)" : "NULL";
+        Query query = createQuery(
+            "SELECT c.id, " + snippet + " FROM command_logs_fts JOIN command_logs c ON c.id = command_logs_fts.rowid",
+            "ORDER BY " + RANK + ", c.timestamp DESC, c.id DESC LIMIT :limit OFFSET :offset",
+            match, start, end, user, directory);
+        query.setParameter("limit", limit);
+        query.setParameter("offset", offset);
+
+        Map<Integer, String> results = new LinkedHashMap<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            results.put(((Number) columns[0]).intValue(), (String) columns[1]);
+        }
+        return results;
+    }
+
+    public long count(String match, LocalDateTime start, LocalDateTime end, String user, String directory) {
+        Query query = createQuery(
+            "SELECT COUNT(*) FROM command_logs_fts JOIN command_logs c ON c.id = command_logs_fts.rowid",
+            "", match, start, end, user, directory);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    private Query createQuery(String select, String suffix, String match, LocalDateTime start,
+                              LocalDateTime end, String user, String directory) {
+        List<String> where = new ArrayList<>();
+        where.add("command_logs_fts MATCH :match");
+        if (start != null) {
+            where.add("c.timestamp >= :start");
+        }
+        if (end != null) {
+            where.add("c.timestamp < :end");
+        }
+        if (user != null) {
+            where.add("c.user = :user");
+        }
+        if (directory != null) {
+            where.add("c.directory LIKE :directory ESCAPE '\\'");
+        }
+
+        Query query = entityManager.createNativeQuery(
+            select + " WHERE " + String.join(" AND ", where) + " " + suffix);
+        query.setParameter("match", match);
+        if (start != null) {
+            query.setParameter("start", start);
+        }
+        if (end != null) {
+            query.setParameter("end", end);
+        }
+        if (user != null) {
+            query.setParameter("user", user);
+        }
+        if (directory != null) {
+            query.setParameter("directory", CommandLogSpecifications.containsPattern(directory));
+        }
+        return query;
+    }
+}
@@ -0,0 +1,73 @@
+package com.tracer.repository;
+
+import com.tracer.entity.CommandLog;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query predicates for CommandLog, evaluated in SQL.
+ */
+public final class CommandLogSpecifications {
+
+    private CommandLogSpecifications() {
+    }
+
+    public static Specification<CommandLog> timestampFrom(LocalDateTime start) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("timestamp"), start);
+    }
+
+    public static Specification<CommandLog> timestampAfter(LocalDateTime timestamp) {
+        return (root, query, cb) -> cb.greaterThan(root.get("timestamp"), timestamp);
+    }
+
+    public static Specification<CommandLog> timestampTo(LocalDateTime end) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("timestamp"), end);
+    }
+
+    public static Specification<CommandLog> userEquals(String user) {
+        return (root, query, cb) -> cb.equal(root.get("user"), user);
+    }
+
+    public static Specification<CommandLog> directoryContains(String directory) {
+        return (root, query, cb) -> cb.like(root.get("directory"), containsPattern(directory), '\\');
+    }
+
+    public static Specification<CommandLog> commandContains(String search) {
+        return (root, query, cb) -> cb.like(root.get("command"), containsPattern(search), '\\');
+    }
+
+    /**
+     * Combines the /api/logs filters. Null arguments are ignored.
+     */
+    public static Specification<CommandLog> filter(LocalDateTime start, LocalDateTime end,
+                                                   String user, String directory, String search) {
+        List<Specification<CommandLog>> specs = new ArrayList<>();
+        if (start != null) {
+            specs.add(timestampFrom(start));
+        }
+        if (end != null) {
+            specs.add(timestampTo(end));
+        }
+        if (user != null) {
+            specs.add(userEquals(user));
+        }
+        if (directory != null) {
+            specs.add(directoryContains(directory));
+        }
+        if (search != null) {
+            specs.add(commandContains(search));
+        }
+        return Specification.allOf(specs);
+    }
+
+    static String containsPattern(String value) {
+        String escaped = value
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,14 @@
+package com.tracer.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a command log that list views show. raw_line is left out;
+ * it is read only for a single log through GET /api/logs/{id}.
+ */
+public record CommandLogSummary(Integer id, LocalDateTime timestamp, String date, String time,
+                                String user, String directory, String command) {
+
+    // Constructor arguments, in order, for JPQL and criteria queries
+    static final String[] COLUMNS = {"id", "timestamp", "date", "time", "user", "directory", "command"};
+}
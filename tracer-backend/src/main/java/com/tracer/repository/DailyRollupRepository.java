@@ -0,0 +1,85 @@
+package com.tracer.repository;
+
+import com.tracer.entity.DailyRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, Integer> {
+    
+    List<DailyRollup> findByDimensionInAndDateInAndDimensionValueIn(Collection<String> dimensions,
+                                                                    Collection<String> dates,
+                                                                    Collection<String> dimensionValues);
+    
+    // date '' marks the all-time rows, see DailyRollupService.ALL_DAYS
+    
+    @Query("SELECT r.date, r.count FROM DailyRollup r WHERE r.dimension = :dimension AND r.date <> '' " +
+           "ORDER BY r.date DESC")
+    List<Object[]> findDailyTotals(@Param("dimension") String dimension);
+    
+    @Query("SELECT r.count FROM DailyRollup r WHERE r.dimension = :dimension AND r.date = '' " +
+           "AND r.dimensionValue = ''")
+    Long findAllTimeTotal(@Param("dimension") String dimension);
+    
+    // Reads idx_daily_rollups_count backwards, so only the returned rows are visited
+    @Query("SELECT r.dimensionValue, r.count FROM DailyRollup r WHERE r.dimension = :dimension AND r.date = '' " +
+           "ORDER BY r.count DESC")
+    List<Object[]> findValueTotals(@Param("dimension") String dimension, Pageable pageable);
+    
+    // Rebuild from the source tables, one statement per dimension
+    
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT 'logs', c.date, '', COUNT(c) FROM CommandLog c GROUP BY c.date")
+    int rebuildLogTotals();
+    
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT 'logs.user', c.date, c.user, COUNT(c) FROM CommandLog c GROUP BY c.date, c.user")
+    int rebuildLogUsers();
+    
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT 'logs.command', c.date, c.command, COUNT(c) FROM CommandLog c GROUP BY c.date, c.command")
+    int rebuildLogCommands();
+    
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT 'logs.directory', c.date, c.directory, COUNT(c) FROM CommandLog c GROUP BY c.date, c.directory")
+    int rebuildLogDirectories();
+    
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT 'changes', f.date, '', COUNT(f) FROM FileChange f GROUP BY f.date")
+    int rebuildChangeTotals();
+    
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT 'changes.event_type', f.date, f.eventType, COUNT(f) FROM FileChange f GROUP BY f.date, f.eventType")
+    int rebuildChangeEventTypes();
+    
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT 'changes.extension', f.date, f.fileExtension, COUNT(f) FROM FileChange f " +
+           "WHERE f.fileExtension IS NOT NULL GROUP BY f.date, f.fileExtension")
+    int rebuildChangeExtensions();
+    
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT 'changes.directory', f.date, f.directory, COUNT(f) FROM FileChange f GROUP BY f.date, f.directory")
+    int rebuildChangeDirectories();
+    
+    // The all-time rows, summed from the per-day rows written above
+    @Modifying
+    @Query("INSERT INTO DailyRollup (dimension, date, dimensionValue, count) " +
+           "SELECT r.dimension, '', r.dimensionValue, SUM(r.count) FROM DailyRollup r " +
+           "GROUP BY r.dimension, r.dimensionValue")
+    int rebuildAllTimeTotals();
+}
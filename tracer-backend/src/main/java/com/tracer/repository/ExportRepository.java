@@ -0,0 +1,139 @@
+package com.tracer.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Forward-only reads of filtered command logs and file changes for the
+ * export endpoints.
+ *
+ * Rows are passed on one at a time while the cursor advances, oldest first
+ * along the timestamp index, so an export holds a single row (plus the
+ * driver's export.fetch-size buffer) in memory however many rows it covers.
+ * Only the list columns are read, see {@link CommandLogSummary} and
+ * {@link FileChangeSummary}.
+ */
+@Repository
+public class ExportRepository {
+
+    public static final List<String> LOG_COLUMNS = List.of(
+        "id", "timestamp", "date", "time", "user", "directory", "command");
+    public static final List<String> CHANGE_COLUMNS = List.of(
+        "id", "timestamp", "date", "eventType", "filePath", "directory", "fileName", "fileExtension",
+        "size", "isDirectory", "srcPath", "rawEventCount");
+
+    private static final String SELECT_LOGS =
+        "SELECT id, timestamp, date, time, user, directory, command FROM command_logs";
+    private static final String SELECT_CHANGES =
+        "SELECT id, timestamp, date, event_type, file_path, directory, file_name, file_extension, "
+            + "size, is_directory, src_path, raw_event_count FROM file_changes";
+    private static final String ORDER = " ORDER BY timestamp, id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportRepository(JdbcTemplate jdbcTemplate, @Value("${export.fetch-size:1000}") int fetchSize) {
+        // A copy, so the fetch size only applies to exports
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Reads one row of command_logs. On SQLite a transaction's view of the
+     * database is fixed by its first read, so this pins what the export's
+     * later queries in the same transaction see.
+     */
+    public void startRead() {
+        jdbcTemplate.queryForList("SELECT 1 FROM command_logs LIMIT 1");
+    }
+
+    /**
+     * Streams the logs matching the /api/logs filters (null filters are
+     * ignored) as rows of {@link #LOG_COLUMNS} values.
+     *
+     * @param ftsMatch        FTS5 expression over command and directory
+     * @param commandContains substring of the command, for search without the FTS index
+     */
+    public void streamCommandLogs(LocalDateTime start, LocalDateTime end, String user, String directory,
+                                  String ftsMatch, String commandContains, Consumer<Object[]> rows) {
+        List<String> where = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        addTimeRange(where, parameters, start, end);
+        if (user != null) {
+            where.add("user = ?");
+            parameters.add(user);
+        }
+        if (directory != null) {
+            where.add("directory LIKE ? ESCAPE '\\'");
+            parameters.add(CommandLogSpecifications.containsPattern(directory));
+        }
+        if (ftsMatch != null) {
+            where.add("id IN (SELECT rowid FROM command_logs_fts WHERE command_logs_fts MATCH ?)");
+            parameters.add(ftsMatch);
+        }
+        if (commandContains != null) {
+            where.add("command LIKE ? ESCAPE '\\'");
+            parameters.add(CommandLogSpecifications.containsPattern(commandContains));
+        }
+        stream(SELECT_LOGS, where, parameters, LOG_COLUMNS.size(), rows);
+    }
+
+    /**
+     * Streams the file changes matching the /api/changes filters (null
+     * filters are ignored) as rows of {@link #CHANGE_COLUMNS} values.
+     */
+    public void streamFileChanges(LocalDateTime start, LocalDateTime end, String eventType, String fileExtension,
+                                  Consumer<Object[]> rows) {
+        List<String> where = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        addTimeRange(where, parameters, start, end);
+        if (eventType != null) {
+            where.add("event_type = ?");
+            parameters.add(eventType);
+        }
+        if (fileExtension != null) {
+            where.add("file_extension = ?");
+            parameters.add(fileExtension);
+        }
+        stream(SELECT_CHANGES, where, parameters, CHANGE_COLUMNS.size(), rows);
+    }
+
+    private static void addTimeRange(List<String> where, List<Object> parameters,
+                                     LocalDateTime start, LocalDateTime end) {
+        if (start != null) {
+            where.add("timestamp >= ?");
+            parameters.add(Timestamp.valueOf(start));
+        }
+        if (end != null) {
+            where.add("timestamp <= ?");
+            parameters.add(Timestamp.valueOf(end));
+        }
+    }
+
+    private void stream(String select, List<String> where, List<Object> parameters, int columns,
+                        Consumer<Object[]> rows) {
+        String sql = select + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where)) + ORDER;
+        RowCallbackHandler handler = rs -> rows.accept(read(rs, columns));
+        jdbcTemplate.query(sql, handler, parameters.toArray());
+    }
+
+    // Column 2 is always the timestamp
+    private static Object[] read(ResultSet rs, int columns) throws SQLException {
+        Object[] row = new Object[columns];
+        for (int i = 0; i < columns; i++) {
+            row[i] = rs.getObject(i + 1);
+        }
+        Timestamp timestamp = rs.getTimestamp(2);
+        row[1] = timestamp != null ? timestamp.toLocalDateTime() : null;
+        return row;
+    }
+}
@@ -2,15 +2,17 @@ package com.tracer.repository;
 
 import com.tracer.entity.FileChange;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface FileChangeRepository extends JpaRepository<FileChange, Integer> {
+public interface FileChangeRepository extends JpaRepository<FileChange, Integer>, JpaSpecificationExecutor<FileChange> {
     
     List<FileChange> findByTimestampBetweenOrderByTimestampDesc(
         LocalDateTime start, LocalDateTime end);
@@ -22,6 +24,13 @@ public interface FileChangeRepository extends JpaRepository<FileChange, Integer>
     @Query("SELECT f.date, COUNT(f.id) FROM FileChange f GROUP BY f.date ORDER BY f.date DESC")
     List<Object[]> findChangesByDate();
     
+    // MIN/MAX over the timestamp index read one index entry each
+    @Query("SELECT MIN(f.timestamp) FROM FileChange f")
+    LocalDateTime findEarliestTimestamp();
+    
+    @Query("SELECT MAX(f.timestamp) FROM FileChange f")
+    LocalDateTime findLatestTimestamp();
+    
     @Query("SELECT f.eventType, COUNT(f.id) FROM FileChange f GROUP BY f.eventType")
     List<Object[]> findEventTypeCounts();
     
@@ -34,6 +43,23 @@ public interface FileChangeRepository extends JpaRepository<FileChange, Integer>
     @Query("SELECT f FROM FileChange f WHERE f.timestamp >= :start AND f.timestamp < :end ORDER BY f.timestamp ASC")
     List<FileChange> findByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
+    // List columns only, see FileChangeSummary
+    @Query("SELECT new com.tracer.repository.FileChangeSummary(f.id, f.timestamp, f.date, f.eventType, f.filePath, "
+        + "f.directory, f.fileName, f.fileExtension, f.size, f.isDirectory, f.srcPath, f.rawEventCount) "
+        + "FROM FileChange f WHERE f.timestamp >= :start AND f.timestamp < :end ORDER BY f.timestamp ASC")
+    List<FileChangeSummary> findSummariesByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    @Query("SELECT new com.tracer.repository.FileChangeSummary(f.id, f.timestamp, f.date, f.eventType, f.filePath, "
+        + "f.directory, f.fileName, f.fileExtension, f.size, f.isDirectory, f.srcPath, f.rawEventCount) "
+        + "FROM FileChange f WHERE f.id IN :ids")
+    List<FileChangeSummary> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+    
     List<FileChange> findByFilePathOrderByTimestampDesc(String filePath);
+    
+    // Latest change of each path, in (timestamp, id) order; served by idx_file_changes_path
+    @Query("SELECT f FROM FileChange f WHERE f.filePath IN :paths AND NOT EXISTS ("
+        + "SELECT g.id FROM FileChange g WHERE g.filePath = f.filePath "
+        + "AND (g.timestamp > f.timestamp OR (g.timestamp = f.timestamp AND g.id > f.id)))")
+    List<FileChange> findLatestByFilePathIn(@Param("paths") Collection<String> paths);
 }
 
@@ -0,0 +1,54 @@
+package com.tracer.repository;
+
+import com.tracer.entity.FileChange;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query predicates for FileChange, evaluated in SQL.
+ */
+public final class FileChangeSpecifications {
+
+    private FileChangeSpecifications() {
+    }
+
+    public static Specification<FileChange> timestampFrom(LocalDateTime start) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("timestamp"), start);
+    }
+
+    public static Specification<FileChange> timestampTo(LocalDateTime end) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("timestamp"), end);
+    }
+
+    public static Specification<FileChange> eventTypeEquals(String eventType) {
+        return (root, query, cb) -> cb.equal(root.get("eventType"), eventType);
+    }
+
+    public static Specification<FileChange> fileExtensionEquals(String fileExtension) {
+        return (root, query, cb) -> cb.equal(root.get("fileExtension"), fileExtension);
+    }
+
+    /**
+     * Combines the /api/changes filters. Null arguments are ignored.
+     */
+    public static Specification<FileChange> filter(LocalDateTime start, LocalDateTime end,
+                                                   String eventType, String fileExtension) {
+        List<Specification<FileChange>> specs = new ArrayList<>();
+        if (start != null) {
+            specs.add(timestampFrom(start));
+        }
+        if (end != null) {
+            specs.add(timestampTo(end));
+        }
+        if (eventType != null) {
+            specs.add(eventTypeEquals(eventType));
+        }
+        if (fileExtension != null) {
+            specs.add(fileExtensionEquals(fileExtension));
+        }
+        return Specification.allOf(specs);
+    }
+}
@@ -0,0 +1,17 @@
+package com.tracer.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a file change that list views show. The legacy raw_data
+ * JSON and the snapshot versions are left out; they are read only for a
+ * single change (GET /api/changes/{id}, /content, /diff).
+ */
+public record FileChangeSummary(Integer id, LocalDateTime timestamp, String date, String eventType,
+                                String filePath, String directory, String fileName, String fileExtension,
+                                Integer size, String isDirectory, String srcPath, Integer rawEventCount) {
+
+    // Constructor arguments, in order, for JPQL and criteria queries
+    static final String[] COLUMNS = {"id", "timestamp", "date", "eventType", "filePath", "directory",
+        "fileName", "fileExtension", "size", "isDirectory", "srcPath", "rawEventCount"};
+}
@@ -0,0 +1,17 @@
+package com.tracer.repository;
+
+import com.tracer.entity.FileSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FileSnapshotRepository extends JpaRepository<FileSnapshot, Integer> {
+
+    FileSnapshot findFirstByFilePathOrderByVersionDesc(String filePath);
+
+    FileSnapshot findByFilePathAndVersion(String filePath, Integer version);
+
+    List<FileSnapshot> findByFilePathAndVersionBetweenOrderByVersionAsc(String filePath, Integer from, Integer to);
+}
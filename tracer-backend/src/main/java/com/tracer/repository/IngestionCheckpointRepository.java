@@ -0,0 +1,13 @@
+package com.tracer.repository;
+
+import com.tracer.entity.IngestionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IngestionCheckpointRepository extends JpaRepository<IngestionCheckpoint, Integer> {
+
+    Optional<IngestionCheckpoint> findBySource(String source);
+}
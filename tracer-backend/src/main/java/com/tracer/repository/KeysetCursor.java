@@ -0,0 +1,74 @@
+package com.tracer.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over (timestamp, id), the sort key of the list endpoints.
+ *
+ * Rows are returned ordered by timestamp DESC, id DESC, so the next page starts
+ * strictly after the last row of the previous one. Seeking is a range scan on
+ * the timestamp index instead of reading and discarding OFFSET rows.
+ */
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime timestamp;
+    private final Integer id;
+
+    public KeysetCursor(LocalDateTime timestamp, Integer id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = timestamp.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            if (sep < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(
+                LocalDateTime.parse(raw.substring(0, sep)),
+                Integer.valueOf(raw.substring(sep + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Rows that sort after this cursor in (timestamp DESC, id DESC) order.
+     *
+     * Written as {@code timestamp <= ? AND (timestamp < ? OR id < ?)} rather
+     * than a plain OR so that SQLite can still bound the timestamp index scan.
+     */
+    public <T> Specification<T> after() {
+        return (root, query, cb) -> cb.and(
+            cb.lessThanOrEqualTo(root.get("timestamp"), timestamp),
+            cb.or(
+                cb.lessThan(root.get("timestamp"), timestamp),
+                cb.lessThan(root.get("id"), id)));
+    }
+}
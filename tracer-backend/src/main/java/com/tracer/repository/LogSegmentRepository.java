@@ -0,0 +1,193 @@
+package com.tracer.repository;
+
+import com.tracer.util.LogSegmentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Segment files of the command log archive (see {@link LogSegmentCodec}),
+ * partitioned by day under archive.path:
+ * {@code command_logs/2025-01/2025-01-05.0.seg}.
+ *
+ * Segments are immutable. Logs of a day that are archived after its first
+ * segment (e.g. an import of older history) go into the day's next
+ * generation, {@code 2025-01-05.1.seg} and so on. A segment is written to a
+ * temporary file and moved into place in one step, so a listed segment is
+ * always complete.
+ *
+ * Decoded segments are kept in a small LRU cache (archive.cache-segments).
+ */
+@Repository
+public class LogSegmentRepository {
+
+    private static final String SUFFIX = ".seg";
+
+    private final Path root;
+    private final int cacheSize;
+
+    // Access order, so the eldest entry is the least recently used one
+    private final LinkedHashMap<Path, LogSegmentCodec.Segment> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, LogSegmentCodec.Segment> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    public LogSegmentRepository(@Value("${archive.path:./data/archive}") String path,
+                                @Value("${archive.cache-segments:64}") int cacheSize) {
+        this.root = Paths.get(path, "command_logs");
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * A segment file, its header and its distinct users and directories.
+     */
+    public record SegmentFile(Path path, LocalDate date, int generation, long size, LogSegmentCodec.Header header,
+                              LogSegmentCodec.Dictionaries dictionaries) {
+    }
+
+    /**
+     * Reads the headers and dictionaries of all segments, oldest date first. Temporary files
+     * left by an interrupted write are deleted.
+     */
+    public List<SegmentFile> findAll() {
+        if (!Files.isDirectory(root)) {
+            return new ArrayList<>();
+        }
+        List<SegmentFile> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SUFFIX)) {
+                    segments.add(readSegmentFile(file));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.sort(Comparator.comparing(SegmentFile::date).thenComparing(SegmentFile::generation));
+        return segments;
+    }
+
+    /**
+     * Writes an encoded segment to a temporary file next to its final
+     * location and syncs it to disk; {@link #install} moves it into place.
+     */
+    public Path writeTemporary(LocalDate date, byte[] data) {
+        try {
+            Path directory = root.resolve(date.toString().substring(0, 7));
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, date.toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(data));
+                channel.force(true);
+            }
+            return temporary;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Moves a file written by {@link #writeTemporary} into place as the
+     * given generation of the date's segments.
+     */
+    public SegmentFile install(Path temporary, LocalDate date, int generation) {
+        Path target = temporary.resolveSibling(date + "." + generation + SUFFIX);
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            return readSegmentFile(target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes a segment or temporary file; only for segments whose logs were
+     * not removed from command_logs.
+     */
+    public void delete(Path file) {
+        synchronized (cache) {
+            cache.remove(file);
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public LogSegmentCodec.Segment read(SegmentFile segment) {
+        synchronized (cache) {
+            LogSegmentCodec.Segment cached = cache.get(segment.path());
+            if (cached != null) {
+                return cached;
+            }
+        }
+        LogSegmentCodec.Segment decoded;
+        try {
+            decoded = LogSegmentCodec.decode(Files.readAllBytes(segment.path()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (cache) {
+            cache.put(segment.path(), decoded);
+        }
+        return decoded;
+    }
+
+    private static SegmentFile readSegmentFile(Path file) throws IOException {
+        // <date>.<generation>.seg
+        String name = file.getFileName().toString();
+        String[] parts = name.substring(0, name.length() - SUFFIX.length()).split("\\.");
+        LocalDate date;
+        int generation;
+        try {
+            date = LocalDate.parse(parts[0]);
+            generation = Integer.parseInt(parts[1]);
+        } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("Unexpected file in the log archive: " + file, e);
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            LogSegmentCodec.Header header = LogSegmentCodec.readHeader(read(channel, 0, LogSegmentCodec.HEADER_SIZE));
+            byte[] dictionaries = read(channel, LogSegmentCodec.dictionariesOffset(header),
+                LogSegmentCodec.dictionariesLength(header));
+            return new SegmentFile(file, date, generation, channel.size(), header,
+                LogSegmentCodec.readDictionaries(header, dictionaries));
+        }
+    }
+
+    /**
+     * @return length bytes at position, fewer at the end of the file
+     */
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
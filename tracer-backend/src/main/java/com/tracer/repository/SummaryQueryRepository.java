@@ -0,0 +1,63 @@
+package com.tracer.repository;
+
+import com.tracer.entity.CommandLog;
+import com.tracer.entity.FileChange;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Specification queries that select only the list columns of command logs
+ * and file changes ({@link CommandLogSummary}, {@link FileChangeSummary})
+ * instead of whole entities.
+ *
+ * JpaSpecificationExecutor always loads entities, so a page of file changes
+ * would read every raw_data document along with the row. These queries
+ * project into the summary records in SQL, with the same filters, sort and
+ * LIMIT/OFFSET as findAll(spec, pageable); the results are not managed.
+ */
+@Repository
+public class SummaryQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<CommandLogSummary> findLogs(Specification<CommandLog> spec, Pageable pageable) {
+        return find(CommandLog.class, CommandLogSummary.class, CommandLogSummary.COLUMNS, spec, pageable);
+    }
+
+    public List<FileChangeSummary> findChanges(Specification<FileChange> spec, Pageable pageable) {
+        return find(FileChange.class, FileChangeSummary.class, FileChangeSummary.COLUMNS, spec, pageable);
+    }
+
+    private <E, S> List<S> find(Class<E> entity, Class<S> summary, String[] columns,
+                                Specification<E> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<S> query = cb.createQuery(summary);
+        Root<E> root = query.from(entity);
+        Selection<?>[] selections = new Selection<?>[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            selections[i] = root.get(columns[i]);
+        }
+        query.select(cb.construct(summary, selections));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        return entityManager.createQuery(query)
+            .setFirstResult(Math.toIntExact(pageable.getOffset()))
+            .setMaxResults(pageable.getPageSize())
+            .getResultList();
+    }
+}
@@ -0,0 +1,204 @@
+package com.tracer.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQLite FTS5 trigram indexes over command_logs.command,
+ * command_logs.directory and file_changes.file_path.
+ *
+ * The trigram tokenizer indexes every three-character sequence of the text,
+ * so any substring of three or more characters can be looked up, including
+ * fragments like "-rf /" or "ects/trac" that a word index cannot find. Like
+ * command_logs_fts, each index is an external-content table kept in sync by
+ * triggers on its source table.
+ */
+@Repository
+public class TrigramIndexRepository {
+
+    public enum Index {
+        COMMAND_LOGS("command_logs_trigram", "command_logs", List.of("command", "directory")),
+        FILE_CHANGES("file_changes_trigram", "file_changes", List.of("file_path"));
+
+        private final String table;
+        private final String contentTable;
+        private final List<String> columns;
+
+        Index(String table, String contentTable, List<String> columns) {
+            this.table = table;
+            this.contentTable = contentTable;
+            this.columns = columns;
+        }
+
+        private List<String> createStatements() {
+            String names = String.join(", ", columns);
+            String newValues = "new." + String.join(", new.", columns);
+            String oldValues = "old." + String.join(", old.", columns);
+            String insert = "INSERT INTO " + table + " (rowid, " + names + ") VALUES (new.id, " + newValues + "); ";
+            String delete = "INSERT INTO " + table + " (" + table + ", rowid, " + names + ") "
+                + "VALUES ('delete', old.id, " + oldValues + "); ";
+            return List.of(
+                "CREATE VIRTUAL TABLE IF NOT EXISTS " + table + " USING fts5("
+                    + names + ", content='" + contentTable + "', content_rowid='id', tokenize='trigram')",
+                "CREATE TRIGGER IF NOT EXISTS " + table + "_insert AFTER INSERT ON " + contentTable
+                    + " BEGIN " + insert + "END",
+                "CREATE TRIGGER IF NOT EXISTS " + table + "_delete AFTER DELETE ON " + contentTable
+                    + " BEGIN " + delete + "END",
+                "CREATE TRIGGER IF NOT EXISTS " + table + "_update AFTER UPDATE OF " + names + " ON " + contentTable
+                    + " BEGIN " + delete + insert + "END");
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Creates the FTS table and its triggers if they do not exist yet.
+     */
+    public void createIndex(Index index) {
+        for (String statement : index.createStatements()) {
+            entityManager.createNativeQuery(statement).executeUpdate();
+        }
+    }
+
+    /**
+     * @return the number of rows in the index (see
+     *         {@link CommandLogSearchRepository#countIndexed()})
+     */
+    public long countIndexed(Index index) {
+        return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM " + index.table + "_docsize")
+            .getSingleResult()).longValue();
+    }
+
+    /**
+     * Re-indexes every row of the source table.
+     */
+    public void rebuildIndex(Index index) {
+        entityManager.createNativeQuery("INSERT INTO " + index.table + " (" + index.table + ") VALUES ('rebuild')")
+            .executeUpdate();
+    }
+
+    /**
+     * One batch of command logs containing the expression's literals in the
+     * command or directory and passing the /api/logs filters (null filters
+     * are ignored), newest first. Filters, sort and limit all run in SQLite,
+     * so a page never reads more candidates than it checks.
+     *
+     * @param match a trigram MATCH expression (see TrigramQuery)
+     * @param after the last row of the previous batch, or null
+     * @return rows of [id, timestamp, command, directory]
+     */
+    public List<Object[]> findLogCandidates(String match, LocalDateTime start, LocalDateTime end,
+                                            String user, String directory, KeysetCursor after, int limit) {
+        List<String> where = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (user != null) {
+            where.add("c.user = :user");
+            parameters.put("user", user);
+        }
+        if (directory != null) {
+            where.add("c.directory LIKE :directory ESCAPE '\\'");
+            parameters.put("directory", CommandLogSpecifications.containsPattern(directory));
+        }
+        return findCandidates(Index.COMMAND_LOGS, match, start, end, where, parameters, after, limit);
+    }
+
+    /**
+     * One batch of file changes whose path contains the expression's
+     * literals and passing the /api/changes filters, newest first, as
+     * {@link #findLogCandidates}.
+     *
+     * @return rows of [id, timestamp, file path]
+     */
+    public List<Object[]> findChangeCandidates(String match, LocalDateTime start, LocalDateTime end,
+                                               String eventType, String fileExtension, KeysetCursor after, int limit) {
+        List<String> where = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (eventType != null) {
+            where.add("c.event_type = :eventType");
+            parameters.put("eventType", eventType);
+        }
+        if (fileExtension != null) {
+            where.add("c.file_extension = :fileExtension");
+            parameters.put("fileExtension", fileExtension);
+        }
+        return findCandidates(Index.FILE_CHANGES, match, start, end, where, parameters, after, limit);
+    }
+
+    private List<Object[]> findCandidates(Index index, String match, LocalDateTime start, LocalDateTime end,
+                                          List<String> where, Map<String, Object> parameters,
+                                          KeysetCursor after, int limit) {
+        where.add(0, index.table + " MATCH :match");
+        parameters.put("match", match);
+        if (start != null) {
+            where.add("c.timestamp >= :start");
+            parameters.put("start", start);
+        }
+        if (end != null) {
+            where.add("c.timestamp <= :end");
+            parameters.put("end", end);
+        }
+        if (after != null) {
+            // As KeysetCursor.after()
+            where.add("c.timestamp <= :timestamp AND (c.timestamp < :timestamp OR c.id < :id)");
+            parameters.put("timestamp", after.getTimestamp());
+            parameters.put("id", after.getId());
+        }
+        Query query = entityManager.createNativeQuery(
+            "SELECT c.id, c.timestamp, c." + String.join(", c.", index.columns)
+                + " FROM " + index.table + " JOIN " + index.contentTable + " c ON c.id = " + index.table + ".rowid"
+                + " WHERE " + String.join(" AND ", where)
+                + " ORDER BY c.timestamp DESC, c.id DESC LIMIT :limit");
+        parameters.forEach(query::setParameter);
+        query.setParameter("limit", limit);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Object result : query.getResultList()) {
+            Object[] row = (Object[]) result;
+            row[0] = ((Number) row[0]).intValue();
+            if (row[1] instanceof Timestamp timestamp) {
+                row[1] = timestamp.toLocalDateTime();
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the id, timestamp and the given text attributes of the entities
+     * matching spec, newest first, without loading (or managing) the entities.
+     *
+     * @return rows of [id, timestamp, attribute values...]
+     */
+    public <T> List<Object[]> findText(Class<T> type, Specification<T> spec, List<String> attributes, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<T> root = query.from(type);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id"));
+        selections.add(root.get("timestamp"));
+        attributes.forEach(attribute -> selections.add(root.get(attribute)));
+        query.multiselect(selections);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.desc(root.get("timestamp")), cb.desc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -2,8 +2,13 @@ package com.tracer.repository;
 
 import com.tracer.entity.WatchFolder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,5 +17,9 @@ public interface WatchFolderRepository extends JpaRepository<WatchFolder, Intege
     List<WatchFolder> findByIsActive(String isActive);
     
     WatchFolder findByPath(String path);
+    
+    @Modifying
+    @Query("UPDATE WatchFolder w SET w.lastChecked = :checkedAt WHERE w.id IN :ids")
+    int updateLastChecked(@Param("ids") Collection<Integer> ids, @Param("checkedAt") LocalDateTime checkedAt);
 }
 
@@ -0,0 +1,85 @@
+package com.tracer.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Change sequence of the stored command logs ({@link #LOGS}) and file
+ * changes ({@link #CHANGES}): a number that the writers advance, once their
+ * transaction has committed, every time rows are added or removed.
+ *
+ * Anything derived from an area's rows stays valid while its sequence does
+ * not move: {@link QueryCache} entries, and the ETags of the read endpoints
+ * (see {@link com.tracer.config.ConditionalGetInterceptor}). A reader must
+ * take the sequence before reading the rows, so that what it read is at
+ * least as new as the sequence it reports.
+ *
+ * Sequences live in memory and restart at 0; {@link #tag} therefore also
+ * carries the start time of this process.
+ */
+@Service
+public class ChangeSequence {
+
+    public static final String LOGS = "logs";
+    public static final String CHANGES = "changes";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<String, AtomicReference<Position>> positions = Map.of(
+        LOGS, new AtomicReference<>(new Position(0, System.currentTimeMillis())),
+        CHANGES, new AtomicReference<>(new Position(0, System.currentTimeMillis())));
+
+    public long current(String area) {
+        return positions.get(area).get().sequence();
+    }
+
+    /**
+     * @return when the area's sequence last moved (or this process started), in epoch millis
+     */
+    public long lastModified(String area) {
+        return positions.get(area).get().modifiedAt();
+    }
+
+    /**
+     * @return an opaque tag that changes whenever the area's rows do
+     */
+    public String tag(String area) {
+        return area + "-" + epoch + "-" + current(area);
+    }
+
+    /**
+     * Advances the area's sequence once the current transaction commits, or
+     * right away outside a transaction.
+     */
+    public void advanceAfterCommit(String area) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    advance(area);
+                }
+            });
+        } else {
+            advance(area);
+        }
+    }
+
+    private void advance(String area) {
+        positions.get(area).updateAndGet(position ->
+            new Position(position.sequence() + 1, System.currentTimeMillis()));
+    }
+
+    public Map<String, Long> getSequences() {
+        Map<String, Long> result = new HashMap<>();
+        positions.forEach((area, position) -> result.put(area, position.get().sequence()));
+        return result;
+    }
+
+    private record Position(long sequence, long modifiedAt) {
+    }
+}
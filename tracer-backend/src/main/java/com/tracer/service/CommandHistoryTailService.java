@@ -0,0 +1,151 @@
+package com.tracer.service;
+
+import com.tracer.entity.IngestionCheckpoint;
+import com.tracer.repository.CommandLogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Follows the configured command history file and ingests appended lines.
+ *
+ * The file is polled every command.history.tail.interval-ms; a pass only hits
+ * the DB when the file's size, mtime or inode changed since the last one, and
+ * then ingests everything appended in batches of command.history.tail.batch-size.
+ * Manual reloads go through {@link #ingest(Path, IngestCounts)} too, so only one pass runs
+ * at a time.
+ */
+@Service
+@RequiredArgsConstructor
+public class CommandHistoryTailService {
+
+    private final CommandLogService commandLogService;
+    private final CommandLogRepository commandLogRepository;
+
+    private final ReentrantLock ingestLock = new ReentrantLock();
+
+    @Value("${command.history.path}")
+    private String historyPath;
+
+    @Value("${command.history.tail.enabled:true}")
+    private boolean enabled;
+
+    @Value("${command.history.tail.batch-size:500}")
+    private int batchSize;
+
+    // Last observed state of the history file, used to skip idle polls
+    private volatile long seenSize = -1;
+    private volatile long seenModified = -1;
+    private volatile Object seenKey;
+
+    private volatile long ingestedOffset;
+    private volatile LocalDateTime lastIngestedAt;
+    private volatile LocalDateTime lastPolledAt;
+    private volatile String lastError;
+
+    @Scheduled(fixedDelayString = "${command.history.tail.interval-ms:200}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        lastPolledAt = LocalDateTime.now();
+
+        Path path = Paths.get(historyPath);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return; // not created yet
+        }
+        if (attrs.size() == seenSize && attrs.lastModifiedTime().toMillis() == seenModified
+                && Objects.equals(attrs.fileKey(), seenKey)) {
+            return;
+        }
+
+        // Skip rather than queue behind a manual reload; the next poll picks up the rest
+        if (!ingestLock.tryLock()) {
+            return;
+        }
+        try {
+            ingestLocked(path, new IngestCounts());
+            seenSize = attrs.size();
+            seenModified = attrs.lastModifiedTime().toMillis();
+            seenKey = attrs.fileKey();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            System.err.println("Error tailing command history " + path + ": " + e.getMessage());
+        } finally {
+            ingestLock.unlock();
+        }
+    }
+
+    /**
+     * Ingests whatever was appended to the file, waiting for a running pass to finish first.
+     */
+    public IngestionCheckpoint ingest(Path path, IngestCounts counts) throws IOException {
+        ingestLock.lock();
+        try {
+            return ingestLocked(path, counts);
+        } finally {
+            ingestLock.unlock();
+        }
+    }
+
+    private IngestionCheckpoint ingestLocked(Path path, IngestCounts counts) throws IOException {
+        IngestionCheckpoint checkpoint = commandLogService.loadLogsFromFile(path, batchSize, counts);
+        if (isHistoryFile(path)) {
+            if (checkpoint.getByteOffset() != ingestedOffset) {
+                lastIngestedAt = checkpoint.getUpdatedAt();
+            }
+            ingestedOffset = checkpoint.getByteOffset();
+            lastError = null;
+        }
+        return checkpoint;
+    }
+
+    private boolean isHistoryFile(Path path) {
+        return path.toAbsolutePath().normalize().equals(Paths.get(historyPath).toAbsolutePath().normalize());
+    }
+
+    /**
+     * Ingestion lag of the configured history file.
+     */
+    public Map<String, Object> getStatus() {
+        Path path = Paths.get(historyPath);
+        Long fileSize = null;
+        Long bytesBehind = null;
+        try {
+            fileSize = Files.size(path);
+            // A file smaller than the offset has been truncated or replaced and will be re-read
+            bytesBehind = fileSize >= ingestedOffset ? fileSize - ingestedOffset : fileSize;
+        } catch (IOException e) {
+            // leave size and lag unknown
+        }
+
+        LocalDateTime latestCommand = commandLogRepository.findLatestTimestamp();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("source", historyPath);
+        result.put("enabled", enabled);
+        result.put("file_size", fileSize);
+        result.put("ingested_offset", ingestedOffset);
+        result.put("bytes_behind", bytesBehind);
+        result.put("last_ingested_at", lastIngestedAt);
+        result.put("last_polled_at", lastPolledAt);
+        result.put("latest_command_timestamp", latestCommand);
+        result.put("last_error", lastError);
+        return result;
+    }
+}
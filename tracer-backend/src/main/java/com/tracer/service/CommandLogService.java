@@ -1,177 +1,562 @@
 package com.tracer.service;
 
+import com.tracer.config.DatabasePlatform;
 import com.tracer.entity.CommandLog;
+import com.tracer.entity.IngestionCheckpoint;
+import com.tracer.repository.BulkWriteRepository;
 import com.tracer.repository.CommandLogRepository;
-import com.tracer.util.CommandLineParser;
+import com.tracer.repository.CommandLogSpecifications;
+import com.tracer.repository.CommandLogSummary;
+import com.tracer.repository.IngestionCheckpointRepository;
+import com.tracer.repository.KeysetCursor;
+import com.tracer.repository.OffsetPageRequest;
+import com.tracer.repository.SummaryQueryRepository;
+import com.tracer.service.LogIngestionPipeline.ParsedChunk;
+import com.tracer.util.DedupKey;
+import com.tracer.util.FtsQuery;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class CommandLogService {
     
+    private static final Sort LOG_ORDER = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+    private static final Comparator<CommandLogSummary> NEWEST_FIRST =
+        Comparator.comparing(CommandLogSummary::timestamp).thenComparing(CommandLogSummary::id).reversed();
+    
     private final CommandLogRepository commandLogRepository;
-    private final CommandLineParser commandLineParser;
-    
-    @Transactional
-    public void loadLogsFromFile(Path filePath, int batchSize) throws IOException {
-        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
-            List<CommandLog> batch = new ArrayList<>();
-            int lineNum = 0;
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lineNum++;
-                try {
-                    CommandLineParser.ParsedCommand parsed = commandLineParser.parseCommandLine(line);
-                    if (parsed != null) {
-                        // Check if log already exists
-                        boolean exists = commandLogRepository.findByTimestampBetweenOrderByTimestampDesc(
-                            parsed.getTimestamp().minusSeconds(1),
-                            parsed.getTimestamp().plusSeconds(1)
-                        ).stream()
-                        .anyMatch(log -> log.getUser().equals(parsed.getUser()) && 
-                                       log.getCommand().equals(parsed.getCommand()));
-                        
-                        if (!exists) {
-                            CommandLog log = new CommandLog();
-                            log.setTimestamp(parsed.getTimestamp());
-                            log.setDate(parsed.getDate());
-                            log.setTime(parsed.getTime());
-                            log.setUser(parsed.getUser());
-                            log.setDirectory(parsed.getDirectory());
-                            log.setCommand(parsed.getCommand());
-                            log.setRawLine(parsed.getRawLine());
-                            
-                            batch.add(log);
-                            
-                            if (batch.size() >= batchSize) {
-                                commandLogRepository.saveAll(batch);
-                                batch.clear();
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error parsing line " + lineNum + ": " + e.getMessage());
+    private final SummaryQueryRepository summaryQueryRepository;
+    private final IngestionCheckpointRepository ingestionCheckpointRepository;
+    private final DailyRollupService dailyRollupService;
+    private final CommandSearchService commandSearchService;
+    private final TrigramSearchService trigramSearchService;
+    private final LogIngestionPipeline logIngestionPipeline;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkWriteRepository bulkWriteRepository;
+    private final DatabasePlatform databasePlatform;
+    private final ApplicationEventPublisher eventPublisher;
+    private final QueryCache queryCache;
+    private final ChangeSequence changeSequence;
+    private final LogArchiveService logArchiveService;
+    
+    /**
+     * Ingests lines appended to the file since the last call.
+     * 
+     * @see #loadLogsFromFile(Path, int, IngestCounts)
+     */
+    public IngestionCheckpoint loadLogsFromFile(Path filePath, int batchSize) throws IOException {
+        return loadLogsFromFile(filePath, batchSize, new IngestCounts());
+    }
+    
+    /**
+     * Ingests lines appended to the file since the last call, adding what
+     * happened to each line to counts.
+     * 
+     * The lines are parsed in parallel by {@link LogIngestionPipeline}; this
+     * thread stores them in batches of batchSize, in file order.
+     * 
+     * Reading resumes from the byte offset stored in the file's
+     * IngestionCheckpoint. The file is read from the start again when it is
+     * new, when its inode changed (rotated) or when it shrank below the stored
+     * offset (truncated).
+     * 
+     * Each batch is stored in its own transaction and the checkpoint is saved
+     * after the last one. If the pass fails halfway, the next one reads the
+     * stored batches again and the dedup key skips them.
+     * 
+     * @return the checkpoint saved at the end of this pass
+     */
+    public IngestionCheckpoint loadLogsFromFile(Path filePath, int batchSize, IngestCounts counts) throws IOException {
+        transactionTemplate.executeWithoutResult(status -> backfillDedupKeys(batchSize));
+        
+        String source = filePath.toAbsolutePath().normalize().toString();
+        BasicFileAttributes attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+        String inode = attrs.fileKey() != null ? attrs.fileKey().toString() : null;
+        
+        IngestionCheckpoint checkpoint = ingestionCheckpointRepository.findBySource(source)
+            .orElseGet(IngestionCheckpoint::new);
+        long startOffset = resumeOffset(checkpoint, inode, attrs.size());
+        
+        LogBatcher batcher = new LogBatcher(batchSize, counts,
+            batch -> transactionTemplate.execute(status -> saveNewLogs(batch)));
+        long endOffset = logIngestionPipeline.process(filePath, startOffset, batcher);
+        batcher.flush();
+        
+        checkpoint.setSource(source);
+        checkpoint.setByteOffset(endOffset);
+        checkpoint.setInode(inode);
+        checkpoint.setFileSize(attrs.size());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return ingestionCheckpointRepository.save(checkpoint);
+    }
+    
+    /**
+     * Ingests every line of a complete history stream (plain text, JSONL or
+     * a mix of both), e.g. an archived file, adding what happened to each
+     * line to counts as it goes.
+     * 
+     * No checkpoint is kept. Each batch of batchSize logs is stored in its
+     * own transaction, so a large import does not hold one transaction open
+     * and the stored batches stay when a later one fails.
+     */
+    public void importLogs(InputStream in, String name, int batchSize, IngestCounts counts) throws IOException {
+        transactionTemplate.executeWithoutResult(status -> backfillDedupKeys(batchSize));
+        LogBatcher batcher = new LogBatcher(batchSize, counts,
+            batch -> transactionTemplate.execute(status -> saveNewLogs(batch)));
+        logIngestionPipeline.process(in, name, batcher);
+        batcher.flush();
+    }
+    
+    private long resumeOffset(IngestionCheckpoint checkpoint, String inode, long size) {
+        if (checkpoint.getByteOffset() == null) {
+            return 0;
+        }
+        if (!Objects.equals(checkpoint.getInode(), inode)) {
+            return 0; // rotated: a different file now lives at this path
+        }
+        if (size < checkpoint.getByteOffset()) {
+            return 0; // truncated
+        }
+        return checkpoint.getByteOffset();
+    }
+    
+    /**
+     * Saves the logs of a batch whose dedup key is not stored yet, using one
+     * IN query per batch for the existence check. On SQLite the rows are
+     * written with multi-row INSERTs (see {@link BulkWriteRepository}).
+     * 
+     * Publishes a {@link CommandLogsSavedEvent} with the saved logs, which
+     * listeners receive once the batch is committed.
+     */
+    private int saveNewLogs(Map<String, CommandLog> batch) {
+        Set<String> existing = new HashSet<>(commandLogRepository.findExistingDedupKeys(batch.keySet()));
+        // Archived logs are no longer in the dedup key index
+        existing.addAll(logArchiveService.findArchivedDedupKeys(batch.values()));
+        List<CommandLog> toSave = batch.values().stream()
+            .filter(log -> !existing.contains(log.getDedupKey()))
+            .collect(Collectors.toList());
+        if (databasePlatform.isSqlite()) {
+            bulkWriteRepository.insertCommandLogs(toSave);
+        } else {
+            commandLogRepository.saveAll(toSave);
+        }
+        dailyRollupService.addCommandLogs(toSave);
+        if (!toSave.isEmpty()) {
+            changeSequence.advanceAfterCommit(ChangeSequence.LOGS);
+            eventPublisher.publishEvent(new CommandLogsSavedEvent(toSave));
+        }
+        return toSave.size();
+    }
+    
+    /**
+     * Collects parsed logs into batches, keyed by dedup key so repeats within
+     * one batch collapse before hitting the DB, and stores full batches
+     * through save (which returns the number of logs it inserted).
+     */
+    private static class LogBatcher implements Consumer<ParsedChunk> {
+        private final Map<String, CommandLog> batch = new LinkedHashMap<>();
+        private final int batchSize;
+        private final IngestCounts counts;
+        private final ToIntFunction<Map<String, CommandLog>> save;
+        
+        LogBatcher(int batchSize, IngestCounts counts, ToIntFunction<Map<String, CommandLog>> save) {
+            this.batchSize = batchSize;
+            this.counts = counts;
+            this.save = save;
+        }
+        
+        @Override
+        public void accept(ParsedChunk chunk) {
+            int repeated = 0;
+            for (CommandLog log : chunk.logs()) {
+                if (batch.putIfAbsent(log.getDedupKey(), log) != null) {
+                    repeated++;
+                }
+                if (batch.size() >= batchSize) {
+                    flush();
                 }
             }
-            
-            if (!batch.isEmpty()) {
-                commandLogRepository.saveAll(batch);
+            counts.add(0, repeated, chunk.failedLines());
+        }
+        
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int inserted = save.applyAsInt(batch);
+            counts.add(inserted, batch.size() - inserted, 0);
+            batch.clear();
+        }
+    }
+    
+    /**
+     * Assigns dedup keys to rows stored before the dedup_key column existed.
+     * Pre-existing duplicates get the row id appended so the unique index holds.
+     */
+    private void backfillDedupKeys(int batchSize) {
+        List<CommandLog> legacy;
+        while (!(legacy = commandLogRepository.findByDedupKeyIsNull(PageRequest.of(0, batchSize))).isEmpty()) {
+            // Compute all keys before touching the entities; the IN query would
+            // otherwise auto-flush them and find the batch's own keys
+            List<String> keys = legacy.stream()
+                .map(log -> DedupKey.of(log.getTimestamp(), log.getUser(), log.getCommand()))
+                .collect(Collectors.toList());
+            Set<String> taken = new HashSet<>(commandLogRepository.findExistingDedupKeys(keys));
+            for (int i = 0; i < legacy.size(); i++) {
+                CommandLog log = legacy.get(i);
+                String key = keys.get(i);
+                log.setDedupKey(taken.add(key) ? key : key + ":" + log.getId());
             }
+            commandLogRepository.saveAllAndFlush(legacy);
         }
     }
     
+    /**
+     * Returns a page of logs. With a cursor the page is fetched by seeking past
+     * the cursor position (offset is ignored and no total is computed); without
+     * one, plain LIMIT/OFFSET paging with a total count is used. Either way a
+     * "next_cursor" is returned while more rows remain.
+     * 
+     * A search is answered from the full-text index when it is available:
+     * results are then ranked by relevance, paged by offset only, and carry
+     * "highlights" snippets when highlight is set. Otherwise search is a
+     * substring match on the command.
+     * 
+     * contains (a case-insensitive substring) and regex are matched against
+     * the command and the directory through {@link TrigramSearchService};
+     * like search, they are paged by offset only. Their total is only known
+     * (otherwise null) when the matches end within the page.
+     * 
+     * Where the date range reaches into the archive (see {@link LogArchiveService}),
+     * archived logs are merged into the page in the same order. They are not
+     * in the full-text index, so they match a search term by term (see
+     * {@link FtsQuery#matcher}) and follow the ranked matches, newest first,
+     * without highlights.
+     */
+    @Transactional(readOnly = true)
     public Map<String, Object> getLogs(String startDate, String endDate, String user,
-                                      String search, String directory, int limit, int offset) {
-        List<CommandLog> logs;
-        long total;
-        
+                                      String search, String directory, String contains, String regex,
+                                      int limit, int offset, String cursor, boolean highlight) {
         LocalDateTime start = startDate != null ? 
             LocalDate.parse(startDate).atStartOfDay() : null;
         LocalDateTime end = endDate != null ? 
             LocalDate.parse(endDate).atTime(23, 59, 59).plusDays(1) : null;
         
-        if (start != null && end != null) {
-            logs = commandLogRepository.findByTimestampBetweenOrderByTimestampDesc(start, end);
-        } else if (start != null) {
-            logs = commandLogRepository.findByTimestampBetweenOrderByTimestampDesc(
-                start, LocalDateTime.now());
-        } else {
-            logs = commandLogRepository.findAll();
+        LogArchiveService.Snapshot archive;
+        // Taken before the first table read, so each log is found in exactly one
+        // place, and held only until that read has started so that a slow query
+        // does not hold up the archiver (see LogArchiveService.snapshot())
+        try (LogArchiveService.Snapshot snapshot = logArchiveService.snapshot()) {
+            commandLogRepository.startRead();
+            archive = snapshot;
         }
         
-        // Apply filters
-        if (user != null) {
-            logs = logs.stream()
-                .filter(log -> log.getUser().equals(user))
-                .collect(Collectors.toList());
+        if (contains != null || regex != null) {
+            if (search != null) {
+                throw new IllegalArgumentException("search cannot be combined with contains or regex");
+            }
+            if (cursor != null) {
+                throw new IllegalArgumentException("cursor cannot be combined with contains or regex, use offset");
+            }
+            return getMatchingLogs(archive, start, end, user, directory, contains, regex, limit, offset);
         }
-        if (directory != null) {
-            logs = logs.stream()
-                .filter(log -> log.getDirectory().contains(directory))
-                .collect(Collectors.toList());
+        
+        String match = commandSearchService.isAvailable() ? FtsQuery.parse(search) : null;
+        if (match != null) {
+            if (cursor != null) {
+                throw new IllegalArgumentException("cursor cannot be combined with search, use offset");
+            }
+            Map<String, Object> result = commandSearchService.search(
+                match, start, end, user, directory, highlight, limit, offset);
+            // The full-text search bounds the end exclusively
+            LocalDateTime archiveEnd = end != null ? end.minusNanos(1) : null;
+            if (archive.reaches(start, archiveEnd)) {
+                Predicate<String[]> terms = FtsQuery.matcher(search);
+                addArchivedMatches(result, archive, new LogArchiveService.Filter(start, archiveEnd, user, directory,
+                    log -> terms.test(new String[] {log.command(), log.directory()})), limit, offset);
+            }
+            return result;
         }
-        if (search != null) {
-            logs = logs.stream()
-                .filter(log -> log.getCommand().contains(search))
-                .collect(Collectors.toList());
+        
+        // Filters, count and LIMIT/OFFSET are all evaluated in SQL
+        Specification<CommandLog> spec = CommandLogSpecifications.filter(start, end, user, directory, search);
+        // Case-insensitive like SQLite's LIKE
+        LogArchiveService.Filter archived = new LogArchiveService.Filter(start, end, user, directory,
+            search != null ? log -> log.command().toLowerCase(Locale.ROOT).contains(search.toLowerCase(Locale.ROOT)) : null);
+        boolean reachesArchive = archive.reaches(start, end);
+        
+        // Only the list columns are selected, see CommandLogSummary
+        Map<String, Object> result = new HashMap<>();
+        List<CommandLogSummary> logs;
+        boolean hasMore;
+        if (cursor != null) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            spec = spec.and(after.after());
+            // Fetch one extra row to learn whether another page exists
+            logs = summaryQueryRepository.findLogs(spec, new OffsetPageRequest(0, limit + 1, LOG_ORDER));
+            if (reachesArchive) {
+                logs = merge(logs, archive.newestFirst(archived.after(after)), 0, limit + 1);
+            }
+            hasMore = logs.size() > limit;
+            if (hasMore) {
+                logs = logs.subList(0, limit);
+            }
+            result.put("total", null);
+        } else if (reachesArchive) {
+            // The table rows newer than the whole archive (nearly all of them) come
+            // first and are paged with SQL OFFSET; past them, the older ones (late
+            // imports into archived days) are merged with the archive
+            LocalDateTime newestArchived = archive.latestTimestamp();
+            Specification<CommandLog> filter = spec;
+            long newer = commandLogRepository.count(
+                filter.and(CommandLogSpecifications.timestampAfter(newestArchived)));
+            logs = new ArrayList<>();
+            if (offset < newer) {
+                logs.addAll(summaryQueryRepository.findLogs(
+                    filter, new OffsetPageRequest(offset, (int) Math.min(limit, newer - offset), LOG_ORDER)));
+            }
+            long archivedCount = archive.count(archived);
+            if (logs.size() < limit) {
+                logs.addAll(mergeOlder(archive, filter.and(CommandLogSpecifications.timestampTo(newestArchived)),
+                    archived, archivedCount, Math.max(0, offset - newer), limit - logs.size()));
+            }
+            long total = commandLogRepository.count(filter) + archivedCount;
+            hasMore = offset + logs.size() < total;
+            result.put("total", total);
+        } else {
+            Pageable pageable = new OffsetPageRequest(offset, limit, LOG_ORDER);
+            Specification<CommandLog> filter = spec;
+            // Counts only when the page does not already tell the total, as findAll(spec, pageable) does
+            Page<CommandLogSummary> page = PageableExecutionUtils.getPage(
+                summaryQueryRepository.findLogs(filter, pageable), pageable, () -> commandLogRepository.count(filter));
+            logs = page.getContent();
+            hasMore = page.hasNext();
+            result.put("total", page.getTotalElements());
+        }
+        
+        String nextCursor = null;
+        if (hasMore && !logs.isEmpty()) {
+            CommandLogSummary last = logs.get(logs.size() - 1);
+            nextCursor = new KeysetCursor(last.timestamp(), last.id()).encode();
         }
         
-        total = logs.size();
+        result.put("limit", limit);
+        result.put("offset", offset);
+        result.put("count", logs.size());
+        result.put("logs", logs);
+        result.put("next_cursor", nextCursor);
+        return result;
+    }
+    
+    private Map<String, Object> getMatchingLogs(LogArchiveService.Snapshot archive, LocalDateTime start, LocalDateTime end,
+                                                String user, String directory, String contains, String regex,
+                                                int limit, int offset) {
+        // Same patterns as TrigramSearchService
+        List<Pattern> patterns = new ArrayList<>();
+        if (contains != null) {
+            patterns.add(Pattern.compile(Pattern.quote(contains), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+        }
+        if (regex != null) {
+            patterns.add(Pattern.compile(regex));
+        }
+        LogArchiveService.Filter archived = new LogArchiveService.Filter(start, end, user, directory,
+            log -> patterns.stream().allMatch(pattern -> pattern.matcher(log.command()).find()
+                || pattern.matcher(log.directory()).find()));
+        boolean reachesArchive = archive.reaches(start, end);
         
-        // Apply pagination
-        int fromIndex = Math.min(offset, logs.size());
-        int toIndex = Math.min(offset + limit, logs.size());
-        logs = logs.subList(fromIndex, toIndex);
+        // With archived logs to merge, the page and the match after it lie within
+        // the first offset + limit + 1 matches of both
+        TrigramSearchService.Matches matches = trigramSearchService.findLogs(
+            start, end, user, directory, contains, regex,
+            reachesArchive ? offset + limit + 1 : limit, reachesArchive ? 0 : offset);
+        Map<Integer, CommandLogSummary> byId = commandLogRepository.findSummariesByIdIn(matches.ids()).stream()
+            .collect(Collectors.toMap(CommandLogSummary::id, log -> log));
+        List<CommandLogSummary> logs = matches.ids().stream().map(byId::get).collect(Collectors.toList());
+        Long total = matches.total();
+        if (reachesArchive) {
+            logs = merge(logs, archive.newestFirst(archived), offset, limit + 1);
+            // Like the table's matches, counted only when they end within the page
+            total = logs.size() <= limit && (offset == 0 || !logs.isEmpty()) ? (long) offset + logs.size() : null;
+            if (logs.size() > limit) {
+                logs = logs.subList(0, limit);
+            }
+        }
         
         Map<String, Object> result = new HashMap<>();
         result.put("total", total);
         result.put("limit", limit);
         result.put("offset", offset);
+        result.put("count", logs.size());
         result.put("logs", logs);
+        result.put("next_cursor", null);
         return result;
     }
     
+    /**
+     * Appends the archived logs matching filter to a page of ranked search
+     * results, as if they followed all of the ranked matches.
+     */
+    @SuppressWarnings("unchecked")
+    private static void addArchivedMatches(Map<String, Object> result, LogArchiveService.Snapshot archive,
+                                           LogArchiveService.Filter filter, int limit, int offset) {
+        long ranked = (Long) result.get("total");
+        List<CommandLogSummary> logs = new ArrayList<>((List<CommandLogSummary>) result.get("logs"));
+        Iterator<CommandLogSummary> archived = archive.newestFirst(filter, Math.max(0, offset - ranked));
+        while (logs.size() < limit && archived.hasNext()) {
+            logs.add(archived.next());
+        }
+        result.put("total", ranked + archive.count(filter));
+        result.put("count", logs.size());
+        result.put("logs", logs);
+    }
+    
+    /**
+     * @return the logs at offset..offset + limit of the table rows passing
+     *         older merged with the archived logs passing archived (count of them)
+     */
+    private List<CommandLogSummary> mergeOlder(LogArchiveService.Snapshot archive, Specification<CommandLog> older,
+                                               LogArchiveService.Filter archived, long archivedCount,
+                                               long offset, int limit) {
+        long stored = commandLogRepository.count(older);
+        if (offset >= stored + archivedCount) {
+            return new ArrayList<>();
+        }
+        // Find skip, the number of archived logs before the page. The archived log at
+        // index i lies before it when i plus the stored rows newer than it is below
+        // offset: true for every i below offset - stored, false from offset on
+        long low = Math.max(0, offset - stored);
+        long high = Math.min(offset, archivedCount);
+        CommandLogSummary previous = null;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            CommandLogSummary log = archive.newestFirst(archived, middle).next();
+            if (middle + countNewer(older, stored, log) < offset) {
+                low = middle + 1;
+                previous = log;
+            } else {
+                high = middle;
+            }
+        }
+        long skip = low;
+        if (skip > 0 && previous == null) {
+            previous = archive.newestFirst(archived, skip - 1).next();
+        }
+        
+        // The other offset - skip logs before the page are stored rows. Those newer
+        // than the last archived log before the page are passed by seeking, so
+        // OFFSET only covers the few between it and the next archived log
+        Specification<CommandLog> rest = older;
+        long storedOffset = offset - skip;
+        if (previous != null) {
+            rest = older.and(new KeysetCursor(previous.timestamp(), previous.id()).after());
+            storedOffset -= countNewer(older, stored, previous);
+        }
+        List<CommandLogSummary> page = summaryQueryRepository.findLogs(
+            rest, new OffsetPageRequest(storedOffset, limit, LOG_ORDER));
+        return merge(page, archive.newestFirst(archived, skip), 0, limit);
+    }
+    
+    /**
+     * @return how many of the stored rows passing older sort before log
+     */
+    private long countNewer(Specification<CommandLog> older, long stored, CommandLogSummary log) {
+        return stored - commandLogRepository.count(older.and(new KeysetCursor(log.timestamp(), log.id()).after()));
+    }
+    
+    /**
+     * @return the logs at offset..offset + limit of the merge of two
+     *         newest-first sequences
+     */
+    private static List<CommandLogSummary> merge(List<CommandLogSummary> logs, Iterator<CommandLogSummary> archived,
+                                                 int offset, int limit) {
+        List<CommandLogSummary> page = new ArrayList<>();
+        int next = 0;
+        CommandLogSummary nextArchived = archived.hasNext() ? archived.next() : null;
+        for (long position = 0; position < (long) offset + limit; position++) {
+            CommandLogSummary log;
+            if (nextArchived != null && (next == logs.size() || NEWEST_FIRST.compare(nextArchived, logs.get(next)) < 0)) {
+                log = nextArchived;
+                nextArchived = archived.hasNext() ? archived.next() : null;
+            } else if (next < logs.size()) {
+                log = logs.get(next++);
+            } else {
+                break;
+            }
+            if (position >= offset) {
+                page.add(log);
+            }
+        }
+        return page;
+    }
+    
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getLogsByDate() {
-        return commandLogRepository.findLogsByDate().stream()
-            .map(result -> {
-                Map<String, Object> item = new HashMap<>();
-                item.put("date", result[0]);
-                item.put("count", result[1]);
-                return item;
-            })
-            .collect(Collectors.toList());
+        return queryCache.get(ChangeSequence.LOGS, "by-date", () ->
+            dailyRollupService.dailyTotals(DailyRollupService.LOGS).entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> item = new HashMap<>();
+                    item.put("date", entry.getKey());
+                    item.put("count", entry.getValue());
+                    return item;
+                })
+                .collect(Collectors.toList()));
     }
     
+    /**
+     * Log statistics, read from the daily rollups (see {@link DailyRollupService})
+     * and MIN/MAX(timestamp), so no log rows are loaded. Cached until logs
+     * are added, see {@link QueryCache}.
+     */
+    @Transactional(readOnly = true)
     public Map<String, Object> getLogStats() {
-        long totalLogs = commandLogRepository.count();
-        List<CommandLog> allLogs = commandLogRepository.findAll();
-        
-        LocalDateTime firstLog = allLogs.stream()
-            .map(CommandLog::getTimestamp)
-            .min(LocalDateTime::compareTo)
-            .orElse(null);
-        LocalDateTime lastLog = allLogs.stream()
-            .map(CommandLog::getTimestamp)
-            .max(LocalDateTime::compareTo)
-            .orElse(null);
-        
-        Long uniqueUsers = commandLogRepository.countDistinctUsers();
+        return queryCache.get(ChangeSequence.LOGS, "stats", this::computeLogStats);
+    }
+    
+    private Map<String, Object> computeLogStats() {
+        long totalLogs = dailyRollupService.total(DailyRollupService.LOGS);
+        LocalDateTime firstLog = Stream.of(commandLogRepository.findEarliestTimestamp(), logArchiveService.findEarliestTimestamp())
+            .filter(Objects::nonNull).min(Comparator.naturalOrder()).orElse(null);
+        LocalDateTime lastLog = Stream.of(commandLogRepository.findLatestTimestamp(), logArchiveService.findLatestTimestamp())
+            .filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(null);
         
-        List<Object[]> mostActiveUserResult = commandLogRepository.findMostActiveUser();
+        Map<String, Long> logsByUser = dailyRollupService.topValues(DailyRollupService.LOGS_USER, Integer.MAX_VALUE);
         Map<String, Object> mostActiveUser = new HashMap<>();
-        if (!mostActiveUserResult.isEmpty()) {
-            mostActiveUser.put("user", mostActiveUserResult.get(0)[0]);
-            mostActiveUser.put("count", mostActiveUserResult.get(0)[1]);
-        }
-        
-        List<Object[]> topCommandsResult = commandLogRepository.findTopCommands(10);
-        List<Object[]> topCommands = topCommandsResult != null ? topCommandsResult : List.of();
-        List<Map<String, Object>> topCommandsList = topCommands.stream()
-            .map(cmd -> {
-                Map<String, Object> item = new HashMap<>();
-                String command = (String) cmd[0];
-                item.put("command", command.length() > 50 ? command.substring(0, 50) : command);
-                item.put("count", cmd[1]);
-                return item;
-            })
-            .collect(Collectors.toList());
+        logsByUser.entrySet().stream().findFirst().ifPresent(top -> {
+            mostActiveUser.put("user", top.getKey());
+            mostActiveUser.put("count", top.getValue());
+        });
+        
+        Map<String, Long> topCommands = new LinkedHashMap<>();
+        dailyRollupService.topValues(DailyRollupService.LOGS_COMMAND, 10).forEach((command, count) ->
+            topCommands.merge(command.length() > 50 ? command.substring(0, 50) : command, count, Long::sum));
         
         Map<String, Object> result = new HashMap<>();
         result.put("total_logs", totalLogs);
@@ -179,24 +564,54 @@ public class CommandLogService {
         dateRange.put("first_log", firstLog != null ? firstLog.toString() : null);
         dateRange.put("last_log", lastLog != null ? lastLog.toString() : null);
         result.put("date_range", dateRange);
-        result.put("unique_users", uniqueUsers);
+        result.put("unique_users", (long) logsByUser.size());
         result.put("most_active_user", mostActiveUser);
-        result.put("top_commands", topCommandsList);
+        result.put("logs_by_user", logsByUser);
+        result.put("logs_by_date", dailyRollupService.dailyTotals(DailyRollupService.LOGS));
+        result.put("top_commands", topCommands);
         return result;
     }
     
+    @Transactional(readOnly = true)
     public Map<String, List<String>> getFilterOptions() {
-        Map<String, List<String>> result = new HashMap<>();
-        result.put("users", commandLogRepository.findDistinctUsers());
-        result.put("directories", commandLogRepository.findDistinctDirectories());
-        return result;
+        return queryCache.get(ChangeSequence.LOGS, "filter-options", () -> {
+            Map<String, List<String>> result = new HashMap<>();
+            Set<String> users = new TreeSet<>(commandLogRepository.findDistinctUsers());
+            users.addAll(logArchiveService.findDistinctUsers());
+            Set<String> directories = new TreeSet<>(commandLogRepository.findDistinctDirectories());
+            directories.addAll(logArchiveService.findDistinctDirectories());
+            result.put("users", new ArrayList<>(users));
+            result.put("directories", new ArrayList<>(directories));
+            return result;
+        });
     }
     
-    public List<CommandLog> getLogsForDate(String date) {
+    @Transactional(readOnly = true)
+    public List<CommandLogSummary> getLogsForDate(String date) {
         LocalDate dateObj = LocalDate.parse(date);
         LocalDateTime start = dateObj.atStartOfDay();
         LocalDateTime end = dateObj.atTime(23, 59, 59).plusDays(1);
-        return commandLogRepository.findByDateRange(start, end);
+        List<CommandLogSummary> logs;
+        LogArchiveService.Snapshot archive;
+        try (LogArchiveService.Snapshot snapshot = logArchiveService.snapshot()) {
+            logs = commandLogRepository.findSummariesByDateRange(start, end);
+            archive = snapshot;
+        }
+        // end is exclusive here
+        LogArchiveService.Filter archived = new LogArchiveService.Filter(start, end.minusNanos(1), null, null, null);
+        if (archive.reaches(archived.start(), archived.end())) {
+            logs = merge(logs, archive.newestFirst(archived), 0, Integer.MAX_VALUE);
+        }
+        return logs;
+    }
+    
+    /**
+     * @return the log with all its columns, or null if it does not exist
+     */
+    @Transactional(readOnly = true)
+    public CommandLog getLog(Integer logId) {
+        // Checked in this order, a log archived in between is still found
+        return commandLogRepository.findById(logId).orElseGet(() -> logArchiveService.findLog(logId));
     }
 }
 
@@ -0,0 +1,22 @@
+package com.tracer.service;
+
+import com.tracer.entity.CommandLog;
+
+import java.util.List;
+
+/**
+ * Published when a batch of new command logs is stored, so listeners
+ * (see LiveStreamService) can pass them on once the batch is committed.
+ */
+public class CommandLogsSavedEvent {
+
+    private final List<CommandLog> logs;
+
+    public CommandLogsSavedEvent(List<CommandLog> logs) {
+        this.logs = logs;
+    }
+
+    public List<CommandLog> getLogs() {
+        return logs;
+    }
+}
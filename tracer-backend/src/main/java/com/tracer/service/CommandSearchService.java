@@ -0,0 +1,100 @@
+package com.tracer.service;
+
+import com.tracer.config.DatabasePlatform;
+import com.tracer.repository.CommandLogRepository;
+import com.tracer.repository.CommandLogSearchRepository;
+import com.tracer.repository.CommandLogSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search of command logs through the FTS5 index in
+ * {@link CommandLogSearchRepository}.
+ *
+ * The index only exists on SQLite. On other databases (the H2 local profile)
+ * or when the SQLite build lacks FTS5, {@link #isAvailable()} is false and
+ * /api/logs falls back to substring matching.
+ */
+@Service
+@RequiredArgsConstructor
+public class CommandSearchService {
+
+    private final CommandLogSearchRepository commandLogSearchRepository;
+    private final CommandLogRepository commandLogRepository;
+    private final DatabasePlatform databasePlatform;
+
+    private volatile boolean available;
+
+    /**
+     * Creates the index on first start and re-indexes when its size does not
+     * match command_logs (rows written before the index existed, or a
+     * recreated command_logs table). Runs before the scheduled tasks start,
+     * like {@link DailyRollupService#rebuildIfStale()}.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void ensureIndex() {
+        if (!databasePlatform.isSqlite()) {
+            return;
+        }
+        try {
+            commandLogSearchRepository.createIndex();
+        } catch (RuntimeException e) {
+            System.err.println("Full-text search disabled, cannot create FTS5 index: " + e.getMessage());
+            return;
+        }
+        if (commandLogSearchRepository.countIndexed() != commandLogRepository.count()) {
+            commandLogSearchRepository.rebuildIndex();
+            System.out.println("Rebuilt command search index");
+        }
+        available = true;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Ranked page of logs matching an FTS5 expression (see FtsQuery) and the
+     * other /api/logs filters.
+     *
+     * @return the same keys as {@link CommandLogService#getLogs}, plus
+     *         "highlights" (log id to snippet) when highlight is set
+     */
+    public Map<String, Object> search(String match, LocalDateTime start, LocalDateTime end,
+                                      String user, String directory, boolean highlight,
+                                      int limit, int offset) {
+        Map<Integer, String> page = commandLogSearchRepository.search(
+            match, start, end, user, directory, highlight, limit, offset);
+        Map<Integer, CommandLogSummary> byId = commandLogRepository.findSummariesByIdIn(page.keySet()).stream()
+            .collect(Collectors.toMap(CommandLogSummary::id, Function.identity()));
+        List<CommandLogSummary> logs = page.keySet().stream()
+            .map(byId::get)
+            .collect(Collectors.toList());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", commandLogSearchRepository.count(match, start, end, user, directory));
+        result.put("limit", limit);
+        result.put("offset", offset);
+        result.put("count", logs.size());
+        result.put("logs", logs);
+        result.put("next_cursor", null);
+        if (highlight) {
+            result.put("highlights", page);
+        }
+        return result;
+    }
+}
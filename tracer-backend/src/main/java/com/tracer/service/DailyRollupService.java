@@ -0,0 +1,244 @@
+package com.tracer.service;
+
+import com.tracer.config.DatabasePlatform;
+import com.tracer.entity.CommandLog;
+import com.tracer.entity.DailyRollup;
+import com.tracer.entity.FileChange;
+import com.tracer.repository.BulkWriteRepository;
+import com.tracer.repository.CommandLogRepository;
+import com.tracer.repository.CommandLogSummary;
+import com.tracer.repository.DailyRollupRepository;
+import com.tracer.repository.FileChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Daily row counts of command_logs and file_changes, in total and per user,
+ * command, directory, event type and extension, kept in daily_rollups.
+ *
+ * The ingestion paths add to the rollups in the same transaction as the rows
+ * they store, so the by-date and stats endpoints read a few rows per day
+ * instead of grouping the source tables. Besides the per-day rows, every
+ * (dimension, value) has an all-time row (date {@link #ALL_DAYS}) updated by
+ * the same writes, so totals and top values read a handful of index
+ * entries rather than summing the days. {@link #rebuild()} recomputes
+ * everything from the source tables; it runs at startup when the totals do
+ * not match the table sizes (e.g. a database from before the rollups) and is
+ * exposed as POST /api/rollups/rebuild for backfills.
+ *
+ * On SQLite, additions are written as one batched upsert per call instead
+ * of loading and saving every touched rollup.
+ */
+@Service
+@RequiredArgsConstructor
+public class DailyRollupService {
+
+    public static final String LOGS = "logs";
+    public static final String LOGS_USER = "logs.user";
+    public static final String LOGS_COMMAND = "logs.command";
+    public static final String LOGS_DIRECTORY = "logs.directory";
+    public static final String CHANGES = "changes";
+    public static final String CHANGES_EVENT_TYPE = "changes.event_type";
+    public static final String CHANGES_EXTENSION = "changes.extension";
+    public static final String CHANGES_DIRECTORY = "changes.directory";
+
+    // The date of the all-time rows
+    static final String ALL_DAYS = "";
+
+    private static final List<String> LOG_DIMENSIONS = List.of(LOGS, LOGS_USER, LOGS_COMMAND, LOGS_DIRECTORY);
+    private static final List<String> CHANGE_DIMENSIONS =
+        List.of(CHANGES, CHANGES_EVENT_TYPE, CHANGES_EXTENSION, CHANGES_DIRECTORY);
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final CommandLogRepository commandLogRepository;
+    private final FileChangeRepository fileChangeRepository;
+    private final BulkWriteRepository bulkWriteRepository;
+    private final DatabasePlatform databasePlatform;
+    private final ChangeSequence changeSequence;
+    private final LogArchiveService logArchiveService;
+
+    @Transactional
+    public void addCommandLogs(Collection<CommandLog> logs) {
+        Map<Key, Long> increments = new HashMap<>();
+        for (CommandLog log : logs) {
+            increment(increments, LOGS, log.getDate(), "", 1);
+            increment(increments, LOGS_USER, log.getDate(), log.getUser(), 1);
+            increment(increments, LOGS_COMMAND, log.getDate(), log.getCommand(), 1);
+            increment(increments, LOGS_DIRECTORY, log.getDate(), log.getDirectory(), 1);
+        }
+        apply(LOG_DIMENSIONS, increments);
+    }
+
+    @Transactional
+    public void addFileChanges(Collection<FileChange> changes) {
+        apply(CHANGE_DIMENSIONS, fileChangeIncrements(changes, 1));
+    }
+
+    @Transactional
+    public void removeFileChanges(Collection<FileChange> changes) {
+        apply(CHANGE_DIMENSIONS, fileChangeIncrements(changes, -1));
+    }
+
+    private static Map<Key, Long> fileChangeIncrements(Collection<FileChange> changes, long delta) {
+        Map<Key, Long> increments = new HashMap<>();
+        for (FileChange change : changes) {
+            increment(increments, CHANGES, change.getDate(), "", delta);
+            increment(increments, CHANGES_EVENT_TYPE, change.getDate(), change.getEventType(), delta);
+            increment(increments, CHANGES_EXTENSION, change.getDate(), change.getFileExtension(), delta);
+            increment(increments, CHANGES_DIRECTORY, change.getDate(), change.getDirectory(), delta);
+        }
+        return increments;
+    }
+
+    private static void increment(Map<Key, Long> increments, String dimension, String date, String value, long delta) {
+        if (value != null) {
+            increments.merge(new Key(dimension, date, value), delta, Long::sum);
+            increments.merge(new Key(dimension, ALL_DAYS, value), delta, Long::sum);
+        }
+    }
+
+    private void apply(List<String> dimensions, Map<Key, Long> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        if (databasePlatform.isSqlite() && increments.values().stream().allMatch(delta -> delta >= 0)) {
+            List<Object[]> rows = new ArrayList<>();
+            increments.forEach((key, delta) -> {
+                if (delta > 0) {
+                    rows.add(new Object[] {key.dimension(), key.date(), key.value(), delta});
+                }
+            });
+            bulkWriteRepository.addRollupCounts(rows);
+            return;
+        }
+        Set<String> dates = new HashSet<>();
+        Set<String> values = new HashSet<>();
+        increments.keySet().forEach(key -> {
+            dates.add(key.date());
+            values.add(key.value());
+        });
+        Map<Key, DailyRollup> existing = new HashMap<>();
+        for (DailyRollup rollup :
+                dailyRollupRepository.findByDimensionInAndDateInAndDimensionValueIn(dimensions, dates, values)) {
+            existing.put(new Key(rollup.getDimension(), rollup.getDate(), rollup.getDimensionValue()), rollup);
+        }
+
+        List<DailyRollup> toSave = new ArrayList<>();
+        List<DailyRollup> toDelete = new ArrayList<>();
+        increments.forEach((key, delta) -> {
+            DailyRollup rollup = existing.get(key);
+            if (rollup == null) {
+                if (delta <= 0) {
+                    return;
+                }
+                rollup = new DailyRollup(null, key.dimension(), key.date(), key.value(), 0L);
+            }
+            rollup.setCount(rollup.getCount() + delta);
+            if (rollup.getCount() > 0) {
+                toSave.add(rollup);
+            } else if (rollup.getId() != null) {
+                toDelete.add(rollup);
+            }
+        });
+        dailyRollupRepository.saveAll(toSave);
+        dailyRollupRepository.deleteAll(toDelete);
+    }
+
+    /**
+     * Recomputes all rollups from command_logs and file_changes, adding the
+     * archived logs (see {@link LogArchiveService}) segment by segment.
+     *
+     * @return the number of rollup rows written
+     */
+    @Transactional
+    public int rebuild() {
+        changeSequence.advanceAfterCommit(ChangeSequence.LOGS);
+        changeSequence.advanceAfterCommit(ChangeSequence.CHANGES);
+        dailyRollupRepository.deleteAllInBatch();
+        int[] rows = {dailyRollupRepository.rebuildLogTotals()
+            + dailyRollupRepository.rebuildLogUsers()
+            + dailyRollupRepository.rebuildLogCommands()
+            + dailyRollupRepository.rebuildLogDirectories()
+            + dailyRollupRepository.rebuildChangeTotals()
+            + dailyRollupRepository.rebuildChangeEventTypes()
+            + dailyRollupRepository.rebuildChangeExtensions()
+            + dailyRollupRepository.rebuildChangeDirectories()};
+        rows[0] += dailyRollupRepository.rebuildAllTimeTotals();
+        logArchiveService.forEachSegment(logs -> {
+            Map<Key, Long> increments = new HashMap<>();
+            for (CommandLogSummary log : logs) {
+                increment(increments, LOGS, log.date(), "", 1);
+                increment(increments, LOGS_USER, log.date(), log.user(), 1);
+                increment(increments, LOGS_COMMAND, log.date(), log.command(), 1);
+                increment(increments, LOGS_DIRECTORY, log.date(), log.directory(), 1);
+            }
+            apply(LOG_DIMENSIONS, increments);
+            rows[0] += increments.size();
+        });
+        return rows[0];
+    }
+
+    /**
+     * Runs before the scheduled tasks are started (they are registered on the
+     * same event at the lowest precedence), so no ingestion writes race the
+     * rebuild.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void rebuildIfStale() {
+        long logs = commandLogRepository.count() + logArchiveService.countLogs();
+        if (total(LOGS) != logs || total(CHANGES) != fileChangeRepository.count()) {
+            int rows = rebuild();
+            System.out.println("Rebuilt daily rollups: " + rows + " rows");
+        }
+    }
+
+    /**
+     * @return the sum of the dimension over all days
+     */
+    public long total(String dimension) {
+        Long total = dailyRollupRepository.findAllTimeTotal(dimension);
+        return total != null ? total : 0L;
+    }
+
+    /**
+     * @return date to count, newest date first
+     */
+    public Map<String, Long> dailyTotals(String dimension) {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (Object[] row : dailyRollupRepository.findDailyTotals(dimension)) {
+            totals.put((String) row[0], (Long) row[1]);
+        }
+        return totals;
+    }
+
+    /**
+     * @return value to count over all days, largest first
+     */
+    public Map<String, Long> topValues(String dimension, int limit) {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (Object[] row : dailyRollupRepository.findValueTotals(dimension, PageRequest.of(0, limit))) {
+            totals.put((String) row[0], (Long) row[1]);
+        }
+        return totals;
+    }
+
+    private record Key(String dimension, String date, String value) {
+    }
+}
@@ -0,0 +1,324 @@
+package com.tracer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracer.repository.CommandLogSummary;
+import com.tracer.repository.ExportRepository;
+import com.tracer.util.FtsQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports command logs and file changes as NDJSON or CSV, optionally
+ * gzip-compressed, streamed row by row from {@link ExportRepository}.
+ *
+ * The filters are those of /api/logs and /api/changes. contains and regex
+ * are checked on each row as it streams by (with the semantics of
+ * {@link TrigramSearchService}) rather than through the trigram index, which
+ * only yields id lists. An export reads inside one read-only transaction, so
+ * it sees a consistent snapshot; on SQLite that snapshot keeps the WAL from
+ * being checkpointed past it until the export ends. Log exports include the
+ * archived logs (see {@link LogArchiveService}), merged in as the rows stream.
+ */
+@Service
+public class ExportService {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        /**
+         * @throws IllegalArgumentException for anything but ndjson or csv
+         */
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("format must be ndjson or csv");
+            }
+        }
+    }
+
+    /**
+     * A prepared export, written when the response body is.
+     */
+    @FunctionalInterface
+    public interface Export {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final ExportRepository exportRepository;
+    private final CommandSearchService commandSearchService;
+    private final LogArchiveService logArchiveService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ExportService(ExportRepository exportRepository, CommandSearchService commandSearchService,
+                         LogArchiveService logArchiveService, ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.exportRepository = exportRepository;
+        this.commandSearchService = commandSearchService;
+        this.logArchiveService = logArchiveService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Validates the filters and prepares an export of the matching logs,
+     * oldest first.
+     *
+     * @throws IllegalArgumentException if regex is not a valid pattern
+     */
+    public Export exportLogs(String startDate, String endDate, String user, String search, String directory,
+                             String contains, String regex, Format format, boolean gzip) {
+        LocalDateTime start = startDate != null ? LocalDate.parse(startDate).atStartOfDay() : null;
+        LocalDateTime end = endDate != null ? LocalDate.parse(endDate).atTime(23, 59, 59).plusDays(1) : null;
+        // Logs match search like in /api/logs: through the full-text index when there is one
+        String match = commandSearchService.isAvailable() ? FtsQuery.parse(search) : null;
+        String commandContains = match == null ? search : null;
+        List<Pattern> patterns = patterns(contains, regex);
+        // command and directory
+        int[] text = {5, 6};
+        Predicate<String[]> terms = match != null ? FtsQuery.matcher(search) : null;
+        LogArchiveService.Filter archived = new LogArchiveService.Filter(start, end, user, directory,
+            terms != null ? log -> terms.test(new String[] {log.command(), log.directory()})
+                : commandContains != null
+                ? log -> log.command().toLowerCase(Locale.ROOT).contains(commandContains.toLowerCase(Locale.ROOT))
+                : null);
+
+        return out -> write(out, format, gzip, ExportRepository.LOG_COLUMNS, rows -> {
+            Iterator<CommandLogSummary> archivedLogs;
+            // Held only until the table read has started, so a long or selective
+            // export does not hold up the archiver, see LogArchiveService.snapshot()
+            try (LogArchiveService.Snapshot archive = logArchiveService.snapshot()) {
+                exportRepository.startRead();
+                archivedLogs = archive.oldestFirst(archived);
+            }
+            ArchiveMerge merge = new ArchiveMerge(archivedLogs, filtered(rows, patterns, text));
+            exportRepository.streamCommandLogs(start, end, user, directory, match, commandContains, merge);
+            merge.finish();
+        });
+    }
+
+    /**
+     * Passes on the archived logs in between the table's rows, both oldest first.
+     */
+    private static class ArchiveMerge implements Consumer<Object[]> {
+        private final Iterator<CommandLogSummary> archived;
+        private final Consumer<Object[]> rows;
+        private CommandLogSummary next;
+
+        ArchiveMerge(Iterator<CommandLogSummary> archived, Consumer<Object[]> rows) {
+            this.archived = archived;
+            this.rows = rows;
+            this.next = archived.hasNext() ? archived.next() : null;
+        }
+
+        @Override
+        public void accept(Object[] row) {
+            LocalDateTime timestamp = (LocalDateTime) row[1];
+            long id = ((Number) row[0]).longValue();
+            while (next != null && (next.timestamp().isBefore(timestamp)
+                    || (next.timestamp().isEqual(timestamp) && next.id() < id))) {
+                emitNext();
+            }
+            rows.accept(row);
+        }
+
+        void finish() {
+            while (next != null) {
+                emitNext();
+            }
+        }
+
+        private void emitNext() {
+            rows.accept(new Object[] {next.id(), next.timestamp(), next.date(), next.time(),
+                next.user(), next.directory(), next.command()});
+            next = archived.hasNext() ? archived.next() : null;
+        }
+    }
+
+    /**
+     * Validates the filters and prepares an export of the matching file
+     * changes, oldest first.
+     *
+     * @throws IllegalArgumentException if regex is not a valid pattern
+     */
+    public Export exportFileChanges(String startDate, String endDate, String eventType, String fileExtension,
+                                    String contains, String regex, Format format, boolean gzip) {
+        LocalDateTime start = startDate != null ? LocalDate.parse(startDate).atStartOfDay() : null;
+        LocalDateTime end = endDate != null ? LocalDate.parse(endDate).atTime(23, 59, 59).plusDays(1) : null;
+        List<Pattern> patterns = patterns(contains, regex);
+        // file path
+        int[] text = {4};
+
+        return out -> write(out, format, gzip, ExportRepository.CHANGE_COLUMNS, rows ->
+            exportRepository.streamFileChanges(start, end, eventType, fileExtension,
+                filtered(rows, patterns, text)));
+    }
+
+    private static List<Pattern> patterns(String contains, String regex) {
+        List<Pattern> patterns = new ArrayList<>();
+        if (contains != null) {
+            patterns.add(Pattern.compile(Pattern.quote(contains), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+        }
+        if (regex != null) {
+            patterns.add(Pattern.compile(regex));
+        }
+        return patterns;
+    }
+
+    /**
+     * Passes on the rows in which every pattern is found in one of the text columns.
+     */
+    private static Consumer<Object[]> filtered(Consumer<Object[]> rows, List<Pattern> patterns, int[] text) {
+        if (patterns.isEmpty()) {
+            return rows;
+        }
+        return row -> {
+            for (Pattern pattern : patterns) {
+                boolean found = false;
+                for (int column : text) {
+                    if (row[column] != null && pattern.matcher((String) row[column]).find()) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return;
+                }
+            }
+            rows.accept(row);
+        };
+    }
+
+    private void write(OutputStream out, Format format, boolean gzip, List<String> columns,
+                       Consumer<Consumer<Object[]>> query) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        RowWriter writer = format == Format.CSV
+            ? new CsvWriter(compressed != null ? compressed : out, columns)
+            : new NdjsonWriter(compressed != null ? compressed : out, columns);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> query.accept(row -> {
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    // Usually the client went away; ends the query
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+    }
+
+    private interface RowWriter {
+        void write(Object[] row) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    /**
+     * One JSON object per line, keyed like the list DTOs.
+     */
+    private class NdjsonWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final List<String> columns;
+
+        NdjsonWriter(OutputStream out, List<String> columns) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are ended below instead of separated by the default space
+            this.generator.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < row.length; i++) {
+                generator.writeFieldName(columns.get(i));
+                if (row[i] instanceof LocalDateTime timestamp) {
+                    generator.writeString(timestamp.toString());
+                } else {
+                    generator.writeObject(row[i]);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row; null values are empty fields.
+     */
+    private static class CsvWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvWriter(OutputStream out, List<String> columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writeLine(columns.toArray());
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            writeLine(row);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
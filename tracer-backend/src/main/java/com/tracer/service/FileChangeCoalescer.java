@@ -0,0 +1,178 @@
+package com.tracer.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Debounce stage between raw watch events and file_changes writes.
+ *
+ * Events are buffered per path and merged until the path has been quiet for
+ * the debounce window (or has been buffered for maxDelay, so a file that is
+ * written continuously still shows up). Each drained change carries the number
+ * of raw events it stands for.
+ *
+ * Merging rules for consecutive events on one path:
+ * created + modified = created, created + deleted = nothing (temp file),
+ * deleted + created = modified (replaced in place), otherwise the latest wins.
+ * Among changes drained together, a deleted path and a created path with the
+ * same file name are paired into one moved change when the pairing is
+ * unambiguous. A delete and a create with different names in one directory
+ * are as often two unrelated files as a rename, so they are left alone.
+ *
+ * Not thread-safe; owned by the file watcher thread.
+ */
+public class FileChangeCoalescer {
+
+    private final long debounceMillis;
+    private final long maxDelayMillis;
+    private final Map<Path, Pending> pending = new LinkedHashMap<>();
+
+    public FileChangeCoalescer(long debounceMillis, long maxDelayMillis) {
+        this.debounceMillis = debounceMillis;
+        this.maxDelayMillis = Math.max(debounceMillis, maxDelayMillis);
+    }
+
+    /**
+     * @param rawEvents how many raw events this one stands for (WatchEvent.count())
+     */
+    public void add(Path path, String eventType, boolean isDirectory, LocalDateTime time,
+                    int rawEvents, long nowMillis) {
+        Pending previous = pending.get(path);
+        if (previous == null) {
+            pending.put(path, new Pending(eventType, isDirectory, time, rawEvents, nowMillis));
+            return;
+        }
+        previous.rawEventCount += rawEvents;
+        previous.lastEventMillis = nowMillis;
+        String merged = mergeEventTypes(previous.eventType, eventType);
+        if (merged == null) {
+            // Dropped as a unit; a later event on the path starts a new change
+            pending.remove(path);
+        } else {
+            previous.eventType = merged;
+            previous.isDirectory = isDirectory;
+            previous.time = time;
+        }
+    }
+
+    /**
+     * @return the event type two consecutive events amount to, or null if they cancel out
+     */
+    static String mergeEventTypes(String first, String next) {
+        if ("created".equals(first)) {
+            return "deleted".equals(next) ? null : "created";
+        }
+        if ("deleted".equals(first) && "created".equals(next)) {
+            return "modified";
+        }
+        return next;
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Removes and returns the changes whose debounce window has elapsed.
+     */
+    public List<Change> drainReady(long nowMillis) {
+        List<Change> ready = new ArrayList<>();
+        Iterator<Map.Entry<Path, Pending>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Pending> entry = it.next();
+            Pending p = entry.getValue();
+            if (nowMillis - p.lastEventMillis >= debounceMillis || nowMillis - p.firstEventMillis >= maxDelayMillis) {
+                ready.add(p.toChange(entry.getKey()));
+                it.remove();
+            }
+        }
+        return pairMoves(ready);
+    }
+
+    /**
+     * Removes and returns every buffered change regardless of its window.
+     */
+    public List<Change> drainAll() {
+        List<Change> all = new ArrayList<>();
+        pending.forEach((path, p) -> all.add(p.toChange(path)));
+        pending.clear();
+        return pairMoves(all);
+    }
+
+    private static List<Change> pairMoves(List<Change> changes) {
+        List<Change> deleted = new ArrayList<>();
+        List<Change> created = new ArrayList<>();
+        for (Change change : changes) {
+            if ("deleted".equals(change.eventType())) {
+                deleted.add(change);
+            } else if ("created".equals(change.eventType())) {
+                created.add(change);
+            }
+        }
+        if (deleted.isEmpty() || created.isEmpty()) {
+            return changes;
+        }
+
+        List<Change> result = new ArrayList<>(changes);
+        for (Change source : deleted) {
+            Change target = uniqueMoveTarget(source, created);
+            if (target == null || uniqueMoveTarget(target, deleted) != source) {
+                continue;
+            }
+            int index = result.indexOf(target);
+            result.set(index, new Change(target.path(), "moved", target.isDirectory(), target.time(),
+                source.path(), source.rawEventCount() + target.rawEventCount()));
+            result.remove(source);
+            created.remove(target);
+        }
+        return result;
+    }
+
+    private static Change uniqueMoveTarget(Change change, List<Change> candidates) {
+        Change match = null;
+        for (Change candidate : candidates) {
+            if (candidate.isDirectory() != change.isDirectory()) {
+                continue;
+            }
+            if (candidate.path().getFileName() != null
+                    && candidate.path().getFileName().equals(change.path().getFileName())) {
+                if (match != null) {
+                    return null;
+                }
+                match = candidate;
+            }
+        }
+        return match;
+    }
+
+    public record Change(Path path, String eventType, boolean isDirectory, LocalDateTime time,
+                         Path srcPath, int rawEventCount) {
+    }
+
+    private static class Pending {
+        private String eventType;
+        private boolean isDirectory;
+        private LocalDateTime time;
+        private final long firstEventMillis;
+        private long lastEventMillis;
+        private int rawEventCount;
+
+        private Pending(String eventType, boolean isDirectory, LocalDateTime time, int rawEvents, long nowMillis) {
+            this.eventType = eventType;
+            this.rawEventCount = rawEvents;
+            this.isDirectory = isDirectory;
+            this.time = time;
+            this.firstEventMillis = nowMillis;
+            this.lastEventMillis = nowMillis;
+        }
+
+        private Change toChange(Path path) {
+            return new Change(path, eventType, isDirectory, time, null, rawEventCount);
+        }
+    }
+}
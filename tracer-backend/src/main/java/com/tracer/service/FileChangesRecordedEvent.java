@@ -0,0 +1,22 @@
+package com.tracer.service;
+
+import com.tracer.entity.FileChange;
+
+import java.util.List;
+
+/**
+ * Published when the file watcher stores a batch of changes, so listeners
+ * (see LiveStreamService) can pass them on once the batch is committed.
+ */
+public class FileChangesRecordedEvent {
+
+    private final List<FileChange> changes;
+
+    public FileChangesRecordedEvent(List<FileChange> changes) {
+        this.changes = changes;
+    }
+
+    public List<FileChange> getChanges() {
+        return changes;
+    }
+}
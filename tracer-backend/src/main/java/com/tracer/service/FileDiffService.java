@@ -0,0 +1,108 @@
+package com.tracer.service;
+
+import com.tracer.entity.FileChange;
+import com.tracer.util.LineDiff;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line diffs of watched file content, computed on the server so clients only
+ * receive the changed hunks.
+ *
+ * Results are cached by the snapshot versions they compare. Snapshots never
+ * change once written, so entries stay valid until they are evicted; diffs
+ * involving a legacy change (raw_data content, no versions) are not cached.
+ */
+@Service
+public class FileDiffService {
+
+    public static final String AGAINST_PREVIOUS = "previous";
+
+    private final FileWatchService fileWatchService;
+    private final int maxLines;
+    private final Map<String, LineDiff.Result> cache;
+
+    public FileDiffService(FileWatchService fileWatchService,
+                           @Value("${file.diff.max-lines:10000}") int maxLines,
+                           @Value("${file.diff.cache-size:256}") int cacheSize) {
+        this.fileWatchService = fileWatchService;
+        this.maxLines = maxLines;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LineDiff.Result> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Diffs the content after a change against the content before it
+     * (against = "previous") or against the content after another change
+     * (against = that change's id).
+     *
+     * @return null if the change does not exist
+     * @throws IllegalArgumentException if against is neither "previous" nor an existing change id
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDiff(Integer changeId, String against, int contextLines) {
+        FileChange change = fileWatchService.findChange(changeId);
+        if (change == null) {
+            return null;
+        }
+        if (contextLines < 0) {
+            throw new IllegalArgumentException("context must not be negative");
+        }
+
+        // The before side is the previous content of this change or the content after the other one
+        FileChange other = null;
+        String beforePath = change.getSrcPath() != null ? change.getSrcPath() : change.getFilePath();
+        Integer beforeVersion = change.getPreviousContentVersion();
+        if (against != null && !against.isBlank() && !AGAINST_PREVIOUS.equals(against)) {
+            try {
+                other = fileWatchService.findChange(Integer.valueOf(against));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("against must be 'previous' or a change id");
+            }
+            if (other == null) {
+                throw new IllegalArgumentException("File change not found: " + against);
+            }
+            beforePath = other.getFilePath();
+            beforeVersion = other.getContentVersion();
+        }
+
+        // A null version only identifies the content when it means "none", not legacy raw_data
+        boolean cacheable = change.getRawData() == null && (other == null || other.getContentVersion() != null)
+            && (beforeVersion != null || change.getContentVersion() != null);
+        String cacheKey = cacheable
+            ? String.join("\u0000", beforePath, String.valueOf(beforeVersion),
+                change.getFilePath(), String.valueOf(change.getContentVersion()), String.valueOf(contextLines))
+            : null;
+        LineDiff.Result diff = cacheKey != null ? cache.get(cacheKey) : null;
+        if (diff == null) {
+            String before = other != null
+                ? fileWatchService.getContentAfter(other) : fileWatchService.getContentBefore(change);
+            String after = fileWatchService.getContentAfter(change);
+            diff = LineDiff.diff(before, after, contextLines, maxLines);
+            if (diff != null && cacheKey != null) {
+                cache.put(cacheKey, diff);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", change.getId());
+        result.put("against_id", other != null ? other.getId() : null);
+        result.put("file_path", change.getFilePath());
+        result.put("too_large", diff == null);
+        result.put("additions", diff != null ? diff.additions() : 0);
+        result.put("deletions", diff != null ? diff.deletions() : 0);
+        result.put("hunks", diff != null ? diff.hunks() : List.of());
+        return result;
+    }
+}
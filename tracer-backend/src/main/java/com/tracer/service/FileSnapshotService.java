@@ -0,0 +1,110 @@
+package com.tracer.service;
+
+import com.tracer.entity.FileSnapshot;
+import com.tracer.repository.FileSnapshotRepository;
+import com.tracer.util.SnapshotCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Versioned content history of watched files, stored as compressed deltas.
+ *
+ * Each stored version of a path is either a full snapshot or a line delta
+ * against the previous version. A full snapshot is written for the first
+ * version, every file.snapshot.full-interval versions after that, and whenever
+ * the delta would not be clearly smaller than the full content. Rebuilding a
+ * version therefore reads at most full-interval rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class FileSnapshotService {
+
+    static final String KIND_FULL = "full";
+    static final String KIND_DELTA = "delta";
+
+    private final FileSnapshotRepository fileSnapshotRepository;
+
+    @Value("${file.snapshot.full-interval:16}")
+    private int fullInterval;
+
+    /**
+     * Stores the content as the next version of the path.
+     *
+     * @return the new version, or the latest one if the content did not change
+     */
+    @Transactional
+    public Integer store(String filePath, String content) {
+        FileSnapshot latest = fileSnapshotRepository.findFirstByFilePathOrderByVersionDesc(filePath);
+
+        FileSnapshot snapshot = new FileSnapshot();
+        snapshot.setFilePath(filePath);
+        snapshot.setContentLength(content.length());
+        snapshot.setCreatedAt(LocalDateTime.now());
+
+        byte[] full = SnapshotCodec.encodeFull(content);
+        if (latest == null) {
+            snapshot.setVersion(1);
+            snapshot.setKind(KIND_FULL);
+            snapshot.setBaseVersion(1);
+            snapshot.setData(full);
+            return fileSnapshotRepository.save(snapshot).getVersion();
+        }
+
+        String latestContent = rebuild(latest);
+        if (latestContent.equals(content)) {
+            return latest.getVersion();
+        }
+
+        int version = latest.getVersion() + 1;
+        snapshot.setVersion(version);
+        byte[] delta = version - latest.getBaseVersion() < fullInterval
+            ? SnapshotCodec.encodeDelta(latestContent, content) : null;
+        if (delta != null && delta.length * 2 < full.length) {
+            snapshot.setKind(KIND_DELTA);
+            snapshot.setBaseVersion(latest.getBaseVersion());
+            snapshot.setData(delta);
+        } else {
+            snapshot.setKind(KIND_FULL);
+            snapshot.setBaseVersion(version);
+            snapshot.setData(full);
+        }
+        return fileSnapshotRepository.save(snapshot).getVersion();
+    }
+
+    /**
+     * @return the latest stored version of the path, or null if none
+     */
+    public Integer latestVersion(String filePath) {
+        FileSnapshot latest = fileSnapshotRepository.findFirstByFilePathOrderByVersionDesc(filePath);
+        return latest != null ? latest.getVersion() : null;
+    }
+
+    /**
+     * @return the content of the given version, or null if it is not stored
+     */
+    public String getContent(String filePath, Integer version) {
+        if (version == null) {
+            return null;
+        }
+        FileSnapshot snapshot = fileSnapshotRepository.findByFilePathAndVersion(filePath, version);
+        return snapshot != null ? rebuild(snapshot) : null;
+    }
+
+    private String rebuild(FileSnapshot snapshot) {
+        if (KIND_FULL.equals(snapshot.getKind())) {
+            return SnapshotCodec.decodeFull(snapshot.getData());
+        }
+        List<FileSnapshot> chain = fileSnapshotRepository.findByFilePathAndVersionBetweenOrderByVersionAsc(
+            snapshot.getFilePath(), snapshot.getBaseVersion(), snapshot.getVersion());
+        String content = SnapshotCodec.decodeFull(chain.get(0).getData());
+        for (int i = 1; i < chain.size(); i++) {
+            content = SnapshotCodec.applyDelta(content, chain.get(i).getData());
+        }
+        return content;
+    }
+}
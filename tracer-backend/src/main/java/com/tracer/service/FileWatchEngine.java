@@ -0,0 +1,463 @@
+package com.tracer.service;
+
+import com.tracer.entity.FileChange;
+import com.tracer.entity.WatchFolder;
+import com.tracer.repository.WatchFolderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * In-process file watcher for the active rows of watch_folders.
+ *
+ * A single background thread owns the {@link WatchService}: it registers every
+ * active folder (and its subdirectories when recursive), filters events by the
+ * folder's filePatterns globs, debounces them per path through a
+ * {@link FileChangeCoalescer} and writes the settled changes to file_changes
+ * in batches, checking every file.watch.flush-interval-ms. Folder changes
+ * made through {@link FileWatchService} trigger a re-sync on that thread, so
+ * request threads never walk directory trees or wait on file I/O.
+ */
+@Service
+@RequiredArgsConstructor
+public class FileWatchEngine {
+
+    private final WatchFolderRepository watchFolderRepository;
+    private final FileWatchService fileWatchService;
+
+    @Value("${file.watch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.watch.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${file.watch.debounce-ms:300}")
+    private long debounceMs;
+
+    @Value("${file.watch.max-delay-ms:5000}")
+    private long maxDelayMs;
+
+    @Value("${file.watch.max-content-bytes:262144}")
+    private long maxContentBytes;
+
+    private final AtomicBoolean resyncRequested = new AtomicBoolean(true);
+
+    // Owned by the watcher thread
+    private final Map<Path, WatchKey> registeredDirs = new HashMap<>();
+    private final Map<WatchKey, Path> keyDirs = new HashMap<>();
+    private FileChangeCoalescer coalescer;
+    private List<WatchedFolder> folders = List.of();
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (!enabled || running) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        coalescer = new FileChangeCoalescer(debounceMs, maxDelayMs);
+        running = true;
+        thread = new Thread(this::run, "file-watch-engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWatchFoldersChanged(WatchFoldersChangedEvent event) {
+        resyncRequested.set(true);
+    }
+
+    private void run() {
+        long nextFlush = System.currentTimeMillis() + flushIntervalMs;
+        while (running) {
+            try {
+                if (resyncRequested.getAndSet(false)) {
+                    sync();
+                }
+                long wait = Math.max(1, nextFlush - System.currentTimeMillis());
+                WatchKey key = watchService.poll(wait, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    handle(key);
+                    key = watchService.poll();
+                }
+                if (System.currentTimeMillis() >= nextFlush) {
+                    flush(coalescer.drainReady(System.currentTimeMillis()));
+                    nextFlush = System.currentTimeMillis() + flushIntervalMs;
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                System.err.println("Error in file watcher: " + e.getMessage());
+            }
+        }
+        try {
+            flush(coalescer.drainAll());
+        } catch (Exception e) {
+            System.err.println("Error flushing file changes on shutdown: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Brings the registered directories in line with the active watch folders.
+     */
+    private void sync() {
+        List<WatchedFolder> specs = new ArrayList<>();
+        Set<Path> desired = new HashSet<>();
+        for (WatchFolder folder : watchFolderRepository.findByIsActive("True")) {
+            Path root = Paths.get(folder.getPath()).toAbsolutePath().normalize();
+            if (!Files.isDirectory(root)) {
+                System.err.println("Watch folder is not a directory, skipping: " + root);
+                continue;
+            }
+            WatchedFolder spec = WatchedFolder.of(folder.getId(), root,
+                "True".equals(folder.getRecursive()), folder.getFilePatterns());
+            specs.add(spec);
+            desired.add(root);
+            if (spec.recursive()) {
+                desired.addAll(listDirectories(root));
+            }
+        }
+
+        Iterator<Map.Entry<Path, WatchKey>> it = registeredDirs.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, WatchKey> entry = it.next();
+            if (!desired.contains(entry.getKey())) {
+                entry.getValue().cancel();
+                keyDirs.remove(entry.getValue());
+                it.remove();
+            }
+        }
+        for (Path dir : desired) {
+            if (!registeredDirs.containsKey(dir)) {
+                register(dir);
+            }
+        }
+        folders = specs;
+    }
+
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            registeredDirs.put(dir, key);
+            keyDirs.put(key, dir);
+        } catch (IOException e) {
+            System.err.println("Cannot watch directory " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void unregisterTree(Path dir) {
+        Iterator<Map.Entry<Path, WatchKey>> it = registeredDirs.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, WatchKey> entry = it.next();
+            if (entry.getKey().startsWith(dir)) {
+                entry.getValue().cancel();
+                keyDirs.remove(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private void handle(WatchKey key) {
+        Path dir = keyDirs.get(key);
+        if (dir == null) {
+            key.cancel();
+            return;
+        }
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == OVERFLOW) {
+                System.err.println("File watch events were lost (overflow) in " + dir);
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            LocalDateTime now = LocalDateTime.now();
+
+            if (kind == ENTRY_DELETE) {
+                boolean wasDirectory = registeredDirs.containsKey(path);
+                if (wasDirectory) {
+                    unregisterTree(path);
+                }
+                enqueue(path, "deleted", wasDirectory, now, event.count());
+                continue;
+            }
+
+            boolean isDirectory = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+            if (kind == ENTRY_CREATE) {
+                enqueue(path, "created", isDirectory, now, event.count());
+                if (isDirectory && coveredRecursively(path)) {
+                    // Files created before the registration below would otherwise be missed
+                    for (Path sub : listDirectories(path)) {
+                        register(sub);
+                    }
+                    enqueueExistingFiles(path, now);
+                }
+            } else if (!isDirectory) {
+                // Directory MODIFY only means its entries changed, which are reported separately
+                enqueue(path, "modified", false, now, event.count());
+            }
+        }
+        if (!key.reset()) {
+            Path gone = keyDirs.remove(key);
+            if (gone != null) {
+                registeredDirs.remove(gone);
+            }
+        }
+    }
+
+    private boolean coveredRecursively(Path dir) {
+        for (WatchedFolder folder : folders) {
+            if (folder.recursive() && dir.startsWith(folder.root())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void enqueueExistingFiles(Path dir, LocalDateTime now) {
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    enqueue(file, "created", false, now, 1);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path sub, BasicFileAttributes attrs) {
+                    if (!sub.equals(dir)) {
+                        enqueue(sub, "created", true, now, 1);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Cannot scan new directory " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Passes an event to the coalescer unless no watch folder is interested in the path.
+     */
+    private void enqueue(Path path, String eventType, boolean isDirectory, LocalDateTime time, int rawEvents) {
+        if (isWatched(path, isDirectory)) {
+            coalescer.add(path, eventType, isDirectory, time, rawEvents, System.currentTimeMillis());
+        }
+    }
+
+    private boolean isWatched(Path path, boolean isDirectory) {
+        for (WatchedFolder folder : folders) {
+            if (folder.covers(path) && folder.matches(path, isDirectory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void flush(List<FileChangeCoalescer.Change> ready) {
+        if (ready.isEmpty()) {
+            return;
+        }
+        Set<String> previousPaths = new HashSet<>();
+        for (FileChangeCoalescer.Change change : ready) {
+            if (!change.isDirectory()) {
+                previousPaths.add(previousPath(change).toString());
+            }
+        }
+        Map<String, FileChange> previousChanges = fileWatchService.findLastChanges(previousPaths);
+
+        List<FileWatchService.DetectedChange> changes = new ArrayList<>(ready.size());
+        Set<Integer> folderIds = new HashSet<>();
+        for (FileChangeCoalescer.Change change : ready) {
+            changes.add(toDetectedChange(change, previousChanges));
+            for (WatchedFolder folder : folders) {
+                if (folder.covers(change.path())) {
+                    folderIds.add(folder.id());
+                }
+            }
+        }
+        fileWatchService.recordChanges(changes, folderIds);
+    }
+
+    /**
+     * The path the previous version of the file was stored under: the old path for moves.
+     */
+    private static Path previousPath(FileChangeCoalescer.Change change) {
+        return change.srcPath() != null ? change.srcPath() : change.path();
+    }
+
+    private FileWatchService.DetectedChange toDetectedChange(FileChangeCoalescer.Change change,
+                                                             Map<String, FileChange> previousChanges) {
+        Path path = change.path();
+        String fileName = path.getFileName() != null ? path.getFileName().toString() : path.toString();
+        int dot = fileName.lastIndexOf('.');
+        String eventType = change.eventType();
+
+        FileChange fileChange = new FileChange();
+        fileChange.setTimestamp(change.time());
+        fileChange.setDate(change.time().toLocalDate().toString());
+        fileChange.setFilePath(path.toString());
+        fileChange.setDirectory(path.getParent() != null ? path.getParent().toString() : "");
+        fileChange.setFileName(fileName);
+        fileChange.setFileExtension(!change.isDirectory() && dot > 0 ? fileName.substring(dot) : null);
+        fileChange.setIsDirectory(change.isDirectory() ? "True" : "False");
+        fileChange.setSrcPath(change.srcPath() != null ? change.srcPath().toString() : null);
+        fileChange.setRawEventCount(change.rawEventCount());
+
+        // Stored with the change by FileWatchService.recordChanges
+        String content = null;
+        if (!change.isDirectory()) {
+            FileChange previous = previousChanges.get(previousPath(change).toString());
+            if ("created".equals(eventType) && previous != null && !"deleted".equals(previous.getEventType())) {
+                // Saved by writing a temp file and renaming it over the original
+                eventType = "modified";
+            }
+
+            if (!"deleted".equals(eventType)) {
+                try {
+                    long size = Files.size(path);
+                    fileChange.setSize((int) Math.min(size, Integer.MAX_VALUE));
+                    content = readTextContent(path, size);
+                } catch (IOException e) {
+                    // deleted again before the flush; keep the event without content
+                }
+            }
+        }
+        fileChange.setEventType(eventType);
+        return new FileWatchService.DetectedChange(fileChange, content);
+    }
+
+    /**
+     * @return the file as UTF-8 text, or null when it is too large or looks binary
+     */
+    private String readTextContent(Path path, long size) throws IOException {
+        if (size > maxContentBytes) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        for (byte b : bytes) {
+            if (b == 0) {
+                return null;
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> listDirectories(Path root) {
+        List<Path> dirs = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    dirs.add(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Cannot scan watch folder " + root + ": " + e.getMessage());
+        }
+        return dirs;
+    }
+
+    /**
+     * An active watch folder with its filePatterns compiled. Without patterns
+     * everything matches; with patterns only files match, and a pattern
+     * containing '/' is matched against the path relative to the root while
+     * any other pattern is matched against the file name.
+     */
+    private record WatchedFolder(Integer id, Path root, boolean recursive,
+                                 List<PathMatcher> nameMatchers, List<PathMatcher> relativeMatchers) {
+
+        static WatchedFolder of(Integer id, Path root, boolean recursive, String filePatterns) {
+            List<PathMatcher> nameMatchers = new ArrayList<>();
+            List<PathMatcher> relativeMatchers = new ArrayList<>();
+            if (filePatterns != null) {
+                for (String pattern : filePatterns.split(",")) {
+                    pattern = pattern.trim();
+                    if (pattern.isEmpty()) {
+                        continue;
+                    }
+                    PathMatcher matcher = root.getFileSystem().getPathMatcher("glob:" + pattern);
+                    (pattern.contains("/") ? relativeMatchers : nameMatchers).add(matcher);
+                }
+            }
+            return new WatchedFolder(id, root, recursive, nameMatchers, relativeMatchers);
+        }
+
+        boolean covers(Path path) {
+            if (!path.startsWith(root) || path.equals(root)) {
+                return false;
+            }
+            return recursive || root.equals(path.getParent());
+        }
+
+        boolean matches(Path path, boolean isDirectory) {
+            if (nameMatchers.isEmpty() && relativeMatchers.isEmpty()) {
+                return true;
+            }
+            if (isDirectory) {
+                return false;
+            }
+            Path fileName = path.getFileName();
+            for (PathMatcher matcher : nameMatchers) {
+                if (matcher.matches(fileName)) {
+                    return true;
+                }
+            }
+            Path relative = root.relativize(path);
+            for (PathMatcher matcher : relativeMatchers) {
+                if (matcher.matches(relative)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
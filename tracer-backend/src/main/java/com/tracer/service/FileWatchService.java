@@ -1,15 +1,30 @@
 package com.tracer.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tracer.entity.FileChange;
 import com.tracer.entity.WatchFolder;
 import com.tracer.repository.FileChangeRepository;
+import com.tracer.repository.FileChangeSpecifications;
+import com.tracer.repository.FileChangeSummary;
+import com.tracer.repository.KeysetCursor;
+import com.tracer.repository.OffsetPageRequest;
+import com.tracer.repository.SummaryQueryRepository;
 import com.tracer.repository.WatchFolderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,8 +34,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FileWatchService {
     
+    private static final Sort CHANGE_ORDER = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+    
     private final FileChangeRepository fileChangeRepository;
+    private final SummaryQueryRepository summaryQueryRepository;
     private final WatchFolderRepository watchFolderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FileSnapshotService fileSnapshotService;
+    private final DailyRollupService dailyRollupService;
+    private final TrigramSearchService trigramSearchService;
+    private final ObjectMapper objectMapper;
+    private final QueryCache queryCache;
+    private final ChangeSequence changeSequence;
     
     public List<WatchFolder> getAllWatchFolders() {
         return watchFolderRepository.findAll();
@@ -40,12 +65,15 @@ public class FileWatchService {
         folder.setRecursive(recursive ? "True" : "False");
         folder.setCreatedAt(LocalDateTime.now());
         
-        return watchFolderRepository.save(folder);
+        WatchFolder saved = watchFolderRepository.save(folder);
+        eventPublisher.publishEvent(new WatchFoldersChangedEvent(saved.getId()));
+        return saved;
     }
     
     @Transactional
     public void removeWatchFolder(Integer folderId) {
         watchFolderRepository.deleteById(folderId);
+        eventPublisher.publishEvent(new WatchFoldersChangedEvent(folderId));
     }
     
     @Transactional
@@ -54,95 +82,242 @@ public class FileWatchService {
             .orElseThrow(() -> new RuntimeException("Folder not found"));
         
         folder.setIsActive(folder.getIsActive().equals("True") ? "False" : "True");
-        return watchFolderRepository.save(folder);
+        WatchFolder saved = watchFolderRepository.save(folder);
+        eventPublisher.publishEvent(new WatchFoldersChangedEvent(folderId));
+        return saved;
+    }
+    
+    /**
+     * Stores a batch of detected changes and marks their folders as checked.
+     * The content read for a change is stored in file_snapshots in the same
+     * transaction, so a failed batch leaves no versions behind that later
+     * deltas would be computed against. Listeners get a
+     * {@link FileChangesRecordedEvent} after the commit.
+     */
+    @Transactional
+    public void recordChanges(List<DetectedChange> detected, Collection<Integer> folderIds) {
+        List<FileChange> changes = new ArrayList<>(detected.size());
+        for (DetectedChange change : detected) {
+            storeContent(change.change(), change.content());
+            changes.add(change.change());
+        }
+        fileChangeRepository.saveAll(changes);
+        dailyRollupService.addFileChanges(changes);
+        if (!changes.isEmpty()) {
+            changeSequence.advanceAfterCommit(ChangeSequence.CHANGES);
+            eventPublisher.publishEvent(new FileChangesRecordedEvent(changes));
+        }
+        if (!folderIds.isEmpty()) {
+            watchFolderRepository.updateLastChecked(folderIds, LocalDateTime.now());
+        }
+    }
+    
+    private void storeContent(FileChange change, String content) {
+        if ("True".equals(change.getIsDirectory())) {
+            return;
+        }
+        if (!"created".equals(change.getEventType())) {
+            // The previous version is the last one stored under the old path for moves
+            String previousPath = change.getSrcPath() != null ? change.getSrcPath() : change.getFilePath();
+            change.setPreviousContentVersion(fileSnapshotService.latestVersion(previousPath));
+        }
+        if (content != null) {
+            change.setContentVersion(fileSnapshotService.store(change.getFilePath(), content));
+        }
+    }
+    
+    /**
+     * @return the latest stored change of each of the files that has one, by file path
+     */
+    public Map<String, FileChange> findLastChanges(Collection<String> filePaths) {
+        if (filePaths.isEmpty()) {
+            return Map.of();
+        }
+        return fileChangeRepository.findLatestByFilePathIn(filePaths).stream()
+            .collect(Collectors.toMap(FileChange::getFilePath, change -> change, (a, b) -> a));
+    }
+    
+    /**
+     * A change to record, with the file content read after it or null if not captured.
+     */
+    public record DetectedChange(FileChange change, String content) {
+    }
+    
+    /**
+     * Returns the file content before and after a change, rebuilt from
+     * file_snapshots.
+     *
+     * @return null if the change does not exist
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getChangeContent(Integer changeId) {
+        FileChange change = findChange(changeId);
+        if (change == null) {
+            return null;
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", change.getId());
+        result.put("file_path", change.getFilePath());
+        result.put("src_path", change.getSrcPath());
+        result.put("content_before", getContentBefore(change));
+        result.put("content_after", getContentAfter(change));
+        return result;
+    }
+    
+    /**
+     * @return the change, or null if it does not exist
+     */
+    @Transactional(readOnly = true)
+    public FileChange findChange(Integer changeId) {
+        return fileChangeRepository.findById(changeId).orElse(null);
     }
     
+    /**
+     * @return the file content before the change (under srcPath for moves), or null if not recorded
+     */
+    public String getContentBefore(FileChange change) {
+        if (change.getPreviousContentVersion() != null) {
+            String beforePath = change.getSrcPath() != null ? change.getSrcPath() : change.getFilePath();
+            return fileSnapshotService.getContent(beforePath, change.getPreviousContentVersion());
+        }
+        return legacyContent(change, "content_before");
+    }
+    
+    /**
+     * @return the file content after the change, or null if not recorded
+     */
+    public String getContentAfter(FileChange change) {
+        if (change.getContentVersion() != null) {
+            return fileSnapshotService.getContent(change.getFilePath(), change.getContentVersion());
+        }
+        return legacyContent(change, "content_after");
+    }
+    
+    // Changes stored before file_snapshots existed keep their content as JSON in raw_data
+    private String legacyContent(FileChange change, String field) {
+        if (change.getRawData() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(change.getRawData()).path(field).textValue();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Returns a page of file changes, by keyset cursor when one is given and by
+     * LIMIT/OFFSET otherwise. See {@link CommandLogService#getLogs}.
+     * contains and regex match the file path, see {@link TrigramSearchService}.
+     */
+    @Transactional(readOnly = true)
     public Map<String, Object> getFileChanges(String startDate, String endDate,
                                              String eventType, String fileExtension,
-                                             int limit, int offset) {
-        List<FileChange> changes;
+                                             String contains, String regex,
+                                             int limit, int offset, String cursor) {
+        LocalDateTime start = startDate != null ?
+            LocalDate.parse(startDate).atStartOfDay() : null;
+        LocalDateTime end = endDate != null ?
+            LocalDate.parse(endDate).atTime(23, 59, 59).plusDays(1) : null;
         
-        if (startDate != null && endDate != null) {
-            LocalDateTime start = LocalDate.parse(startDate).atStartOfDay();
-            LocalDateTime end = LocalDate.parse(endDate).atTime(23, 59, 59).plusDays(1);
-            changes = fileChangeRepository.findByTimestampBetweenOrderByTimestampDesc(start, end);
-        } else {
-            changes = fileChangeRepository.findAll();
-        }
+        Specification<FileChange> spec = FileChangeSpecifications.filter(start, end, eventType, fileExtension);
         
-        if (eventType != null) {
-            changes = changes.stream()
-                .filter(c -> c.getEventType().equals(eventType))
-                .collect(Collectors.toList());
+        Map<String, Object> result = new HashMap<>();
+        if (contains != null || regex != null) {
+            // Path search through the trigram index, paged by offset only
+            if (cursor != null) {
+                throw new IllegalArgumentException("cursor cannot be combined with contains or regex, use offset");
+            }
+            TrigramSearchService.Matches matches = trigramSearchService.findChanges(
+                start, end, eventType, fileExtension, contains, regex, limit, offset);
+            Map<Integer, FileChangeSummary> byId = fileChangeRepository.findSummariesByIdIn(matches.ids()).stream()
+                .collect(Collectors.toMap(FileChangeSummary::id, change -> change));
+            List<FileChangeSummary> changes = matches.ids().stream().map(byId::get).collect(Collectors.toList());
+            result.put("total", matches.total());
+            result.put("limit", limit);
+            result.put("offset", offset);
+            result.put("count", changes.size());
+            result.put("changes", changes);
+            result.put("next_cursor", null);
+            return result;
         }
         
-        if (fileExtension != null) {
-            changes = changes.stream()
-                .filter(c -> fileExtension.equals(c.getFileExtension()))
-                .collect(Collectors.toList());
+        // Only the list columns are selected, not raw_data, see FileChangeSummary
+        List<FileChangeSummary> changes;
+        boolean hasMore;
+        if (cursor != null) {
+            spec = spec.and(KeysetCursor.decode(cursor).after());
+            changes = summaryQueryRepository.findChanges(spec, new OffsetPageRequest(0, limit + 1, CHANGE_ORDER));
+            hasMore = changes.size() > limit;
+            if (hasMore) {
+                changes = changes.subList(0, limit);
+            }
+            result.put("total", null);
+        } else {
+            Pageable pageable = new OffsetPageRequest(offset, limit, CHANGE_ORDER);
+            Specification<FileChange> filter = spec;
+            Page<FileChangeSummary> page = PageableExecutionUtils.getPage(
+                summaryQueryRepository.findChanges(filter, pageable), pageable, () -> fileChangeRepository.count(filter));
+            changes = page.getContent();
+            hasMore = page.hasNext();
+            result.put("total", page.getTotalElements());
         }
         
-        long total = changes.size();
-        
-        int fromIndex = Math.min(offset, changes.size());
-        int toIndex = Math.min(offset + limit, changes.size());
-        changes = changes.subList(fromIndex, toIndex);
+        String nextCursor = null;
+        if (hasMore && !changes.isEmpty()) {
+            FileChangeSummary last = changes.get(changes.size() - 1);
+            nextCursor = new KeysetCursor(last.timestamp(), last.id()).encode();
+        }
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("total", total);
         result.put("limit", limit);
         result.put("offset", offset);
+        result.put("count", changes.size());
         result.put("changes", changes);
+        result.put("next_cursor", nextCursor);
         return result;
     }
     
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getChangesByDate() {
-        return fileChangeRepository.findChangesByDate().stream()
-            .map(result -> {
-                Map<String, Object> item = new HashMap<>();
-                item.put("date", result[0]);
-                item.put("count", result[1]);
-                return item;
-            })
-            .collect(Collectors.toList());
+        return queryCache.get(ChangeSequence.CHANGES, "by-date", () ->
+            dailyRollupService.dailyTotals(DailyRollupService.CHANGES).entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> item = new HashMap<>();
+                    item.put("date", entry.getKey());
+                    item.put("count", entry.getValue());
+                    return item;
+                })
+                .collect(Collectors.toList()));
     }
     
+    /**
+     * File change statistics, read from the daily rollups (see {@link DailyRollupService})
+     * and MIN/MAX(timestamp), so no change rows (or their raw_data) are loaded.
+     * Cached until changes are recorded or deleted, see {@link QueryCache}.
+     */
+    @Transactional(readOnly = true)
     public Map<String, Object> getFileChangeStats() {
-        long totalChanges = fileChangeRepository.count();
-        List<FileChange> allChanges = fileChangeRepository.findAll();
-        
-        LocalDateTime firstChange = allChanges.stream()
-            .map(FileChange::getTimestamp)
-            .min(LocalDateTime::compareTo)
-            .orElse(null);
-        LocalDateTime lastChange = allChanges.stream()
-            .map(FileChange::getTimestamp)
-            .max(LocalDateTime::compareTo)
-            .orElse(null);
-        
-        Map<String, Long> eventTypes = fileChangeRepository.findEventTypeCounts().stream()
-            .collect(Collectors.toMap(
-                result -> (String) result[0],
-                result -> (Long) result[1]
-            ));
+        return queryCache.get(ChangeSequence.CHANGES, "stats", this::computeFileChangeStats);
+    }
+    
+    private Map<String, Object> computeFileChangeStats() {
+        long totalChanges = dailyRollupService.total(DailyRollupService.CHANGES);
+        LocalDateTime firstChange = fileChangeRepository.findEarliestTimestamp();
+        LocalDateTime lastChange = fileChangeRepository.findLatestTimestamp();
         
-        List<Map<String, Object>> topExtensions = fileChangeRepository.findTopExtensions(10).stream()
-            .map(result -> {
-                Map<String, Object> item = new HashMap<>();
-                item.put("extension", result[0]);
-                item.put("count", result[1]);
-                return item;
-            })
-            .collect(Collectors.toList());
+        Map<String, Long> eventTypes =
+            dailyRollupService.topValues(DailyRollupService.CHANGES_EVENT_TYPE, Integer.MAX_VALUE);
+        Map<String, Long> topExtensions = dailyRollupService.topValues(DailyRollupService.CHANGES_EXTENSION, 10);
         
-        List<Map<String, Object>> topDirectories = fileChangeRepository.findTopDirectories(10).stream()
-            .map(result -> {
-                Map<String, Object> item = new HashMap<>();
-                item.put("directory", result[0]);
-                item.put("count", result[1]);
-                return item;
-            })
-            .collect(Collectors.toList());
+        List<Map<String, Object>> topDirectories =
+            dailyRollupService.topValues(DailyRollupService.CHANGES_DIRECTORY, 10).entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> item = new HashMap<>();
+                    item.put("directory", entry.getKey());
+                    item.put("count", entry.getValue());
+                    return item;
+                })
+                .collect(Collectors.toList());
         
         Map<String, Object> result = new HashMap<>();
         result.put("total_changes", totalChanges);
@@ -151,21 +326,28 @@ public class FileWatchService {
         dateRange.put("last_change", lastChange != null ? lastChange.toString() : null);
         result.put("date_range", dateRange);
         result.put("event_types", eventTypes);
-        result.put("top_extensions", topExtensions);
         result.put("top_directories", topDirectories);
+        result.put("changes_by_event_type", eventTypes);
+        result.put("changes_by_date", dailyRollupService.dailyTotals(DailyRollupService.CHANGES));
+        result.put("changes_by_extension", topExtensions);
         return result;
     }
     
-    public List<FileChange> getChangesForDate(String date) {
+    @Transactional(readOnly = true)
+    public List<FileChangeSummary> getChangesForDate(String date) {
         LocalDate dateObj = LocalDate.parse(date);
         LocalDateTime start = dateObj.atStartOfDay();
         LocalDateTime end = dateObj.atTime(23, 59, 59).plusDays(1);
-        return fileChangeRepository.findByDateRange(start, end);
+        return fileChangeRepository.findSummariesByDateRange(start, end);
     }
     
     @Transactional
     public void deleteFileChange(Integer changeId) {
-        fileChangeRepository.deleteById(changeId);
+        fileChangeRepository.findById(changeId).ifPresent(change -> {
+            fileChangeRepository.delete(change);
+            dailyRollupService.removeFileChanges(List.of(change));
+            changeSequence.advanceAfterCommit(ChangeSequence.CHANGES);
+        });
     }
 }
 
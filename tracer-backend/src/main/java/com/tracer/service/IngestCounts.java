@@ -0,0 +1,41 @@
+package com.tracer.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of an ingestion, readable while it is in progress.
+ */
+public class IngestCounts {
+
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    void add(long insertedLines, long skippedLines, long failedLines) {
+        inserted.addAndGet(insertedLines);
+        skipped.addAndGet(skippedLines);
+        failed.addAndGet(failedLines);
+    }
+
+    /**
+     * @return lines stored as new logs
+     */
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    /**
+     * @return parsed lines not stored because the same command (timestamp,
+     *         user and command) is already stored or appeared earlier
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return non-blank lines that could not be parsed
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+}
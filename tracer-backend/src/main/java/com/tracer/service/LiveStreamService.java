@@ -0,0 +1,197 @@
+package com.tracer.service;
+
+import com.tracer.entity.CommandLog;
+import com.tracer.entity.FileChange;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Pushes newly stored command logs and file changes to Server-Sent Events
+ * subscribers (GET /api/stream), so open dashboards do not have to poll.
+ *
+ * Records are passed on after their transaction commits, one "logs" or
+ * "changes" event per stored batch, holding the batch's records that match
+ * the subscriber's filter. Each subscriber has its own queue of at most
+ * stream.buffer-size events, drained by its own (virtual) sender thread, so
+ * the ingesting thread never waits for a client. A subscriber whose queue is
+ * full is disconnected; EventSource clients reconnect by themselves and
+ * should reload what they show, as events are not replayed. A comment is
+ * sent every stream.heartbeat-ms to keep idle connections open and to notice
+ * closed ones.
+ */
+@Service
+public class LiveStreamService {
+
+    public static final String LOGS = "logs";
+    public static final String CHANGES = "changes";
+
+    // Wakes a sender whose subscriber was closed
+    private static final SseEventBuilder CLOSE = SseEmitter.event().comment("close");
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    @Value("${stream.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${stream.timeout-ms:0}")
+    private long timeoutMs;
+
+    /**
+     * Registers a subscriber. logView and changeView turn the records into
+     * the objects sent as event data.
+     */
+    public SseEmitter subscribe(Filter filter, Function<CommandLog, ?> logView, Function<FileChange, ?> changeView) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(filter, emitter, logView, changeView, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        // Sends the response headers, so the client sees the stream as open
+        subscriber.offer(SseEmitter.event().comment("connected"));
+        Thread.ofVirtual().name("live-stream-sender").start(subscriber::send);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommandLogsSaved(CommandLogsSavedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.filter.logs()) {
+                List<?> logs = event.getLogs().stream()
+                    .filter(subscriber.filter::matches)
+                    .map(subscriber.logView)
+                    .toList();
+                if (!logs.isEmpty()) {
+                    subscriber.offer(SseEmitter.event().name(LOGS).data(logs, MediaType.APPLICATION_JSON));
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileChangesRecorded(FileChangesRecordedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.filter.changes()) {
+                List<?> changes = event.getChanges().stream()
+                    .filter(subscriber.filter::matches)
+                    .map(subscriber.changeView)
+                    .toList();
+                if (!changes.isEmpty()) {
+                    subscriber.offer(SseEmitter.event().name(CHANGES).data(changes, MediaType.APPLICATION_JSON));
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("ping")));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(Subscriber::close);
+    }
+
+    /**
+     * What a subscriber receives. Each condition applies to the records that
+     * have the field: user to logs, event type to changes, and directory (a
+     * case-insensitive substring, like the /api/logs filter) to both. Null
+     * conditions match everything.
+     *
+     * @param logs    whether to send command logs
+     * @param changes whether to send file changes
+     */
+    public record Filter(boolean logs, boolean changes, String user, String directory, String eventType) {
+
+        boolean matches(CommandLog log) {
+            return (user == null || user.equals(log.getUser()))
+                && directoryMatches(log.getDirectory());
+        }
+
+        boolean matches(FileChange change) {
+            return (eventType == null || eventType.equals(change.getEventType()))
+                && directoryMatches(change.getDirectory());
+        }
+
+        private boolean directoryMatches(String value) {
+            return directory == null
+                || value != null && value.toLowerCase(Locale.ROOT).contains(directory.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final class Subscriber {
+        final Filter filter;
+        final SseEmitter emitter;
+        final Function<CommandLog, ?> logView;
+        final Function<FileChange, ?> changeView;
+        final BlockingQueue<SseEventBuilder> queue;
+        volatile boolean closed;
+
+        Subscriber(Filter filter, SseEmitter emitter, Function<CommandLog, ?> logView,
+                   Function<FileChange, ?> changeView, BlockingQueue<SseEventBuilder> queue) {
+            this.filter = filter;
+            this.emitter = emitter;
+            this.logView = logView;
+            this.changeView = changeView;
+            this.queue = queue;
+        }
+
+        /**
+         * Queues the event, or disconnects the subscriber when its queue is full.
+         */
+        synchronized void offer(SseEventBuilder event) {
+            if (!closed && !queue.offer(event)) {
+                System.out.println("Disconnecting slow stream subscriber (" + queue.size() + " events pending)");
+                close();
+            }
+        }
+
+        synchronized void close() {
+            if (!closed) {
+                closed = true;
+                subscribers.remove(this);
+                queue.clear();
+                queue.offer(CLOSE);
+            }
+        }
+
+        /**
+         * Sender thread: writes the queued events until the subscriber is closed.
+         */
+        void send() {
+            try {
+                while (true) {
+                    SseEventBuilder event = queue.take();
+                    if (closed) {
+                        emitter.complete();
+                        break;
+                    }
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the request already ended; the
+                // container completes the request itself
+                close();
+            } catch (InterruptedException e) {
+                close();
+                emitter.complete();
+            }
+        }
+    }
+}
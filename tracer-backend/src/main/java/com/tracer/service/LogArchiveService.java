@@ -0,0 +1,612 @@
+package com.tracer.service;
+
+import com.tracer.entity.CommandLog;
+import com.tracer.repository.CommandLogRepository;
+import com.tracer.repository.CommandLogSummary;
+import com.tracer.repository.KeysetCursor;
+import com.tracer.repository.LogSegmentRepository;
+import com.tracer.repository.LogSegmentRepository.SegmentFile;
+import com.tracer.util.DedupKey;
+import com.tracer.util.LogSegmentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Archive of old command logs in immutable columnar segment files (see
+ * {@link LogSegmentRepository}), so command_logs and its indexes only hold
+ * recent history.
+ *
+ * Every archive.interval-ms, {@link #archive()} moves the logs dated more
+ * than archive.after-days days ago out of command_logs, one segment per day.
+ * The daily rollups keep counting archived logs, so the by-date and stats
+ * endpoints are unchanged; list queries read the segments through a
+ * {@link Snapshot} where their date range reaches into the archive.
+ *
+ * A day's segment is moved into place and published while the transaction
+ * deleting its rows commits, under the write lock that every Snapshot holds
+ * in read mode until its table reads have started. A query therefore finds
+ * each log either in command_logs or in the archive, never in both or
+ * neither. If the process dies between the two, the segment's rows are
+ * deleted from command_logs by the next run.
+ *
+ * The row with the highest id always stays in command_logs: SQLite assigns
+ * new ids above the highest one in the table, and they must not repeat the
+ * ids of archived logs.
+ */
+@Service
+public class LogArchiveService {
+
+    // Same order as the list endpoints
+    private static final Comparator<CommandLogSummary> NEWEST_FIRST =
+        Comparator.comparing(CommandLogSummary::timestamp).thenComparing(CommandLogSummary::id).reversed();
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    // Ids per DELETE statement, well below SQLite's variable limit
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    private final LogSegmentRepository logSegmentRepository;
+    private final CommandLogRepository commandLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeSequence changeSequence;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Oldest date first; replaced, never modified
+    private volatile List<SegmentFile> segments;
+
+    @Value("${archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${archive.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    public LogArchiveService(LogSegmentRepository logSegmentRepository, CommandLogRepository commandLogRepository,
+                             TransactionTemplate transactionTemplate, ChangeSequence changeSequence) {
+        this.logSegmentRepository = logSegmentRepository;
+        this.commandLogRepository = commandLogRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.changeSequence = changeSequence;
+        this.segments = List.copyOf(logSegmentRepository.findAll());
+    }
+
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}", initialDelayString = "${archive.initial-delay-ms:60000}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int moved = archive();
+            if (moved > 0) {
+                System.out.println("Archived " + moved + " command logs");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error archiving command logs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the logs dated more than archive.after-days days ago from
+     * command_logs into segments, each day in its own transaction.
+     *
+     * @return the number of logs moved
+     */
+    public synchronized int archive() {
+        String cutoff = LocalDate.now().minusDays(afterDays).toString();
+        Integer maxId = commandLogRepository.findMaxId();
+        int moved = 0;
+        for (String date : commandLogRepository.findDatesBefore(cutoff)) {
+            moved += archiveDay(LocalDate.parse(date), maxId);
+        }
+        return moved;
+    }
+
+    private int archiveDay(LocalDate date, Integer maxId) {
+        Set<Integer> archivedIds = new HashSet<>();
+        int generation = 0;
+        for (SegmentFile segment : segments) {
+            if (segment.date().equals(date)) {
+                LogSegmentCodec.Segment decoded = logSegmentRepository.read(segment);
+                for (int row = 0; row < decoded.rows(); row++) {
+                    archivedIds.add(decoded.id(row));
+                }
+                generation = Math.max(generation, segment.generation() + 1);
+            }
+        }
+
+        List<CommandLog> logs = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (CommandLog log : commandLogRepository.findByDateOrderByTimestampAscIdAsc(date.toString())) {
+            if (log.getId().equals(maxId)) {
+                continue;
+            }
+            ids.add(log.getId());
+            // Already in a segment whose rows were not deleted (see the class comment)
+            if (!archivedIds.contains(log.getId())) {
+                logs.add(log);
+            }
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Path temporary = logs.isEmpty() ? null : logSegmentRepository.writeTemporary(date, LogSegmentCodec.encode(logs));
+        int segmentGeneration = generation;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < ids.size(); from += DELETE_BATCH_SIZE) {
+                    commandLogRepository.deleteAllByIdInBatch(ids.subList(from, Math.min(from + DELETE_BATCH_SIZE, ids.size())));
+                }
+                changeSequence.advanceAfterCommit(ChangeSequence.LOGS);
+                if (temporary != null) {
+                    TransactionSynchronizationManager.registerSynchronization(
+                        new Publication(temporary, date, segmentGeneration));
+                }
+            });
+        } finally {
+            if (temporary != null) {
+                // Left over when the transaction failed before installing it
+                logSegmentRepository.delete(temporary);
+            }
+        }
+        return logs.size();
+    }
+
+    /**
+     * Installs and publishes a day's new segment as its rows' deletion
+     * commits, holding the write lock from just before the commit until the
+     * segment is published (or removed again when the commit failed).
+     */
+    private class Publication implements TransactionSynchronization {
+        private final Path temporary;
+        private final LocalDate date;
+        private final int generation;
+        private SegmentFile installed;
+
+        Publication(Path temporary, LocalDate date, int generation) {
+            this.temporary = temporary;
+            this.date = date;
+            this.generation = generation;
+        }
+
+        /**
+         * Runs while the transaction holds the single write connection, so it
+         * waits at most archive.lock-timeout-ms for the queries holding a
+         * Snapshot; after that the transaction rolls back and the day stays
+         * in command_logs until the next run.
+         */
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            boolean locked;
+            try {
+                locked = lock.writeLock().tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                locked = false;
+            }
+            if (!locked) {
+                throw new IllegalStateException("Timed out waiting for queries on the archive, " + date + " not archived");
+            }
+            installed = logSegmentRepository.install(temporary, date, generation);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (installed != null && status == STATUS_COMMITTED) {
+                    List<SegmentFile> updated = new ArrayList<>(segments);
+                    updated.add(installed);
+                    updated.sort(Comparator.comparing(SegmentFile::date).thenComparing(SegmentFile::generation));
+                    segments = List.copyOf(updated);
+                } else if (installed != null) {
+                    logSegmentRepository.delete(installed.path());
+                }
+            } finally {
+                if (lock.isWriteLockedByCurrentThread()) {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a consistent view of the archive for a query that also reads
+     * command_logs. Open it before the first table read of the query's
+     * transaction and close it once the table reads have started (or at the
+     * end of the query), on the same thread; the archive can still be read
+     * after closing. While it is open, the archiver cannot publish a segment
+     * (and holds the write connection waiting), so a long query should start
+     * its read with a trivial statement and close the snapshot before the
+     * query itself, as exports do.
+     */
+    public Snapshot snapshot() {
+        lock.readLock().lock();
+        return new Snapshot(segments);
+    }
+
+    /**
+     * Filters of a query over archived logs. Bounds are inclusive and null
+     * values are ignored.
+     *
+     * @param directory substring of the directory, case-insensitive like LIKE
+     * @param after     only logs after this cursor in newest-first order
+     * @param text      further condition on the log, e.g. a search
+     */
+    public record Filter(LocalDateTime start, LocalDateTime end, String user, String directory,
+                         KeysetCursor after, Predicate<CommandLogSummary> text) {
+
+        public Filter(LocalDateTime start, LocalDateTime end, String user, String directory,
+                      Predicate<CommandLogSummary> text) {
+            this(start, end, user, directory, null, text);
+        }
+
+        public Filter after(KeysetCursor cursor) {
+            return new Filter(start, end, user, directory, cursor, text);
+        }
+
+        private boolean overlaps(LogSegmentCodec.Header header) {
+            return (start == null || !header.lastTimestamp().isBefore(start))
+                && (end == null || !header.firstTimestamp().isAfter(end))
+                && (after == null || !header.firstTimestamp().isAfter(after.getTimestamp()));
+        }
+
+        private boolean covers(LogSegmentCodec.Header header) {
+            return user == null && directory == null && after == null && text == null
+                && (start == null || !header.firstTimestamp().isBefore(start))
+                && (end == null || !header.lastTimestamp().isAfter(end));
+        }
+    }
+
+    /**
+     * The segments published when it was taken. Closing it only releases the
+     * lock; its methods keep reading those segments.
+     */
+    public final class Snapshot implements AutoCloseable {
+        private final List<SegmentFile> segments;
+        private boolean closed;
+
+        private Snapshot(List<SegmentFile> segments) {
+            this.segments = segments;
+        }
+
+        /**
+         * @return whether any archived log lies between start and end (inclusive, null = unbounded)
+         */
+        public boolean reaches(LocalDateTime start, LocalDateTime end) {
+            Filter range = new Filter(start, end, null, null, null);
+            return segments.stream().anyMatch(segment -> range.overlaps(segment.header()));
+        }
+
+        public long count(Filter filter) {
+            long count = 0;
+            for (SegmentFile segment : segments) {
+                if (filter.covers(segment.header())) {
+                    count += segment.header().rows();
+                } else if (filter.overlaps(segment.header())) {
+                    count += countMatches(segment, filter);
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return the newest archived timestamp, or null when the archive is empty
+         */
+        public LocalDateTime latestTimestamp() {
+            return segments.stream().map(segment -> segment.header().lastTimestamp())
+                .max(Comparator.naturalOrder()).orElse(null);
+        }
+
+        /**
+         * @return the matching logs in the order of the list endpoints,
+         *         decoded one day at a time as the iterator advances
+         */
+        public Iterator<CommandLogSummary> newestFirst(Filter filter) {
+            return new DayIterator(segments, filter, true, 0);
+        }
+
+        /**
+         * As {@link #newestFirst(Filter)}, without the first skip matching
+         * logs. Days that lie entirely before the first returned log are only
+         * counted, from the segment headers where the filter covers them.
+         */
+        public Iterator<CommandLogSummary> newestFirst(Filter filter, long skip) {
+            return new DayIterator(segments, filter, true, skip);
+        }
+
+        /**
+         * @return the matching logs oldest first (by timestamp, then id),
+         *         decoded one day at a time as the iterator advances
+         */
+        public Iterator<CommandLogSummary> oldestFirst(Filter filter) {
+            return new DayIterator(segments, filter, false, 0);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private class DayIterator implements Iterator<CommandLogSummary> {
+        private final TreeMap<LocalDate, List<SegmentFile>> days = new TreeMap<>();
+        private final Filter filter;
+        private final boolean newestFirst;
+        private Iterator<CommandLogSummary> day = List.<CommandLogSummary>of().iterator();
+        private long skip;
+
+        DayIterator(List<SegmentFile> segments, Filter filter, boolean newestFirst, long skip) {
+            for (SegmentFile segment : segments) {
+                if (filter.overlaps(segment.header())) {
+                    days.computeIfAbsent(segment.date(), date -> new ArrayList<>()).add(segment);
+                }
+            }
+            this.filter = filter;
+            this.newestFirst = newestFirst;
+            this.skip = skip;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!day.hasNext() && !days.isEmpty()) {
+                Map.Entry<LocalDate, List<SegmentFile>> next = newestFirst ? days.pollLastEntry() : days.pollFirstEntry();
+                if (skip > 0) {
+                    long count = 0;
+                    for (SegmentFile segment : next.getValue()) {
+                        count += filter.covers(segment.header()) ? segment.header().rows() : countMatches(segment, filter);
+                    }
+                    if (count <= skip) {
+                        skip -= count;
+                        continue;
+                    }
+                }
+                List<CommandLogSummary> logs = new ArrayList<>();
+                for (SegmentFile segment : next.getValue()) {
+                    logs.addAll(matches(segment, filter));
+                }
+                logs.sort(newestFirst ? NEWEST_FIRST : NEWEST_FIRST.reversed());
+                day = logs.listIterator((int) skip);
+                skip = 0;
+            }
+            return day.hasNext();
+        }
+
+        @Override
+        public CommandLogSummary next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return day.next();
+        }
+    }
+
+    /**
+     * @return the segment's logs passing the filter, oldest first
+     */
+    private List<CommandLogSummary> matches(SegmentFile file, Filter filter) {
+        LogSegmentCodec.Segment segment = logSegmentRepository.read(file);
+        List<CommandLogSummary> logs = new ArrayList<>();
+        String date = file.date().toString();
+        for (int row : candidates(segment, filter)) {
+            CommandLogSummary log = summary(segment, row, date);
+            if (filter.text() == null || filter.text().test(log)) {
+                logs.add(log);
+            }
+        }
+        return logs;
+    }
+
+    private int countMatches(SegmentFile file, Filter filter) {
+        if (filter.text() != null) {
+            return matches(file, filter).size();
+        }
+        // Without a text condition the command column is not inflated
+        return candidates(logSegmentRepository.read(file), filter).length;
+    }
+
+    /**
+     * @return the rows passing the filter's conditions other than text
+     */
+    private static int[] candidates(LogSegmentCodec.Segment segment, Filter filter) {
+        // Conditions on user and directory are evaluated once per distinct value
+        boolean[] users = dictionaryMatches(segment.users(), filter.user() == null ? null : filter.user()::equals);
+        String directory = filter.directory() != null ? filter.directory().toLowerCase(Locale.ROOT) : null;
+        boolean[] directories = dictionaryMatches(segment.directories(), directory == null ? null
+            : value -> value.toLowerCase(Locale.ROOT).contains(directory));
+        if (users == null || directories == null) {
+            return new int[0];
+        }
+        KeysetCursor after = filter.after();
+        int[] rows = new int[segment.rows()];
+        int count = 0;
+        for (int row = 0; row < segment.rows(); row++) {
+            LocalDateTime timestamp = segment.timestamp(row);
+            if ((filter.start() != null && timestamp.isBefore(filter.start()))
+                    || (filter.end() != null && timestamp.isAfter(filter.end()))
+                    || !users[segment.userCode(row)] || !directories[segment.directoryCode(row)]) {
+                continue;
+            }
+            if (after != null && (timestamp.isAfter(after.getTimestamp())
+                    || (timestamp.isEqual(after.getTimestamp()) && segment.id(row) >= after.getId()))) {
+                continue;
+            }
+            rows[count++] = row;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * @return per dictionary entry whether it passes the condition (all true
+     *         without one), or null when none does
+     */
+    private static boolean[] dictionaryMatches(String[] dictionary, Predicate<String> condition) {
+        boolean[] matches = new boolean[dictionary.length];
+        boolean any = false;
+        for (int i = 0; i < dictionary.length; i++) {
+            matches[i] = condition == null || condition.test(dictionary[i]);
+            any |= matches[i];
+        }
+        return any ? matches : null;
+    }
+
+    private static CommandLogSummary summary(LogSegmentCodec.Segment segment, int row, String date) {
+        LocalDateTime timestamp = segment.timestamp(row);
+        return new CommandLogSummary(segment.id(row), timestamp, date, timestamp.format(TIME_FORMAT),
+            segment.user(row), segment.directory(row), segment.command(row));
+    }
+
+    /**
+     * @return the archived log with all its columns, or null if there is none with this id
+     */
+    public CommandLog findLog(Integer id) {
+        for (SegmentFile file : segments) {
+            if (id < file.header().minId() || id > file.header().maxId()) {
+                continue;
+            }
+            LogSegmentCodec.Segment segment = logSegmentRepository.read(file);
+            for (int row = 0; row < segment.rows(); row++) {
+                if (segment.id(row) == id) {
+                    CommandLogSummary summary = summary(segment, row, file.date().toString());
+                    return new CommandLog(summary.id(), summary.timestamp(), summary.date(), summary.time(),
+                        summary.user(), summary.directory(), summary.command(), segment.rawLine(row),
+                        DedupKey.of(summary.timestamp(), summary.user(), summary.command()));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Dedup check for ingestion: which of the logs (not stored yet) are
+     * already archived, as the same timestamp, user and command.
+     *
+     * @return the dedup keys of those logs
+     */
+    public Set<String> findArchivedDedupKeys(Collection<CommandLog> logs) {
+        Map<LocalDate, List<SegmentFile>> byDate = new HashMap<>();
+        for (SegmentFile segment : segments) {
+            byDate.computeIfAbsent(segment.date(), date -> new ArrayList<>()).add(segment);
+        }
+        Set<String> archived = new HashSet<>();
+        if (byDate.isEmpty()) {
+            return archived;
+        }
+        for (CommandLog log : logs) {
+            for (SegmentFile file : byDate.getOrDefault(LocalDate.parse(log.getDate()), List.of())) {
+                if (contains(logSegmentRepository.read(file), log)) {
+                    archived.add(log.getDedupKey());
+                    break;
+                }
+            }
+        }
+        return archived;
+    }
+
+    private static boolean contains(LogSegmentCodec.Segment segment, CommandLog log) {
+        // Rows are sorted by timestamp: find the first one at the log's timestamp
+        int low = 0;
+        int high = segment.rows();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (segment.timestamp(middle).isBefore(log.getTimestamp())) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int row = low; row < segment.rows() && segment.timestamp(row).isEqual(log.getTimestamp()); row++) {
+            if (segment.user(row).equals(log.getUser()) && segment.command(row).equals(log.getCommand())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Passes the logs of each segment to action, for rebuilding the rollups.
+     */
+    public void forEachSegment(Consumer<List<CommandLogSummary>> action) {
+        for (SegmentFile segment : segments) {
+            action.accept(matches(segment, new Filter(null, null, null, null, null)));
+        }
+    }
+
+    public long countLogs() {
+        return segments.stream().mapToLong(segment -> segment.header().rows()).sum();
+    }
+
+    /**
+     * @return the oldest archived timestamp, or null when the archive is empty
+     */
+    public LocalDateTime findEarliestTimestamp() {
+        return segments.stream().map(segment -> segment.header().firstTimestamp())
+            .min(Comparator.naturalOrder()).orElse(null);
+    }
+
+    /**
+     * @return the newest archived timestamp, or null when the archive is empty
+     */
+    public LocalDateTime findLatestTimestamp() {
+        return segments.stream().map(segment -> segment.header().lastTimestamp())
+            .max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    public Set<String> findDistinctUsers() {
+        Set<String> users = new TreeSet<>();
+        for (SegmentFile segment : segments) {
+            users.addAll(segment.dictionaries().users());
+        }
+        return users;
+    }
+
+    public Set<String> findDistinctDirectories() {
+        Set<String> directories = new TreeSet<>();
+        for (SegmentFile segment : segments) {
+            directories.addAll(segment.dictionaries().directories());
+        }
+        return directories;
+    }
+
+    public Map<String, Object> getStats() {
+        List<SegmentFile> current = segments;
+        Map<String, Object> result = new HashMap<>();
+        result.put("enabled", enabled);
+        result.put("after_days", afterDays);
+        result.put("segments", current.size());
+        result.put("logs", current.stream().mapToLong(segment -> segment.header().rows()).sum());
+        result.put("bytes", current.stream().mapToLong(SegmentFile::size).sum());
+        result.put("first_date", current.isEmpty() ? null : current.get(0).date().toString());
+        result.put("last_date", current.isEmpty() ? null : current.get(current.size() - 1).date().toString());
+        return result;
+    }
+}
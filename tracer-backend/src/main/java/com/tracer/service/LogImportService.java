@@ -0,0 +1,366 @@
+package com.tracer.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports archived command history files (e.g. rotated, possibly gzipped
+ * .command_log.jsonl* files from other hosts) as background jobs.
+ *
+ * Files can be uploaded or read from a local directory. Uploads are copied
+ * to a temporary directory during the request and deleted when their job
+ * ends. Jobs run one at a time, in the order they were submitted; their
+ * progress is kept in memory for the last command.import.max-finished-jobs
+ * finished jobs.
+ *
+ * Each file may be plain or gzip-compressed (detected from its content) and
+ * may mix text and JSONL lines. Lines already stored are skipped through the
+ * dedup key, so importing the same archive twice inserts nothing new.
+ */
+@Service
+@RequiredArgsConstructor
+public class LogImportService {
+
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+
+    private final CommandLogService commandLogService;
+
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${command.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${command.import.max-finished-jobs:50}")
+    private int maxFinishedJobs;
+
+    // Comma-separated directories that local imports may read; none by default
+    @Value("${command.import.allowed-roots:}")
+    private String allowedRoots;
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        synchronized (jobs) {
+            // Uploads of jobs that never ran
+            jobs.values().stream()
+                .filter(job -> job.status.equals("queued"))
+                .forEach(ImportJob::deleteUploads);
+        }
+    }
+
+    /**
+     * Starts a job importing the uploaded files.
+     */
+    public Map<String, Object> importUploads(List<MultipartFile> uploads) throws IOException {
+        if (uploads == null || uploads.isEmpty()) {
+            throw new IllegalArgumentException("No files uploaded");
+        }
+        Path directory = Files.createTempDirectory("tracer-import-");
+        try {
+            List<ImportFile> files = new ArrayList<>();
+            for (MultipartFile upload : uploads) {
+                String name = upload.getOriginalFilename() != null && !upload.getOriginalFilename().isBlank()
+                    ? upload.getOriginalFilename() : "upload";
+                Path target = directory.resolve(files.size() + ".upload");
+                upload.transferTo(target);
+                files.add(new ImportFile(target, name, Files.size(target)));
+            }
+            return submit("upload", files, directory);
+        } catch (IOException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(directory);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a job importing the stream, a single file sent as the request body.
+     */
+    public Map<String, Object> importStream(InputStream in, String name) throws IOException {
+        Path directory = Files.createTempDirectory("tracer-import-");
+        try {
+            Path target = directory.resolve("0.upload");
+            Files.copy(in, target);
+            if (Files.size(target) == 0) {
+                throw new IllegalArgumentException("Request body is empty");
+            }
+            String fileName = name != null && !name.isBlank() ? name : "upload";
+            return submit("upload", List.of(new ImportFile(target, fileName, Files.size(target))), directory);
+        } catch (IOException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(directory);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a job importing a local file, or the files in a directory (and
+     * its subdirectories) whose path relative to it matches glob, e.g.
+     * {@code **.command_log.jsonl*}; without a glob every file is imported.
+     *
+     * The path must lie in one of command.import.allowed-roots. Symbolic
+     * links below it are not followed, and files that cannot be read are
+     * skipped.
+     */
+    public Map<String, Object> importLocal(String path, String glob) throws IOException {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("path is required");
+        }
+        Path root = Paths.get(path).toAbsolutePath().normalize();
+        // Checked before anything is read, so other paths cannot even be probed
+        if (!isAllowed(root)) {
+            throw new IllegalArgumentException("Path is not in command.import.allowed-roots: " + root);
+        }
+        if (!Files.exists(root)) {
+            throw new IllegalArgumentException("Path not found: " + root);
+        }
+        // Again with links resolved, which may lead elsewhere
+        if (!isAllowed(root.toRealPath())) {
+            throw new IllegalArgumentException("Path is not in command.import.allowed-roots: " + root);
+        }
+        List<ImportFile> files = new ArrayList<>();
+        if (Files.isRegularFile(root)) {
+            files.add(new ImportFile(root, root.toString(), Files.size(root)));
+        } else {
+            PathMatcher matcher = glob != null && !glob.isBlank()
+                ? FileSystems.getDefault().getPathMatcher("glob:" + glob) : null;
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    // Links are not followed, so their attributes are the link's own
+                    if (attrs.isRegularFile() && (matcher == null || matcher.matches(root.relativize(file)))) {
+                        files.add(new ImportFile(file, file.toString(), attrs.size()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    System.err.println("Skipping " + file + " in import: " + e.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("No files in " + root + (matcher != null ? " match " + glob : ""));
+            }
+            files.sort(Comparator.comparing(ImportFile::path));
+        }
+        return submit(root.toString(), files, null);
+    }
+
+    private boolean isAllowed(Path path) throws IOException {
+        for (String allowedRoot : allowedRoots.split(",")) {
+            if (allowedRoot.isBlank()) {
+                continue;
+            }
+            Path allowed = Paths.get(allowedRoot.trim()).toAbsolutePath().normalize();
+            if (path.startsWith(allowed) || (Files.exists(allowed) && path.startsWith(allowed.toRealPath()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the job's progress, or null if there is no such job
+     */
+    public Map<String, Object> getJob(String jobId) {
+        synchronized (jobs) {
+            ImportJob job = jobs.get(jobId);
+            return job != null ? job.toMap() : null;
+        }
+    }
+
+    /**
+     * @return all kept jobs, newest first
+     */
+    public List<Map<String, Object>> getJobs() {
+        synchronized (jobs) {
+            List<Map<String, Object>> result = new ArrayList<>();
+            jobs.values().forEach(job -> result.add(job.toMap()));
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    private Map<String, Object> submit(String source, List<ImportFile> files, Path uploadDirectory) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), source, files, uploadDirectory);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            evictFinishedJobs();
+        }
+        executor.execute(() -> run(job));
+        return job.toMap();
+    }
+
+    private void evictFinishedJobs() {
+        long finished = jobs.values().stream().filter(ImportJob::isFinished).count();
+        var iterator = jobs.values().iterator();
+        while (finished > maxFinishedJobs && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    private void run(ImportJob job) {
+        job.startedAt = LocalDateTime.now();
+        job.status = "running";
+        try {
+            for (ImportFile file : job.files) {
+                job.currentFile = file.name();
+                try (InputStream in = open(file.path(), job.bytesRead)) {
+                    commandLogService.importLogs(in, file.name(), batchSize, job.counts);
+                } catch (IOException | RuntimeException e) {
+                    // Batches stored before the error stay; carry on with the other files
+                    job.errors.add(file.name() + ": " + e.getMessage());
+                    System.err.println("Error importing " + file.name() + ": " + e.getMessage());
+                }
+                job.filesDone++;
+                if (Thread.currentThread().isInterrupted()) {
+                    job.errors.add("Import interrupted");
+                    job.status = "failed";
+                    return;
+                }
+            }
+            job.status = job.errors.size() == job.files.size() ? "failed" : "completed";
+        } finally {
+            job.currentFile = null;
+            job.finishedAt = LocalDateTime.now();
+            job.deleteUploads();
+            System.out.println("Import " + job.id + " " + job.status + ": " + job.counts.getInserted()
+                + " inserted, " + job.counts.getSkipped() + " skipped, " + job.counts.getFailed() + " failed");
+        }
+    }
+
+    /**
+     * Opens the file for reading, decompressing it if it is gzipped, and
+     * adds the (compressed) bytes read to bytesRead.
+     */
+    private static InputStream open(Path path, AtomicLong bytesRead) throws IOException {
+        InputStream counted = new FilterInputStream(Files.newInputStream(path)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesRead.addAndGet(read);
+                }
+                return read;
+            }
+        };
+        BufferedInputStream in = new BufferedInputStream(counted, 64 * 1024);
+        in.mark(GZIP_MAGIC.length);
+        byte[] head = in.readNBytes(GZIP_MAGIC.length);
+        in.reset();
+        if (head.length == GZIP_MAGIC.length && head[0] == GZIP_MAGIC[0] && head[1] == GZIP_MAGIC[1]) {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+
+    private record ImportFile(Path path, String name, long size) {
+    }
+
+    private static class ImportJob {
+        final String id;
+        final String source;
+        final List<ImportFile> files;
+        final Path uploadDirectory;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final IngestCounts counts = new IngestCounts();
+        final AtomicLong bytesRead = new AtomicLong();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile String status = "queued";
+        volatile String currentFile;
+        volatile int filesDone;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+
+        ImportJob(String id, String source, List<ImportFile> files, Path uploadDirectory) {
+            this.id = id;
+            this.source = source;
+            this.files = files;
+            this.uploadDirectory = uploadDirectory;
+        }
+
+        boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        void deleteUploads() {
+            if (uploadDirectory != null) {
+                try {
+                    FileSystemUtils.deleteRecursively(uploadDirectory);
+                } catch (IOException e) {
+                    System.err.println("Error deleting " + uploadDirectory + ": " + e.getMessage());
+                }
+            }
+        }
+
+        Map<String, Object> toMap() {
+            long bytesTotal = files.stream().mapToLong(ImportFile::size).sum();
+            Map<String, Object> result = new HashMap<>();
+            result.put("job_id", id);
+            result.put("status", status);
+            result.put("source", source);
+            result.put("files", files.stream().map(ImportFile::name).toList());
+            result.put("files_total", files.size());
+            result.put("files_done", filesDone);
+            result.put("current_file", currentFile);
+            result.put("bytes_total", bytesTotal);
+            result.put("bytes_read", bytesRead.get());
+            result.put("progress", bytesTotal > 0 ? Math.min(1.0, (double) bytesRead.get() / bytesTotal) : (isFinished() ? 1.0 : 0.0));
+            result.put("inserted", counts.getInserted());
+            result.put("skipped", counts.getSkipped());
+            result.put("failed", counts.getFailed());
+            result.put("errors", List.copyOf(errors));
+            result.put("created_at", createdAt);
+            result.put("started_at", startedAt);
+            result.put("finished_at", finishedAt);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.tracer.service;
+
+import com.tracer.entity.CommandLog;
+import com.tracer.util.CommandLineParser;
+import com.tracer.util.DedupKey;
+import com.tracer.util.FileChunkReader;
+import com.tracer.util.LineChunkReader;
+import com.tracer.util.LineChunkReader.Chunk;
+import com.tracer.util.StreamChunkReader;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Reads and parses a command history file or stream on several cores,
+ * handing the parsed logs to a single writer in input order.
+ *
+ * The input is split into line-aligned chunks (memory-mapped for large
+ * files) by a reader thread, the chunks are parsed by a pool of
+ * command.ingest.parser-threads workers, and the calling thread receives
+ * each chunk's logs in order, so it alone talks to the database. At most
+ * command.ingest.queue-capacity chunks are read ahead of the writer; the
+ * reader blocks once that many are waiting. A region no larger than one
+ * chunk, the usual case when tailing, is parsed on the calling thread.
+ */
+@Component
+public class LogIngestionPipeline {
+
+    private static final ParsedChunk END = new ParsedChunk(-1, List.of(), 0);
+
+    private final CommandLineParser commandLineParser;
+    private final int chunkSize;
+    private final int queueCapacity;
+    private final ExecutorService parsers;
+
+    public LogIngestionPipeline(CommandLineParser commandLineParser,
+                                @Value("${command.ingest.parser-threads:0}") int parserThreads,
+                                @Value("${command.ingest.chunk-size:4194304}") int chunkSize,
+                                @Value("${command.ingest.queue-capacity:0}") int queueCapacity) {
+        int threads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        this.commandLineParser = commandLineParser;
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity > 0 ? queueCapacity : 2 * threads;
+        this.parsers = Executors.newFixedThreadPool(threads, daemonThreads("log-parser-"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        parsers.shutdownNow();
+    }
+
+    /**
+     * Parses the complete lines from startOffset to the current end of the
+     * file and passes each chunk to writer, in file order and on the calling
+     * thread.
+     *
+     * When writer throws, reading stops and the exception is rethrown.
+     *
+     * @return the offset just past the last line passed to writer
+     */
+    public long process(Path path, long startOffset, Consumer<ParsedChunk> writer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long endOffset = channel.size();
+            if (endOffset - startOffset <= chunkSize) {
+                Chunk chunk = new FileChunkReader(channel, startOffset, endOffset, chunkSize, false).next();
+                if (chunk == null) {
+                    return startOffset;
+                }
+                writer.accept(parse(chunk));
+                return chunk.endOffset();
+            }
+            FileChunkReader chunks = new FileChunkReader(channel, startOffset, endOffset, chunkSize, true);
+            long offset = run(chunks, writer, path.toString());
+            return offset != -1 ? offset : startOffset;
+        }
+    }
+
+    /**
+     * Parses every line of the stream, including an unterminated last one,
+     * and passes each chunk to writer, in order and on the calling thread.
+     *
+     * When writer throws, reading stops and the exception is rethrown.
+     */
+    public void process(InputStream in, String name, Consumer<ParsedChunk> writer) throws IOException {
+        run(new StreamChunkReader(in, chunkSize), writer, name);
+    }
+
+    /**
+     * @return the end offset of the last chunk, or -1 if there was none
+     */
+    private long run(LineChunkReader chunks, Consumer<ParsedChunk> writer, String name) throws IOException {
+        BlockingQueue<Future<ParsedChunk>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Thread reader = Thread.ofVirtual().name("log-chunk-reader").start(() -> read(chunks, queue));
+        long offset = -1;
+        try {
+            ParsedChunk parsed;
+            while ((parsed = queue.take().get()) != END) {
+                writer.accept(parsed);
+                offset = parsed.endOffset();
+            }
+            return offset;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while ingesting " + name);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            // e.g. the InternalError of a mapped chunk whose file was truncated
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Error ingesting " + name, e.getCause());
+        } finally {
+            reader.interrupt();
+            joinUninterruptibly(reader);
+            queue.forEach(pending -> pending.cancel(true));
+        }
+    }
+
+    private void read(LineChunkReader chunks, BlockingQueue<Future<ParsedChunk>> queue) {
+        try {
+            Chunk chunk;
+            while ((chunk = chunks.next()) != null) {
+                Chunk next = chunk;
+                queue.put(parsers.submit(() -> parse(next)));
+            }
+            queue.put(CompletableFuture.completedFuture(END));
+        } catch (InterruptedException e) {
+            // the writer stopped
+        } catch (Throwable e) {
+            // Hand any failure to the writer once it has taken the chunks before it;
+            // without it, the writer would wait for the end forever
+            try {
+                queue.put(CompletableFuture.failedFuture(e));
+            } catch (InterruptedException ignored) {
+                // the writer stopped
+            }
+        }
+    }
+
+    private ParsedChunk parse(Chunk chunk) {
+        List<CommandLog> logs = new ArrayList<>();
+        int[] failed = {0};
+        chunk.forEachLine((lineNumber, line) -> {
+            try {
+                CommandLineParser.ParsedCommand parsed = commandLineParser.parseCommandLine(line);
+                if (parsed != null) {
+                    CommandLog log = new CommandLog();
+                    log.setTimestamp(parsed.getTimestamp());
+                    log.setDate(parsed.getDate());
+                    log.setTime(parsed.getTime());
+                    log.setUser(parsed.getUser());
+                    log.setDirectory(parsed.getDirectory());
+                    log.setCommand(parsed.getCommand());
+                    log.setRawLine(parsed.getRawLine());
+                    log.setDedupKey(DedupKey.of(parsed.getTimestamp(), parsed.getUser(), parsed.getCommand()));
+                    logs.add(log);
+                } else if (!line.trim().isEmpty()) {
+                    failed[0]++;
+                }
+            } catch (Exception e) {
+                failed[0]++;
+                System.err.println("Error parsing line " + lineNumber + " after offset " + chunk.startOffset() + ": " + e.getMessage());
+            }
+        });
+        return new ParsedChunk(chunk.endOffset(), logs, failed[0]);
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @param endOffset   position just past the chunk's last line
+     * @param logs        the chunk's parsed lines, in order
+     * @param failedLines non-blank lines that could not be parsed
+     */
+    public record ParsedChunk(long endOffset, List<CommandLog> logs, int failedLines) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.tracer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-memory cache for the dashboard reads (filter options, stats,
+ * by-date totals), which the frontend repeats on every page load.
+ *
+ * Each entry belongs to an area, {@link ChangeSequence#LOGS} or
+ * {@link ChangeSequence#CHANGES}, and is stored with the area's
+ * {@link ChangeSequence} at the time the value was loaded. Once the sequence
+ * has moved on, the entry is never returned again, even when its load raced
+ * the write. Entries also expire after cache.query.ttl-ms, and beyond
+ * cache.query.max-entries the least recently used entry is evicted.
+ *
+ * Cached values are shared between callers and must not be modified.
+ */
+@Service
+public class QueryCache {
+
+    private final ChangeSequence changeSequence;
+
+    // Access order, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Guarded by entries
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    @Value("${cache.query.max-entries:256}")
+    private int maxEntries;
+
+    @Value("${cache.query.ttl-ms:300000}")
+    private long ttlMs;
+
+    public QueryCache(ChangeSequence changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    /**
+     * Returns the cached value of key in area, loading it with loader on a
+     * miss. Loads run outside the lock, so concurrent misses on one key may
+     * each call the loader.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String area, String key, Supplier<T> loader) {
+        // Read before loading, so a write committed during the load makes the entry stale
+        long version = changeSequence.current(area);
+        String entryKey = area + ":" + key;
+        synchronized (entries) {
+            Entry entry = entries.get(entryKey);
+            if (entry != null && entry.version != version) {
+                invalidations++;
+            } else if (entry != null && System.currentTimeMillis() >= entry.expiresAt) {
+                expirations++;
+            } else if (entry != null) {
+                hits++;
+                return (T) entry.value;
+            }
+            misses++;
+        }
+        T value = loader.get();
+        synchronized (entries) {
+            entries.put(entryKey, new Entry(value, version, System.currentTimeMillis() + ttlMs));
+        }
+        return value;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        synchronized (entries) {
+            long requests = hits + misses;
+            result.put("size", entries.size());
+            result.put("hits", hits);
+            result.put("misses", misses);
+            result.put("hit_rate", requests > 0 ? (double) hits / requests : 0.0);
+            result.put("evictions", evictions);
+            result.put("expirations", expirations);
+            result.put("invalidations", invalidations);
+        }
+        result.put("max_entries", maxEntries);
+        result.put("ttl_ms", ttlMs);
+        result.put("versions", changeSequence.getSequences());
+        return result;
+    }
+
+    private record Entry(Object value, long version, long expiresAt) {
+    }
+}
@@ -0,0 +1,196 @@
+package com.tracer.service;
+
+import com.tracer.config.DatabasePlatform;
+import com.tracer.entity.CommandLog;
+import com.tracer.entity.FileChange;
+import com.tracer.repository.CommandLogRepository;
+import com.tracer.repository.CommandLogSpecifications;
+import com.tracer.repository.FileChangeRepository;
+import com.tracer.repository.FileChangeSpecifications;
+import com.tracer.repository.KeysetCursor;
+import com.tracer.repository.TrigramIndexRepository;
+import com.tracer.repository.TrigramIndexRepository.Index;
+import com.tracer.util.TrigramQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Substring ("contains") and regex search over command logs and file change
+ * paths, narrowed through the trigram indexes in {@link TrigramIndexRepository}.
+ *
+ * The index returns the rows containing the literal text the pattern needs
+ * and passing the other filters, newest first and in batches; only those
+ * rows are read and checked against the pattern, until the requested page
+ * is full. Without such text (e.g. a
+ * two-character substring or a regex like \d+) or without the index (H2),
+ * the rows passing the other filters are checked newest first instead.
+ * Either way a page reads only as far as its last match, so the total is
+ * known only when the matches end within the page.
+ */
+@Service
+@RequiredArgsConstructor
+public class TrigramSearchService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final List<String> LOG_TEXT = List.of("command", "directory");
+    private static final List<String> CHANGE_TEXT = List.of("filePath");
+
+    private final TrigramIndexRepository trigramIndexRepository;
+    private final CommandLogRepository commandLogRepository;
+    private final FileChangeRepository fileChangeRepository;
+    private final DatabasePlatform databasePlatform;
+
+    private volatile boolean available;
+
+    /**
+     * Creates the indexes on first start and re-indexes a table whose index
+     * size does not match it, as {@link CommandSearchService#ensureIndex()}.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void ensureIndexes() {
+        if (!databasePlatform.isSqlite()) {
+            return;
+        }
+        try {
+            for (Index index : Index.values()) {
+                trigramIndexRepository.createIndex(index);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Trigram search disabled, cannot create FTS5 index: " + e.getMessage());
+            return;
+        }
+        if (trigramIndexRepository.countIndexed(Index.COMMAND_LOGS) != commandLogRepository.count()) {
+            trigramIndexRepository.rebuildIndex(Index.COMMAND_LOGS);
+            System.out.println("Rebuilt command trigram index");
+        }
+        if (trigramIndexRepository.countIndexed(Index.FILE_CHANGES) != fileChangeRepository.count()) {
+            trigramIndexRepository.rebuildIndex(Index.FILE_CHANGES);
+            System.out.println("Rebuilt file change trigram index");
+        }
+        available = true;
+    }
+
+    /**
+     * Logs passing the /api/logs filters (null filters are ignored) whose
+     * command or directory contains the text (case-insensitive) and matches
+     * the regex; null patterns are ignored.
+     */
+    public Matches findLogs(LocalDateTime start, LocalDateTime end, String user, String directory,
+                            String contains, String regex, int limit, int offset) {
+        return find(CommandLog.class, CommandLogSpecifications.filter(start, end, user, directory, null), LOG_TEXT,
+            (match, after, batchSize) -> trigramIndexRepository.findLogCandidates(
+                match, start, end, user, directory, after, batchSize),
+            contains, regex, limit, offset);
+    }
+
+    /**
+     * File changes passing the /api/changes filters whose path contains the
+     * text (case-insensitive) and matches the regex; null patterns are ignored.
+     */
+    public Matches findChanges(LocalDateTime start, LocalDateTime end, String eventType, String fileExtension,
+                               String contains, String regex, int limit, int offset) {
+        return find(FileChange.class, FileChangeSpecifications.filter(start, end, eventType, fileExtension), CHANGE_TEXT,
+            (match, after, batchSize) -> trigramIndexRepository.findChangeCandidates(
+                match, start, end, eventType, fileExtension, after, batchSize),
+            contains, regex, limit, offset);
+    }
+
+    /**
+     * A batch of rows passing the filters and containing a trigram MATCH
+     * expression's literals, as [id, timestamp, text...], newest first.
+     */
+    @FunctionalInterface
+    private interface Candidates {
+        List<Object[]> find(String match, KeysetCursor after, int limit);
+    }
+
+    private <T> Matches find(Class<T> type, Specification<T> filter, List<String> text, Candidates candidates,
+                             String contains, String regex, int limit, int offset) {
+        List<Pattern> patterns = new ArrayList<>();
+        List<String> terms = new ArrayList<>();
+        if (contains != null) {
+            patterns.add(Pattern.compile(Pattern.quote(contains), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+            terms.add(TrigramQuery.forSubstring(contains));
+        }
+        if (regex != null) {
+            Pattern pattern = Pattern.compile(regex);
+            patterns.add(pattern);
+            terms.add(TrigramQuery.forRegex(pattern));
+        }
+        terms.removeIf(term -> term == null);
+
+        // One match past the page tells whether more exist; the scan stops there
+        int wanted = offset + limit + 1;
+        String match = available && !terms.isEmpty() ? String.join(" AND ", terms) : null;
+        List<Integer> matches = new ArrayList<>();
+        KeysetCursor after = null;
+        List<Object[]> rows;
+        int batchSize;
+        do {
+            // A deep page is read in one go rather than in many small batches
+            batchSize = Math.max(BATCH_SIZE, wanted - matches.size());
+            if (match != null) {
+                rows = candidates.find(match, after, batchSize);
+            } else {
+                rows = trigramIndexRepository.findText(type, after == null ? filter : filter.and(after.after()),
+                    text, batchSize);
+            }
+            collect(matches, rows, patterns, wanted);
+            if (!rows.isEmpty()) {
+                Object[] last = rows.get(rows.size() - 1);
+                after = new KeysetCursor((LocalDateTime) last[1], (Integer) last[0]);
+            }
+        } while (matches.size() < wanted && rows.size() == batchSize);
+
+        List<Integer> ids = matches.stream()
+            .skip(offset)
+            .limit(limit)
+            .toList();
+        return new Matches(matches.size() < wanted ? (long) matches.size() : null, ids);
+    }
+
+    /**
+     * Adds the ids of the rows (newest first) that match every pattern, up to
+     * wanted matches in total.
+     */
+    private static void collect(List<Integer> matches, List<Object[]> rows, List<Pattern> patterns, int wanted) {
+        for (Object[] row : rows) {
+            if (matches.size() == wanted) {
+                return;
+            }
+            if (patterns.stream().allMatch(pattern -> findsIn(pattern, row))) {
+                matches.add((Integer) row[0]);
+            }
+        }
+    }
+
+    private static boolean findsIn(Pattern pattern, Object[] row) {
+        for (int i = 2; i < row.length; i++) {
+            if (row[i] != null && pattern.matcher((String) row[i]).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param total number of matching rows, or null when there are matches
+     *              after the requested page (they are not counted)
+     * @param ids   the requested page of matching ids, newest first
+     */
+    public record Matches(Long total, List<Integer> ids) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.tracer.service;
+
+/**
+ * Published when a watch folder is added, removed or toggled, so the
+ * file watcher can re-sync its registrations once the change is committed.
+ */
+public class WatchFoldersChangedEvent {
+
+    private final Integer folderId;
+
+    public WatchFoldersChangedEvent(Integer folderId) {
+        this.folderId = folderId;
+    }
+
+    public Integer getFolderId() {
+        return folderId;
+    }
+}
@@ -1,63 +1,124 @@
 package com.tracer.util;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.regex.Pattern;
 
+/**
+ * Parses one line of the command history, either JSON Lines
+ * ({"timestamp": ..., "user": ..., "directory": ..., "command": ...}) or
+ * plain text ("2025-10-01 08:30:15 [user] directory: command").
+ *
+ * Both formats are read in a single pass without regexes: JSON through a
+ * streaming parser that only materializes the fields it needs, text by
+ * scanning for the separators. Timestamps in the usual fixed layout are read
+ * digit by digit; anything else goes through the (cached) formatters, so
+ * every line yields the same result as parsing it with
+ * {@code (\d{4}-\d{2}-\d{2})\s+(\d{2}:\d{2}:\d{2})\s+\[([^\]]+)\]\s+(.*?):\s+(.+)$}
+ * or a Jackson tree.
+ */
 @Component
 public class CommandLineParser {
-    private static final Pattern TEXT_PATTERN = Pattern.compile(
-        "(\\d{4}-\\d{2}-\\d{2})\\s+(\\d{2}:\\d{2}:\\d{2})\\s+\\[([^\\]]+)\\]\\s+(.*?):\\s+(.+)$"
-    );
-    
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
     private final ObjectMapper objectMapper = new ObjectMapper();
-    
+
     public ParsedCommand parseCommandLine(String line) {
         if (line == null || line.trim().isEmpty()) {
             return null;
         }
-        
+
         line = line.trim();
-        
+
         // Try to parse as JSON Lines
         if (line.startsWith("{")) {
             return parseJsonLine(line);
         }
-        
+
         // Try to parse as plain text format
         return parseTextLine(line);
     }
-    
+
     private ParsedCommand parseJsonLine(String line) {
-        try {
-            JsonNode data = objectMapper.readTree(line);
-            
-            LocalDateTime timestamp;
-            if (data.has("timestamp") && data.get("timestamp").isTextual()) {
-                String timestampStr = data.get("timestamp").asText().replace("Z", "+00:00");
-                timestamp = LocalDateTime.parse(timestampStr, DateTimeFormatter.ISO_DATE_TIME);
-            } else if (data.has("date") && data.has("time")) {
-                String dateStr = data.get("date").asText();
-                String timeStr = data.get("time").asText();
-                timestamp = LocalDateTime.parse(dateStr + " " + timeStr, 
-                    DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        try (JsonParser parser = objectMapper.createParser(line)) {
+            // Only the root object is read; like readTree, trailing content is ignored
+            parser.nextToken();
+            String timestampText = null;
+            String date = null;
+            String time = null;
+            String user = null;
+            String username = null;
+            String directory = null;
+            String cwd = null;
+            String command = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                // Repeated fields: the last one wins, as in a tree
+                switch (field) {
+                    case "timestamp" -> {
+                        timestampText = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                        skipValue(parser);
+                    }
+                    case "date" -> date = asText(parser);
+                    case "time" -> time = asText(parser);
+                    case "user" -> user = asText(parser);
+                    case "username" -> username = asText(parser);
+                    case "directory" -> directory = asText(parser);
+                    case "cwd" -> cwd = asText(parser);
+                    case "command" -> command = asText(parser);
+                    default -> skipValue(parser);
+                }
+            }
+
+            LocalDateTime timestamp = null;
+            String dateText = null;
+            String timeText = null;
+            if (timestampText != null) {
+                int length = timestampText.length();
+                if ((length == 19 || (length == 20 && timestampText.charAt(19) == 'Z'))
+                        && isDate(timestampText, 0) && timestampText.charAt(10) == 'T' && isTime(timestampText, 11)) {
+                    timestamp = toDateTime(timestampText, 0, timestampText, 11);
+                }
+                if (timestamp != null) {
+                    dateText = timestampText.substring(0, 10);
+                    timeText = timestampText.substring(11, 19);
+                } else {
+                    timestamp = LocalDateTime.parse(timestampText.replace("Z", "+00:00"), DateTimeFormatter.ISO_DATE_TIME);
+                }
+            } else if (date != null && time != null) {
+                if (date.length() == 10 && time.length() == 8 && isDate(date, 0) && isTime(time, 0)) {
+                    timestamp = toDateTime(date, 0, time, 0);
+                }
+                if (timestamp != null) {
+                    dateText = date;
+                    timeText = time;
+                } else {
+                    timestamp = LocalDateTime.parse(date + " " + time, DATE_TIME_FORMAT);
+                }
             } else {
                 timestamp = LocalDateTime.now();
             }
-            
+            if (dateText == null) {
+                dateText = timestamp.format(DATE_FORMAT);
+                timeText = timestamp.format(TIME_FORMAT);
+            }
+
             return new ParsedCommand(
                 timestamp,
-                timestamp.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
-                timestamp.format(DateTimeFormatter.ofPattern("HH:mm:ss")),
-                data.has("user") ? data.get("user").asText() : 
-                    (data.has("username") ? data.get("username").asText() : "unknown"),
-                data.has("directory") ? data.get("directory").asText() : 
-                    (data.has("cwd") ? data.get("cwd").asText() : ""),
-                data.has("command") ? data.get("command").asText() : "",
+                dateText,
+                timeText,
+                user != null ? user : (username != null ? username : "unknown"),
+                directory != null ? directory : (cwd != null ? cwd : ""),
+                command != null ? command : "",
                 line
             );
         } catch (Exception e) {
@@ -65,35 +126,194 @@ public class CommandLineParser {
             return null;
         }
     }
-    
+
+    /**
+     * @return the value as JsonNode.asText() would render it
+     */
+    private static String asText(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        // Numbers, booleans, null and containers are rare; let the tree format them
+        JsonNode node = parser.readValueAsTree();
+        return node.asText();
+    }
+
+    /**
+     * Skips the current value. Strings are still decoded, so malformed escapes
+     * are rejected as they would be when building a tree.
+     */
+    private static void skipValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        int depth = 0;
+        do {
+            if (token == JsonToken.VALUE_STRING) {
+                parser.getTextLength();
+            } else if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+        } while (depth > 0 && (token = parser.nextToken()) != null);
+    }
+
     private ParsedCommand parseTextLine(String line) {
-        var matcher = TEXT_PATTERN.matcher(line);
-        if (matcher.matches()) {
-            String dateStr = matcher.group(1);
-            String timeStr = matcher.group(2);
-            String user = matcher.group(3);
-            String directory = matcher.group(4);
-            String command = matcher.group(5);
-            
-            LocalDateTime timestamp = LocalDateTime.parse(
-                dateStr + " " + timeStr,
-                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
-            );
-            
-            return new ParsedCommand(
-                timestamp,
-                dateStr,
-                timeStr,
-                user,
-                directory,
-                command,
-                line
-            );
+        int length = line.length();
+
+        // \d{4}-\d{2}-\d{2}\s+
+        if (length < 10 || !isDate(line, 0)) {
+            return null;
+        }
+        int timeStart = skipWhitespace(line, 10);
+        if (timeStart == 10) {
+            return null;
         }
-        
-        return null;
+
+        // \d{2}:\d{2}:\d{2}\s+\[
+        if (timeStart + 8 > length || !isTime(line, timeStart)) {
+            return null;
+        }
+        int bracket = skipWhitespace(line, timeStart + 8);
+        if (bracket == timeStart + 8 || bracket >= length || line.charAt(bracket) != '[') {
+            return null;
+        }
+
+        // [^\]]+\]\s+
+        int userEnd = line.indexOf(']', bracket + 1);
+        if (userEnd <= bracket + 1) {
+            return null;
+        }
+        int directoryStart = skipWhitespace(line, userEnd + 1);
+        if (directoryStart == userEnd + 1) {
+            return null;
+        }
+
+        // (.*?):\s+(.+)$ - the directory ends at the first ':' followed by
+        // whitespace after which the rest of the line is a valid command;
+        // neither part may span a line terminator
+        int directoryEnd = -1;
+        int commandStart = -1;
+        for (int i = directoryStart; i < length; i++) {
+            char c = line.charAt(i);
+            if (isLineTerminator(c)) {
+                return null;
+            }
+            if (c == ':' && i + 1 < length && isWhitespace(line.charAt(i + 1))) {
+                int start = skipWhitespace(line, i + 1);
+                if (start < length && !containsLineTerminator(line, start)) {
+                    directoryEnd = i;
+                    commandStart = start;
+                    break;
+                }
+            }
+        }
+        if (directoryEnd == -1) {
+            return null;
+        }
+
+        String dateStr = line.substring(0, 10);
+        String timeStr = line.substring(timeStart, timeStart + 8);
+        LocalDateTime timestamp = toDateTime(line, 0, line, timeStart);
+        if (timestamp == null) {
+            timestamp = LocalDateTime.parse(dateStr + " " + timeStr, DATE_TIME_FORMAT);
+        }
+
+        return new ParsedCommand(
+            timestamp,
+            dateStr,
+            timeStr,
+            line.substring(bracket + 1, userEnd),
+            line.substring(directoryStart, directoryEnd),
+            line.substring(commandStart),
+            line
+        );
+    }
+
+    private static boolean isDate(String s, int i) {
+        return isDigits(s, i, 4) && s.charAt(i + 4) == '-'
+            && isDigits(s, i + 5, 2) && s.charAt(i + 7) == '-' && isDigits(s, i + 8, 2);
+    }
+
+    private static boolean isTime(String s, int i) {
+        return isDigits(s, i, 2) && s.charAt(i + 2) == ':'
+            && isDigits(s, i + 3, 2) && s.charAt(i + 5) == ':' && isDigits(s, i + 6, 2);
+    }
+
+    private static boolean isDigits(String s, int i, int count) {
+        for (int end = i + count; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the date and time at the given offsets (already checked to be
+     *         digits), or null when a field is out of range; the formatters
+     *         then decide whether to reject or adjust it
+     */
+    private static LocalDateTime toDateTime(String date, int d, String time, int t) {
+        int year = digits(date, d, 4);
+        int month = digits(date, d + 5, 2);
+        int day = digits(date, d + 8, 2);
+        int hour = digits(time, t, 2);
+        int minute = digits(time, t + 3, 2);
+        int second = digits(time, t + 6, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 28 && day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second);
+    }
+
+    private static int digits(String s, int i, int count) {
+        int value = 0;
+        for (int end = i + count; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static int skipWhitespace(String s, int i) {
+        while (i < s.length() && isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
     }
-    
+
+    /**
+     * Regex \s: [ \t\n\x0B\f\r]
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Characters regex '.' does not match
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean containsLineTerminator(String s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (isLineTerminator(s.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static class ParsedCommand {
         private final LocalDateTime timestamp;
         private final String date;
@@ -102,7 +322,7 @@ public class CommandLineParser {
         private final String directory;
         private final String command;
         private final String rawLine;
-        
+
         public ParsedCommand(LocalDateTime timestamp, String date, String time,
                            String user, String directory, String command, String rawLine) {
             this.timestamp = timestamp;
@@ -113,7 +333,7 @@ public class CommandLineParser {
             this.command = command;
             this.rawLine = rawLine;
         }
-        
+
         // Getters
         public LocalDateTime getTimestamp() { return timestamp; }
         public String getDate() { return date; }
@@ -124,4 +344,3 @@ public class CommandLineParser {
         public String getRawLine() { return rawLine; }
     }
 }
-
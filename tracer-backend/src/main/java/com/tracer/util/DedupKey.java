@@ -0,0 +1,32 @@
+package com.tracer.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Content hash identifying a command log entry: SHA-256 over timestamp, user and command.
+ */
+public final class DedupKey {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private DedupKey() {
+    }
+
+    public static String of(LocalDateTime timestamp, String user, String command) {
+        String content = timestamp.toString() + SEPARATOR + user + SEPARATOR + command;
+        return HexFormat.of().formatHex(sha256().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
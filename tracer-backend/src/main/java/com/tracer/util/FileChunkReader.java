@@ -0,0 +1,82 @@
+package com.tracer.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Splits a region of a file into line-aligned chunks.
+ *
+ * A trailing line without a newline is treated as still being written and
+ * left out, so the end offset of the last chunk never points into the middle
+ * of a line. A chunk grows past the requested size when a single line is
+ * longer than that.
+ */
+public class FileChunkReader implements LineChunkReader {
+
+    private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+
+    private final FileChannel channel;
+    private final long end;
+    private final int chunkSize;
+    private final boolean mapped;
+    private long position;
+
+    /**
+     * @param mapped whether to memory-map the chunks instead of copying them
+     *               onto the heap. Mapping saves a copy on large files, but
+     *               reading a mapped chunk after the file was truncated
+     *               below it fails with an InternalError.
+     */
+    public FileChunkReader(FileChannel channel, long startOffset, long endOffset, int chunkSize, boolean mapped) {
+        this.channel = channel;
+        this.position = startOffset;
+        this.end = endOffset;
+        this.chunkSize = chunkSize;
+        this.mapped = mapped;
+    }
+
+    @Override
+    public Chunk next() throws IOException {
+        long size = Math.min(chunkSize, end - position);
+        while (size > 0) {
+            ByteBuffer window = read(position, size);
+            int lastNewline = lastIndexOf(window, (byte) '\n');
+            if (lastNewline != -1) {
+                Chunk chunk = new Chunk(position, position + lastNewline + 1, window.limit(lastNewline + 1));
+                position = chunk.endOffset();
+                return chunk;
+            }
+            if (position + size == end) {
+                break; // only an unterminated line is left
+            }
+            if (size == MAX_CHUNK_SIZE) {
+                throw new IOException("Line at offset " + position + " is longer than " + MAX_CHUNK_SIZE + " bytes");
+            }
+            size = Math.min(Math.min(size * 2, MAX_CHUNK_SIZE), end - position);
+        }
+        return null;
+    }
+
+    private ByteBuffer read(long offset, long size) throws IOException {
+        if (mapped) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) == -1) {
+                break; // truncated since the size was taken
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int lastIndexOf(ByteBuffer buffer, byte value) {
+        for (int i = buffer.limit() - 1; i >= 0; i--) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
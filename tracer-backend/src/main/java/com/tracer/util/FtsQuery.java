@@ -0,0 +1,146 @@
+package com.tracer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Turns a user search string into an SQLite FTS5 MATCH expression.
+ *
+ * Whitespace-separated words must all match (in any order), "double quoted"
+ * text must match as a phrase and a word ending in * matches as a prefix,
+ * e.g. {@code kub* "apply -f"}. Every term is emitted as an FTS5 string, so
+ * FTS5 operators and punctuation in the input are searched for literally
+ * instead of being parsed as query syntax.
+ */
+public final class FtsQuery {
+
+    private FtsQuery() {
+    }
+
+    /**
+     * @return the MATCH expression, or null when the input has no searchable
+     *         (letter or digit) terms, e.g. a search for "|"
+     */
+    public static String parse(String search) {
+        List<Term> terms = terms(search);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        List<String> expressions = new ArrayList<>();
+        for (Term term : terms) {
+            expressions.add("\"" + term.text().replace("\"", "\"\"") + "\"" + (term.prefix() ? "*" : ""));
+        }
+        return String.join(" ", expressions);
+    }
+
+    /**
+     * Evaluates the search against text directly, for rows that are not in
+     * the FTS5 index (see LogArchiveService). Text is split into tokens like
+     * FTS5's default tokenizer does, as case-folded runs of letters and digits
+     * (without its removal of diacritics); every term's tokens must appear in
+     * sequence within one of the columns.
+     *
+     * @return a predicate over the indexed columns' values, or null when
+     *         {@link #parse} returns null
+     */
+    public static Predicate<String[]> matcher(String search) {
+        List<Term> terms = terms(search);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        List<List<String>> phrases = new ArrayList<>();
+        for (Term term : terms) {
+            phrases.add(tokens(term.text()));
+        }
+        return columns -> {
+            List<List<String>> columnTokens = new ArrayList<>();
+            for (String column : columns) {
+                columnTokens.add(column != null ? tokens(column) : List.of());
+            }
+            for (int i = 0; i < terms.size(); i++) {
+                List<String> phrase = phrases.get(i);
+                boolean prefix = terms.get(i).prefix();
+                if (columnTokens.stream().noneMatch(tokens -> containsPhrase(tokens, phrase, prefix))) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static List<Term> terms(String search) {
+        List<Term> terms = new ArrayList<>();
+        if (search == null) {
+            return terms;
+        }
+        int i = 0;
+        int length = search.length();
+        while (i < length) {
+            char c = search.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int close = search.indexOf('"', i + 1);
+                int end = close != -1 ? close : length;
+                addTerm(terms, search.substring(i + 1, end), false);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(search.charAt(end)) && search.charAt(end) != '"') {
+                    end++;
+                }
+                String word = search.substring(i, end);
+                boolean prefix = word.endsWith("*");
+                addTerm(terms, prefix ? word.substring(0, word.length() - 1) : word, prefix);
+                i = end;
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<Term> terms, String text, boolean prefix) {
+        if (text.codePoints().noneMatch(Character::isLetterOrDigit)) {
+            return;
+        }
+        terms.add(new Term(text, prefix));
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            if (i > start) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(text.codePointAt(i));
+            }
+        }
+        return tokens;
+    }
+
+    // With prefix, the phrase's last token only has to start a token
+    private static boolean containsPhrase(List<String> tokens, List<String> phrase, boolean prefix) {
+        int last = phrase.size() - 1;
+        for (int start = 0; start + phrase.size() <= tokens.size(); start++) {
+            int i = 0;
+            while (i < last && tokens.get(start + i).equals(phrase.get(i))) {
+                i++;
+            }
+            if (i == last && (prefix ? tokens.get(start + last).startsWith(phrase.get(last))
+                    : tokens.get(start + last).equals(phrase.get(last)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Term(String text, boolean prefix) {
+    }
+}
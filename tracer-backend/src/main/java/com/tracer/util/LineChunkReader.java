@@ -0,0 +1,55 @@
+package com.tracer.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits input into chunks that end on a line break, for parsing the chunks
+ * independently of each other (see {@link FileChunkReader} and
+ * {@link StreamChunkReader}).
+ */
+public interface LineChunkReader {
+
+    /**
+     * @return the next chunk of complete lines, or null when no complete line is left
+     */
+    Chunk next() throws IOException;
+
+    /**
+     * @param startOffset position of the first line in the input
+     * @param endOffset   position just past the last line in the input
+     * @param bytes       the lines, each ending in '\n'
+     */
+    record Chunk(long startOffset, long endOffset, ByteBuffer bytes) {
+
+        /**
+         * Calls action with every line of the chunk, without its terminator
+         * ('\n' or "\r\n"), decoded as UTF-8.
+         */
+        public void forEachLine(LineAction action) {
+            int length = bytes.limit();
+            byte[] content;
+            if (bytes.hasArray() && bytes.arrayOffset() == 0) {
+                content = bytes.array();
+            } else {
+                content = new byte[length];
+                bytes.get(0, content);
+            }
+            int lineNumber = 0;
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (content[i] == '\n') {
+                    int end = i > start && content[i - 1] == '\r' ? i - 1 : i;
+                    action.accept(++lineNumber, new String(content, start, end - start, StandardCharsets.UTF_8));
+                    start = i + 1;
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface LineAction {
+        void accept(int lineNumber, String line);
+    }
+}
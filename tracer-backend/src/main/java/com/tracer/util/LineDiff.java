@@ -0,0 +1,268 @@
+package com.tracer.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line diff of two texts, grouped into unified-diff style hunks.
+ *
+ * Uses Myers' O(ND) algorithm in its linear-space form: the middle snake of
+ * the edit graph is found by searching forward and backward at once, and the
+ * two halves on either side of it are diffed recursively. Common leading and
+ * trailing lines are stripped first, and only the remaining changed region is
+ * compared against maxLines, so a small edit to a large file is still diffed.
+ */
+public final class LineDiff {
+
+    private final int[] a;
+    private final int[] b;
+    private final boolean[] deleted;
+    private final boolean[] inserted;
+
+    private LineDiff(int[] a, int[] b) {
+        this.a = a;
+        this.b = b;
+        this.deleted = new boolean[a.length];
+        this.inserted = new boolean[b.length];
+    }
+
+    /**
+     * @param maxLines upper bound on old plus new lines in the changed region
+     * @return the hunks, or null when the changed region exceeds maxLines
+     */
+    public static Result diff(String before, String after, int contextLines, int maxLines) {
+        List<String> oldLines = SnapshotCodec.splitLines(before != null ? before : "");
+        List<String> newLines = SnapshotCodec.splitLines(after != null ? after : "");
+
+        // Compare interned ids rather than strings in the inner loops
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = new int[oldLines.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = ids.computeIfAbsent(oldLines.get(i), line -> ids.size());
+        }
+        int[] b = new int[newLines.size()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = ids.computeIfAbsent(newLines.get(i), line -> ids.size());
+        }
+
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+            suffix++;
+        }
+        if ((a.length - prefix - suffix) + (b.length - prefix - suffix) > maxLines) {
+            return null;
+        }
+
+        LineDiff diff = new LineDiff(a, b);
+        diff.compare(prefix, a.length - suffix, prefix, b.length - suffix);
+        return diff.toResult(oldLines, newLines, contextLines);
+    }
+
+    private void compare(int aLo, int aHi, int bLo, int bHi) {
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            aLo++;
+            bLo++;
+        }
+        while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+            aHi--;
+            bHi--;
+        }
+        if (aLo == aHi || bLo == bHi) {
+            Arrays.fill(deleted, aLo, aHi, true);
+            Arrays.fill(inserted, bLo, bHi, true);
+            return;
+        }
+
+        int[] split = middleSnake(aLo, aHi, bLo, bHi);
+        if (split == null) {
+            // Nothing in common
+            Arrays.fill(deleted, aLo, aHi, true);
+            Arrays.fill(inserted, bLo, bHi, true);
+            return;
+        }
+        compare(aLo, split[0], bLo, split[1]);
+        compare(split[0], aHi, split[1], bHi);
+    }
+
+    /**
+     * @return a point (x, y) on an optimal edit path strictly between the two
+     *         corners of the region, or null if no such point is found
+     */
+    private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int[] forward = new int[2 * maxD + 2];
+        int[] backward = new int[2 * maxD + 2];
+        Arrays.fill(forward, -1);
+        Arrays.fill(backward, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        // Diagonals that ran off the grid are trimmed from the search
+        int forwardStart = 0;
+        int forwardEnd = 0;
+        int backwardStart = 0;
+        int backwardEnd = 0;
+
+        for (int d = 0; d < maxD; d++) {
+            for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+                int index = offset + k;
+                int x = k == -d || (k != d && forward[index - 1] < forward[index + 1])
+                    ? forward[index + 1] : forward[index - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x++;
+                    y++;
+                }
+                forward[index] = x;
+                if (x > n) {
+                    forwardEnd += 2;
+                } else if (y > m) {
+                    forwardStart += 2;
+                } else if (odd) {
+                    int backwardIndex = offset + delta - k;
+                    if (backwardIndex >= 0 && backwardIndex < backward.length && backward[backwardIndex] != -1
+                            && x >= n - backward[backwardIndex]) {
+                        return splitPoint(aLo, bLo, x, y, n, m);
+                    }
+                }
+            }
+
+            for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+                int index = offset + k;
+                int x = k == -d || (k != d && backward[index - 1] < backward[index + 1])
+                    ? backward[index + 1] : backward[index - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+                    x++;
+                    y++;
+                }
+                backward[index] = x;
+                if (x > n) {
+                    backwardEnd += 2;
+                } else if (y > m) {
+                    backwardStart += 2;
+                } else if (!odd) {
+                    int forwardIndex = offset + delta - k;
+                    if (forwardIndex >= 0 && forwardIndex < forward.length && forward[forwardIndex] != -1) {
+                        int forwardX = forward[forwardIndex];
+                        int forwardY = forwardX - (forwardIndex - offset);
+                        if (forwardX >= n - x) {
+                            return splitPoint(aLo, bLo, forwardX, forwardY, n, m);
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int[] splitPoint(int aLo, int bLo, int x, int y, int n, int m) {
+        if ((x == 0 && y == 0) || (x == n && y == m)) {
+            // Would not shrink the problem
+            return null;
+        }
+        return new int[]{aLo + x, bLo + y};
+    }
+
+    private Result toResult(List<String> oldLines, List<String> newLines, int contextLines) {
+        // Walk both sides into one edit script: ' ' kept, '-' deleted, '+' inserted
+        int length = 0;
+        char[] ops = new char[a.length + b.length];
+        int[] oldPositions = new int[ops.length];
+        int[] newPositions = new int[ops.length];
+        int additions = 0;
+        int deletions = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            oldPositions[length] = i;
+            newPositions[length] = j;
+            if (i < a.length && deleted[i]) {
+                ops[length++] = '-';
+                deletions++;
+                i++;
+            } else if (j < b.length && inserted[j]) {
+                ops[length++] = '+';
+                additions++;
+                j++;
+            } else {
+                ops[length++] = ' ';
+                i++;
+                j++;
+            }
+        }
+
+        List<Hunk> hunks = new ArrayList<>();
+        int next = 0;
+        int first;
+        while ((first = nextChange(ops, length, next)) != -1) {
+            int last = first;
+            int following;
+            while ((following = nextChange(ops, length, last + 1)) != -1
+                    && following - last <= 2 * contextLines + 1) {
+                last = following;
+            }
+            int start = Math.max(first - contextLines, next);
+            int end = Math.min(last + contextLines + 1, length);
+
+            List<String> lines = new ArrayList<>(end - start);
+            int oldCount = 0;
+            int newCount = 0;
+            for (int op = start; op < end; op++) {
+                String line = ops[op] == '+' ? newLines.get(newPositions[op]) : oldLines.get(oldPositions[op]);
+                lines.add(ops[op] + stripTerminator(line));
+                if (ops[op] != '+') {
+                    oldCount++;
+                }
+                if (ops[op] != '-') {
+                    newCount++;
+                }
+            }
+            // As in unified diffs, an empty side points at the line before it
+            hunks.add(new Hunk(
+                oldCount > 0 ? oldPositions[start] + 1 : oldPositions[start], oldCount,
+                newCount > 0 ? newPositions[start] + 1 : newPositions[start], newCount,
+                lines));
+            next = end;
+        }
+        return new Result(additions, deletions, hunks);
+    }
+
+    private static int nextChange(char[] ops, int length, int from) {
+        for (int op = from; op < length; op++) {
+            if (ops[op] != ' ') {
+                return op;
+            }
+        }
+        return -1;
+    }
+
+    private static String stripTerminator(String line) {
+        if (line.endsWith("\r\n")) {
+            return line.substring(0, line.length() - 2);
+        }
+        return line.endsWith("\n") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    public record Result(int additions, int deletions, List<Hunk> hunks) {
+    }
+
+    /**
+     * @param lines each line prefixed with ' ' (context), '-' (removed) or '+' (added)
+     */
+    public record Hunk(int oldStart, int oldLines, int newStart, int newLines, List<String> lines) {
+    }
+}
@@ -0,0 +1,433 @@
+package com.tracer.util;
+
+import com.tracer.entity.CommandLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Columnar encoding of an immutable batch of command logs, the segment
+ * files of the log archive.
+ *
+ * A segment starts with a fixed header (row count, timestamp and id range)
+ * followed by one deflated block per column, so that a reader only inflates
+ * the columns it needs:
+ * <ul>
+ *   <li>ids, as zigzag varint deltas</li>
+ *   <li>timestamps (epoch millis, UTC), as varint deltas; rows are stored in
+ *       (timestamp, id) order so the deltas are never negative</li>
+ *   <li>user and directory, each as a dictionary of distinct values followed
+ *       by a varint dictionary index per row</li>
+ *   <li>command and raw line, each as length-prefixed UTF-8 strings</li>
+ * </ul>
+ * date and time are not stored; they are the partition date and the
+ * timestamp's time of day.
+ */
+public final class LogSegmentCodec {
+
+    private static final int MAGIC = 0x544C5347; // "TLSG"
+    private static final byte FORMAT_VERSION = 1;
+    private static final int COLUMNS = 6;
+    // magic, version, rows, first/last timestamp, min/max id, block lengths
+    public static final int HEADER_SIZE = 4 + 1 + 4 + 8 + 8 + 4 + 4 + 4 * COLUMNS;
+
+    private static final int IDS = 0;
+    private static final int TIMESTAMPS = 1;
+    private static final int USERS = 2;
+    private static final int DIRECTORIES = 3;
+    private static final int COMMANDS = 4;
+    private static final int RAW_LINES = 5;
+
+    private LogSegmentCodec() {
+    }
+
+    /**
+     * @param logs at least one log, sorted by timestamp, then id
+     */
+    public static byte[] encode(List<CommandLog> logs) {
+        Block ids = new Block();
+        Block timestamps = new Block();
+        int previousId = 0;
+        long previousTimestamp = toMillis(logs.get(0).getTimestamp());
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        for (CommandLog log : logs) {
+            int id = log.getId();
+            ids.writeVarLong(zigzag(id - (long) previousId));
+            previousId = id;
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+            long timestamp = toMillis(log.getTimestamp());
+            if (timestamp < previousTimestamp) {
+                throw new IllegalArgumentException("Logs must be sorted by timestamp");
+            }
+            timestamps.writeVarLong(timestamp - previousTimestamp);
+            previousTimestamp = timestamp;
+        }
+        Block users = dictionary(logs.stream().map(CommandLog::getUser).toList());
+        Block directories = dictionary(logs.stream().map(CommandLog::getDirectory).toList());
+        Block commands = new Block();
+        Block rawLines = new Block();
+        for (CommandLog log : logs) {
+            commands.writeString(log.getCommand());
+            rawLines.writeString(log.getRawLine());
+        }
+
+        byte[][] blocks = {
+            ids.deflate(), timestamps.deflate(), users.deflate(), directories.deflate(),
+            commands.deflate(), rawLines.deflate()
+        };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(logs.size());
+            out.writeLong(toMillis(logs.get(0).getTimestamp()));
+            out.writeLong(previousTimestamp);
+            out.writeInt(minId);
+            out.writeInt(maxId);
+            for (byte[] block : blocks) {
+                out.writeInt(block.length);
+            }
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the header of a segment, which is at the start of the first
+     * {@link #HEADER_SIZE} bytes.
+     *
+     * @throws IllegalArgumentException if the data is not a segment of this format
+     */
+    public static Header readHeader(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (data.length < HEADER_SIZE || in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a log segment");
+            }
+            byte format = in.readByte();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported log segment format " + format);
+            }
+            int rows = in.readInt();
+            long firstTimestamp = in.readLong();
+            long lastTimestamp = in.readLong();
+            int minId = in.readInt();
+            int maxId = in.readInt();
+            int[] blockLengths = new int[COLUMNS];
+            for (int i = 0; i < COLUMNS; i++) {
+                blockLengths[i] = in.readInt();
+            }
+            return new Header(rows, toDateTime(firstTimestamp), toDateTime(lastTimestamp), minId, maxId, blockLengths);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the ids, timestamps, users and directories of a segment; the
+     * text columns are inflated on first use.
+     *
+     * @throws IllegalArgumentException if the data is not a segment of this format
+     */
+    public static Segment decode(byte[] data) {
+        return new Segment(data, readHeader(data));
+    }
+
+    /**
+     * @return the offset of a segment's user and directory blocks, which
+     *         {@link #readDictionaries} reads without decoding the rows
+     */
+    public static int dictionariesOffset(Header header) {
+        return blockOffset(header, USERS);
+    }
+
+    /**
+     * @return the length of a segment's user and directory blocks
+     */
+    public static int dictionariesLength(Header header) {
+        return header.blockLengths()[USERS] + header.blockLengths()[DIRECTORIES];
+    }
+
+    /**
+     * @param blocks the {@link #dictionariesLength} bytes at {@link #dictionariesOffset}
+     * @return the distinct users and directories of the segment
+     */
+    public static Dictionaries readDictionaries(Header header, byte[] blocks) {
+        String[] users = inflate(blocks, 0, header.blockLengths()[USERS]).readDictionary();
+        String[] directories = inflate(blocks, header.blockLengths()[USERS], header.blockLengths()[DIRECTORIES])
+            .readDictionary();
+        return new Dictionaries(List.of(users), List.of(directories));
+    }
+
+    public record Dictionaries(List<String> users, List<String> directories) {
+    }
+
+    /**
+     * @param rows           number of logs
+     * @param firstTimestamp timestamp of the first (oldest) log
+     * @param lastTimestamp  timestamp of the last (newest) log
+     */
+    public record Header(int rows, LocalDateTime firstTimestamp, LocalDateTime lastTimestamp,
+                         int minId, int maxId, int[] blockLengths) {
+    }
+
+    /**
+     * The columns of a decoded segment, row i of each array belonging to the
+     * i-th log in (timestamp, id) order. Safe to share between threads.
+     */
+    public static final class Segment {
+        private final byte[] data;
+        private final Header header;
+        private final int[] ids;
+        private final LocalDateTime[] timestamps;
+        private final String[] users;
+        private final int[] userCodes;
+        private final String[] directories;
+        private final int[] directoryCodes;
+        private volatile String[] commands;
+
+        private Segment(byte[] data, Header header) {
+            this.data = data;
+            this.header = header;
+            int rows = header.rows();
+
+            Reader in = block(IDS);
+            ids = new int[rows];
+            long id = 0;
+            for (int i = 0; i < rows; i++) {
+                id += unzigzag(in.readVarLong());
+                ids[i] = (int) id;
+            }
+            in = block(TIMESTAMPS);
+            timestamps = new LocalDateTime[rows];
+            long timestamp = toMillis(header.firstTimestamp());
+            for (int i = 0; i < rows; i++) {
+                timestamp += in.readVarLong();
+                timestamps[i] = toDateTime(timestamp);
+            }
+            in = block(USERS);
+            users = in.readDictionary();
+            userCodes = in.readCodes(rows);
+            in = block(DIRECTORIES);
+            directories = in.readDictionary();
+            directoryCodes = in.readCodes(rows);
+        }
+
+        public Header header() {
+            return header;
+        }
+
+        public int rows() {
+            return header.rows();
+        }
+
+        public int id(int row) {
+            return ids[row];
+        }
+
+        public LocalDateTime timestamp(int row) {
+            return timestamps[row];
+        }
+
+        /**
+         * @return the distinct users of the segment
+         */
+        public String[] users() {
+            return users;
+        }
+
+        /**
+         * @return the index into {@link #users()} of the row's user
+         */
+        public int userCode(int row) {
+            return userCodes[row];
+        }
+
+        public String user(int row) {
+            return users[userCodes[row]];
+        }
+
+        /**
+         * @return the distinct directories of the segment
+         */
+        public String[] directories() {
+            return directories;
+        }
+
+        /**
+         * @return the index into {@link #directories()} of the row's directory
+         */
+        public int directoryCode(int row) {
+            return directoryCodes[row];
+        }
+
+        public String directory(int row) {
+            return directories[directoryCodes[row]];
+        }
+
+        public String command(int row) {
+            String[] decoded = commands;
+            if (decoded == null) {
+                decoded = block(COMMANDS).readStrings(rows());
+                commands = decoded;
+            }
+            return decoded[row];
+        }
+
+        /**
+         * Inflates the raw line column, which is not kept; for single-log lookups.
+         */
+        public String rawLine(int row) {
+            return block(RAW_LINES).readStrings(row + 1)[row];
+        }
+
+        private Reader block(int column) {
+            return inflate(data, blockOffset(header, column), header.blockLengths()[column]);
+        }
+    }
+
+    private static int blockOffset(Header header, int column) {
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < column; i++) {
+            offset += header.blockLengths()[i];
+        }
+        return offset;
+    }
+
+    private static Reader inflate(byte[] data, int offset, int length) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data, offset, length))) {
+            return new Reader(in.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Block dictionary(List<String> values) {
+        Map<String, Integer> codes = new HashMap<>();
+        Block dictionary = new Block();
+        Block rows = new Block();
+        for (String value : values) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                codes.put(value, code);
+                dictionary.writeString(value);
+            }
+            rows.writeVarLong(code);
+        }
+        Block block = new Block();
+        block.writeVarLong(codes.size());
+        block.write(dictionary.toByteArray(), 0, dictionary.size());
+        block.write(rows.toByteArray(), 0, rows.size());
+        return block;
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Block extends ByteArrayOutputStream {
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        byte[] deflate() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(32, size() / 4));
+            try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+                writeTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        String[] readStrings(int count) {
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        String[] readDictionary() {
+            return readStrings((int) readVarLong());
+        }
+
+        int[] readCodes(int rows) {
+            int[] codes = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                codes[i] = (int) readVarLong();
+            }
+            return codes;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.tracer.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate-compressed encodings of file content snapshots.
+ *
+ * A full snapshot is the UTF-8 content, deflated. A delta is a deflated line
+ * edit script against the previous version: the lines shared at the start and
+ * end of both versions are referenced by count and only the changed block in
+ * between is stored. Lines keep their terminators, so decoding reproduces the
+ * content byte for byte.
+ */
+public final class SnapshotCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private SnapshotCodec() {
+    }
+
+    public static byte[] encodeFull(String content) {
+        return deflate(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decodeFull(byte[] data) {
+        return new String(inflate(data), StandardCharsets.UTF_8);
+    }
+
+    public static byte[] encodeDelta(String base, String target) {
+        List<String> baseLines = splitLines(base);
+        List<String> targetLines = splitLines(target);
+
+        int prefix = 0;
+        int maxPrefix = Math.min(baseLines.size(), targetLines.size());
+        while (prefix < maxPrefix && baseLines.get(prefix).equals(targetLines.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && baseLines.get(baseLines.size() - 1 - suffix)
+                .equals(targetLines.get(targetLines.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(prefix);
+            out.writeInt(suffix);
+            out.writeInt(baseLines.size() - prefix - suffix); // base lines replaced
+            List<String> inserted = targetLines.subList(prefix, targetLines.size() - suffix);
+            out.writeInt(inserted.size());
+            for (String line : inserted) {
+                byte[] utf8 = line.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return deflate(bytes.toByteArray());
+    }
+
+    public static String applyDelta(String base, byte[] delta) {
+        List<String> baseLines = splitLines(base);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(inflate(delta)))) {
+            byte format = in.readByte();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot delta format " + format);
+            }
+            int prefix = in.readInt();
+            int suffix = in.readInt();
+            int replaced = in.readInt();
+            if (prefix + replaced + suffix != baseLines.size()) {
+                throw new IllegalArgumentException("Snapshot delta does not match its base version");
+            }
+
+            StringBuilder result = new StringBuilder(base.length());
+            for (int i = 0; i < prefix; i++) {
+                result.append(baseLines.get(i));
+            }
+            int inserted = in.readInt();
+            for (int i = 0; i < inserted; i++) {
+                byte[] utf8 = new byte[in.readInt()];
+                in.readFully(utf8);
+                result.append(new String(utf8, StandardCharsets.UTF_8));
+            }
+            for (int i = baseLines.size() - suffix; i < baseLines.size(); i++) {
+                result.append(baseLines.get(i));
+            }
+            return result.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Splits after every '\n', keeping the terminator on each line.
+     */
+    public static List<String> splitLines(String content) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        int newline;
+        while ((newline = content.indexOf('\n', start)) != -1) {
+            lines.add(content.substring(start, newline + 1));
+            start = newline + 1;
+        }
+        if (start < content.length()) {
+            lines.add(content.substring(start));
+        }
+        return lines;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(32, data.length / 4));
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.tracer.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits a stream into line-aligned chunks of about chunkSize bytes.
+ *
+ * Unlike {@link FileChunkReader}, the stream is taken to be complete: a last
+ * line without a newline is returned too.
+ */
+public class StreamChunkReader implements LineChunkReader {
+
+    private final InputStream in;
+    private final int chunkSize;
+    // Start of a line that did not fit into the previous chunk
+    private byte[] carry = new byte[0];
+    private long position;
+    private boolean eof;
+
+    public StreamChunkReader(InputStream in, int chunkSize) {
+        this.in = in;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Chunk next() throws IOException {
+        // Every chunk gets its own buffer, as it is parsed while the next one is read
+        byte[] buffer = new byte[Math.max(chunkSize, 2 * carry.length)];
+        int length = carry.length;
+        System.arraycopy(carry, 0, buffer, 0, length);
+        while (true) {
+            if (!eof) {
+                int read = in.readNBytes(buffer, length, buffer.length - length);
+                eof = length + read < buffer.length;
+                length += read;
+            }
+            int lastNewline = lastIndexOf(buffer, length, (byte) '\n');
+            if (lastNewline != -1) {
+                carry = Arrays.copyOfRange(buffer, lastNewline + 1, length);
+                return chunk(buffer, lastNewline + 1, lastNewline + 1);
+            }
+            if (eof) {
+                carry = new byte[0];
+                if (length == 0) {
+                    return null;
+                }
+                // Terminate the last line so it is parsed like the others
+                byte[] terminated = length < buffer.length ? buffer : Arrays.copyOf(buffer, length + 1);
+                terminated[length] = '\n';
+                return chunk(terminated, length + 1, length);
+            }
+            // A line longer than the buffer
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+    }
+
+    private Chunk chunk(byte[] buffer, int length, int inputLength) {
+        Chunk chunk = new Chunk(position, position + inputLength, ByteBuffer.wrap(buffer, 0, length));
+        position += inputLength;
+        return chunk;
+    }
+
+    private static int lastIndexOf(byte[] buffer, int length, byte value) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
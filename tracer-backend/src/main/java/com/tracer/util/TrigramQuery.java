@@ -0,0 +1,274 @@
+package com.tracer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Builds SQLite FTS5 trigram MATCH expressions that narrow a substring or
+ * regex search down to candidate rows.
+ *
+ * A trigram index can only look up literal text of at least three
+ * characters, so a regex is reduced to the literal runs every match must
+ * contain, e.g. {@code rm\s+-rf /tmp.*} needs "rm" and "-rf /tmp" and is
+ * narrowed by "-rf /tmp". Candidates are a superset of the matches (the
+ * index is case-insensitive and ignores where the runs occur); callers
+ * check each candidate against the real pattern.
+ */
+public final class TrigramQuery {
+
+    private static final int MIN_LENGTH = 3;
+
+    private TrigramQuery() {
+    }
+
+    /**
+     * @return the MATCH expression, or null when the text is too short to
+     *         narrow the search
+     */
+    public static String forSubstring(String text) {
+        return toMatch(text.codePointCount(0, text.length()) >= MIN_LENGTH ? List.of(text) : List.of());
+    }
+
+    /**
+     * @return the MATCH expression, or null when the regex has no required
+     *         literal of at least three characters (every row is a candidate)
+     */
+    public static String forRegex(Pattern pattern) {
+        if ((pattern.flags() & (Pattern.COMMENTS | Pattern.LITERAL)) != 0) {
+            return (pattern.flags() & Pattern.LITERAL) != 0 ? forSubstring(pattern.pattern()) : null;
+        }
+        return toMatch(requiredLiterals(pattern.pattern()));
+    }
+
+    private static String toMatch(List<String> literals) {
+        if (literals.isEmpty()) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String literal : literals) {
+            terms.add("\"" + literal.replace("\"", "\"\"") + "\"");
+        }
+        return String.join(" AND ", terms);
+    }
+
+    /**
+     * Literal runs of at least three characters that any match of the regex
+     * contains. Only the top level of the regex is read: groups, classes and
+     * escapes such as \d end a run, a quantifier that allows zero repetitions
+     * drops the character before it, and a top-level alternation means no
+     * run is required at all. Assumes the regex compiles.
+     */
+    static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        // Length of the last single character in run, which a quantifier applies to
+        int lastAtom = 0;
+        int i = 0;
+        int length = regex.length();
+        while (i < length) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '\\' -> {
+                    char next = i + 1 < length ? regex.charAt(i + 1) : 0;
+                    if (next == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        String quoted = regex.substring(i + 2, end != -1 ? end : length);
+                        run.append(quoted);
+                        lastAtom = quoted.isEmpty() ? 0 : Character.charCount(quoted.codePointBefore(quoted.length()));
+                        i = end != -1 ? end + 2 : length;
+                    } else if (next != 0 && !Character.isLetterOrDigit(next)) {
+                        run.append(next);
+                        lastAtom = 1;
+                        i += 2;
+                    } else {
+                        flush(literals, run);
+                        lastAtom = 0;
+                        i = skipEscape(regex, i);
+                    }
+                }
+                case '(' -> {
+                    if (hasCommentsFlag(regex, i)) {
+                        return List.of();
+                    }
+                    flush(literals, run);
+                    lastAtom = 0;
+                    i = skipGroup(regex, i);
+                }
+                case '[' -> {
+                    flush(literals, run);
+                    lastAtom = 0;
+                    i = skipClass(regex, i);
+                }
+                case '|' -> {
+                    return List.of();
+                }
+                case '*', '?', '+', '{' -> {
+                    boolean optional = c == '*' || c == '?' || (c == '{' && minRepetitions(regex, i) == 0);
+                    if (optional) {
+                        run.setLength(run.length() - lastAtom);
+                    }
+                    flush(literals, run);
+                    lastAtom = 0;
+                    i = c == '{' ? regex.indexOf('}', i) + 1 : i + 1;
+                    // Lazy and possessive modifiers
+                    if (i < length && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+                        i++;
+                    }
+                }
+                case '.', '^', '$' -> {
+                    flush(literals, run);
+                    lastAtom = 0;
+                    i++;
+                }
+                default -> {
+                    int count = Character.charCount(regex.codePointAt(i));
+                    run.append(regex, i, i + count);
+                    lastAtom = count;
+                    i += count;
+                }
+            }
+        }
+        flush(literals, run);
+        return literals;
+    }
+
+    private static void flush(List<String> literals, StringBuilder run) {
+        if (run.codePoints().count() >= MIN_LENGTH) {
+            literals.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    /**
+     * @return the index after an escape such as \d, \p{Alpha}, \x41 or \k&lt;name&gt;
+     */
+    private static int skipEscape(String regex, int i) {
+        int length = regex.length();
+        if (i + 1 >= length) {
+            return length;
+        }
+        char kind = regex.charAt(i + 1);
+        int next = i + 2;
+        if (next < length && regex.charAt(next) == '{' && (kind == 'p' || kind == 'P' || kind == 'x' || kind == 'N')) {
+            return regex.indexOf('}', next) + 1;
+        }
+        return switch (kind) {
+            case 'p', 'P', 'c' -> Math.min(next + 1, length);
+            case 'k' -> regex.indexOf('>', next) + 1;
+            case 'x' -> Math.min(next + 2, length);
+            case 'u' -> Math.min(next + 4, length);
+            case '0' -> {
+                int end = next;
+                while (end < length && end < next + 3 && regex.charAt(end) >= '0' && regex.charAt(end) <= '7') {
+                    end++;
+                }
+                yield end;
+            }
+            default -> {
+                int end = next;
+                if (Character.isDigit(kind)) {
+                    // Back reference
+                    while (end < length && Character.isDigit(regex.charAt(end))) {
+                        end++;
+                    }
+                }
+                yield end;
+            }
+        };
+    }
+
+    /**
+     * @return the index after the ')' closing the group opened at i
+     */
+    private static int skipGroup(String regex, int i) {
+        int depth = 0;
+        int length = regex.length();
+        while (i < length) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < length && regex.charAt(i + 1) == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    i = end != -1 ? end + 2 : length;
+                } else {
+                    i += 2;
+                }
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    /**
+     * @return the index after the ']' closing the character class opened at i
+     */
+    private static int skipClass(String regex, int i) {
+        int depth = 0;
+        int length = regex.length();
+        while (i < length) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < length && regex.charAt(i + 1) == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    i = end != -1 ? end + 2 : length;
+                } else {
+                    i += 2;
+                }
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                // A ']' right after the opening bracket (or '^') is a literal
+                if (i + 1 < length && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < length && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    /**
+     * @return whether the group at i is an inline flag group turning on
+     *         comments mode, e.g. (?x) or (?ix:...), in which whitespace
+     *         and # are not literals
+     */
+    private static boolean hasCommentsFlag(String regex, int i) {
+        if (!regex.startsWith("(?", i)) {
+            return false;
+        }
+        for (int j = i + 2; j < regex.length(); j++) {
+            char c = regex.charAt(j);
+            if (c == 'x') {
+                return true;
+            }
+            if (!Character.isLetter(c)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static int minRepetitions(String regex, int i) {
+        int end = i + 1;
+        while (end < regex.length() && Character.isDigit(regex.charAt(end))) {
+            end++;
+        }
+        return end > i + 1 ? Integer.parseInt(regex.substring(i + 1, end)) : 0;
+    }
+}
@@ -0,0 +1,10 @@
+-- DDL applied after Hibernate ddl-auto on every startup; keep statements idempotent.
+
+-- Content-hash dedup key for command logs (see com.tracer.util.DedupKey)
+CREATE UNIQUE INDEX IF NOT EXISTS idx_dedup_key ON command_logs (dedup_key);
+
+-- One row per (dimension, date, value) in the daily rollups (see com.tracer.service.DailyRollupService)
+CREATE UNIQUE INDEX IF NOT EXISTS idx_daily_rollups_key ON daily_rollups (dimension, date, dimension_value);
+
+-- Top values of a dimension, read from its all-time rows (date '') largest first
+CREATE INDEX IF NOT EXISTS idx_daily_rollups_count ON daily_rollups (dimension, date, count);
@@ -0,0 +1,102 @@
+package com.tracer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileChangeCoalescerTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private final FileChangeCoalescer coalescer = new FileChangeCoalescer(300, 1000);
+
+    @Test
+    void mergesConsecutiveEventTypes() {
+        assertThat(FileChangeCoalescer.mergeEventTypes("created", "modified")).isEqualTo("created");
+        assertThat(FileChangeCoalescer.mergeEventTypes("created", "deleted")).isNull();
+        assertThat(FileChangeCoalescer.mergeEventTypes("deleted", "created")).isEqualTo("modified");
+        assertThat(FileChangeCoalescer.mergeEventTypes("modified", "deleted")).isEqualTo("deleted");
+        assertThat(FileChangeCoalescer.mergeEventTypes("modified", "modified")).isEqualTo("modified");
+    }
+
+    @Test
+    void drainsAPathOnceItHasBeenQuietForTheDebounceWindow() {
+        Path file = Path.of("/w/a.txt");
+        coalescer.add(file, "modified", false, T0, 2, 0);
+        coalescer.add(file, "modified", false, T0.plusNanos(200_000_000), 1, 200);
+
+        assertThat(coalescer.drainReady(400)).isEmpty();
+        assertThat(coalescer.drainReady(500)).containsExactly(
+            new FileChangeCoalescer.Change(file, "modified", false, T0.plusNanos(200_000_000), null, 3));
+        assertThat(coalescer.isEmpty()).isTrue();
+    }
+
+    @Test
+    void drainsAContinuouslyWrittenPathAfterTheMaxDelay() {
+        Path file = Path.of("/w/log.txt");
+        for (long now = 0; now < 1000; now += 100) {
+            coalescer.add(file, "modified", false, T0, 1, now);
+            assertThat(coalescer.drainReady(now)).isEmpty();
+        }
+
+        assertThat(coalescer.drainReady(1000)).singleElement()
+            .extracting(FileChangeCoalescer.Change::rawEventCount).isEqualTo(10);
+    }
+
+    @Test
+    void temporaryFileLeavesNoChange() {
+        Path file = Path.of("/w/.a.txt.swp");
+        coalescer.add(file, "created", false, T0, 1, 0);
+        coalescer.add(file, "modified", false, T0, 1, 10);
+        coalescer.add(file, "deleted", false, T0, 1, 20);
+
+        assertThat(coalescer.isEmpty()).isTrue();
+
+        coalescer.add(file, "created", false, T0, 1, 30);
+        assertThat(coalescer.drainAll()).extracting(FileChangeCoalescer.Change::eventType).containsExactly("created");
+    }
+
+    @Test
+    void leavesDeleteAndCreateOfDifferentNamesAlone() {
+        // rm a.log; touch b.txt
+        coalescer.add(Path.of("/w/a.log"), "deleted", false, T0, 1, 0);
+        coalescer.add(Path.of("/w/b.txt"), "created", false, T0.plusSeconds(1), 2, 0);
+        coalescer.add(Path.of("/w/other.txt"), "modified", false, T0, 1, 0);
+
+        assertThat(coalescer.drainReady(300)).containsExactly(
+            new FileChangeCoalescer.Change(Path.of("/w/a.log"), "deleted", false, T0, null, 1),
+            new FileChangeCoalescer.Change(Path.of("/w/b.txt"), "created", false, T0.plusSeconds(1), null, 2),
+            new FileChangeCoalescer.Change(Path.of("/w/other.txt"), "modified", false, T0, null, 1));
+    }
+
+    @Test
+    void pairsDeleteAndCreateOfTheSameNameAcrossDirectories() {
+        coalescer.add(Path.of("/w/a/report.txt"), "deleted", false, T0, 1, 0);
+        coalescer.add(Path.of("/w/b/report.txt"), "created", false, T0, 1, 0);
+
+        assertThat(coalescer.drainAll()).singleElement().satisfies(change -> {
+            assertThat(change.eventType()).isEqualTo("moved");
+            assertThat(change.path()).isEqualTo(Path.of("/w/b/report.txt"));
+            assertThat(change.srcPath()).isEqualTo(Path.of("/w/a/report.txt"));
+        });
+    }
+
+    @Test
+    void leavesAmbiguousOrMismatchedPairsAlone() {
+        coalescer.add(Path.of("/w/a/report.txt"), "deleted", false, T0, 1, 0);
+        coalescer.add(Path.of("/w/b/report.txt"), "created", false, T0, 1, 0);
+        coalescer.add(Path.of("/w/c/report.txt"), "created", false, T0, 1, 0);
+        coalescer.add(Path.of("/x/build"), "deleted", true, T0, 1, 0);
+        coalescer.add(Path.of("/y/build"), "created", false, T0, 1, 0);
+
+        List<FileChangeCoalescer.Change> changes = coalescer.drainAll();
+
+        assertThat(changes).extracting(FileChangeCoalescer.Change::eventType)
+            .containsExactly("deleted", "created", "created", "deleted", "created");
+        assertThat(changes).allSatisfy(change -> assertThat(change.srcPath()).isNull());
+    }
+}
@@ -0,0 +1,261 @@
+package com.tracer.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks CommandLineParser against {@link ReferenceParser}, the regex and
+ * JsonNode based parser it replaced, which defines the expected results.
+ */
+class CommandLineParserTest {
+
+    private static final List<String> EDGE_CASES = List.of(
+        // Text lines
+        "2025-10-01 08:30:15 [john] ~/Documents/project: ls -la",
+        "  2025-10-01 08:30:15 [john] ~/dir: ls  \n",
+        "2025-10-01\t08:30:15 \t[john]\t~/dir:\tls",
+        "2025-10-01\u000B08:30:15\f[john]\u000B~/dir:\u000Bls",
+        "2025-10-01\u00A008:30:15 [john] ~/dir: ls",
+        "2025-10-0108:30:15 [john] ~/dir: ls",
+        "2025-10-01 08:30:15[john] ~/dir: ls",
+        "2025-10-01 08:30:15 [john]~/dir: ls",
+        "2025-10-01 08:30:15 [john] C: temp: echo a: b",
+        "2025-10-01 08:30:15 [john] a:b: cmd",
+        "2025-10-01 08:30:15 [john] dir:cmd",
+        "2025-10-01 08:30:15 [john] dir:",
+        "2025-10-01 08:30:15 [john] dir: \u2028",
+        "2025-10-01 08:30:15 [john] dir: \u2028: ls",
+        "2025-10-01 08:30:15 [john] d\u0085ir: ls",
+        "2025-10-01 08:30:15 [john] dir: ls\u0085",
+        "2025-10-01 08:30:15 [john] dir: ls\u2029more",
+        "2025-10-01 08:30:15 [john] : cmd",
+        "2025-10-01 08:30:15 [john doe] ~: echo 日本語",
+        "2025-10-01 08:30:15 [] ~: ls",
+        "2025-10-01 08:30:15 [a[b] ~: ls",
+        "2025-10-01 08:30:15 [a]b] ~: ls",
+        "2025-13-01 08:30:15 [john] ~: ls",
+        "2025-02-30 08:30:15 [john] ~: ls",
+        "2024-02-29 08:30:15 [john] ~: ls",
+        "2023-02-29 08:30:15 [john] ~: ls",
+        "2025-04-31 08:30:15 [john] ~: ls",
+        "2025-00-10 08:30:15 [john] ~: ls",
+        "2025-10-00 08:30:15 [john] ~: ls",
+        "0000-10-01 08:30:15 [john] ~: ls",
+        "2025-10-01 24:00:00 [john] ~: ls",
+        "2025-10-01 23:60:00 [john] ~: ls",
+        "2025-10-01 08:30 [john] ~: ls",
+        "٢٠٢٥-10-01 08:30:15 [john] ~: ls",
+        "2025-10-01",
+        // JSON lines
+        "{\"timestamp\": \"2025-10-01T08:30:15\", \"user\": \"john\", \"directory\": \"~\", \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-10-01T08:30:15Z\", \"user\": \"john\", \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-10-01T08:30:15+09:00\", \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-10-01T08:30:15.123\", \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-02-30T08:30:15\", \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-10-01 08:30:15\", \"command\": \"ls\"}",
+        "{\"timestamp\": 1727771415, \"date\": \"2025-10-01\", \"time\": \"08:30:15\", \"command\": \"ls\"}",
+        "{\"date\": \"2025-10-01\", \"time\": \"08:30:15\", \"username\": \"jane\", \"cwd\": \"/tmp\"}",
+        "{\"date\": \"2025-02-30\", \"time\": \"08:30:15\", \"command\": \"ls\"}",
+        "{\"date\": \"2025-10-01\", \"time\": \"25:00:00\", \"command\": \"ls\"}",
+        "{\"date\": 20251001, \"time\": \"08:30:15\", \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-10-01T08:30:15\", \"user\": 42, \"directory\": null, \"command\": true}",
+        "{\"timestamp\": \"2025-10-01T08:30:15\", \"user\": 1.50, \"directory\": [\"a\"], \"command\": {\"a\": 1}}",
+        "{\"timestamp\": \"2025-10-01T08:30:15\", \"user\": \"a\", \"user\": \"b\", \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-10-01T08:30:15\", \"extra\": {\"nested\": [1, \"x\", {}]}, \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-10-01T08:30:15\", \"extra\": \"\\q\", \"command\": \"ls\"}",
+        "{\"timestamp\": \"2025-10-01T08:30:15\", \"command\": \"echo \\\"\\u00e9\\\"\"} trailing",
+        "{\"timestamp\": \"2025-10-01T08:30:15\", \"command\": ",
+        "{");
+
+    private final CommandLineParser parser = new CommandLineParser();
+    private final ReferenceParser reference = new ReferenceParser();
+
+    @Test
+    void parsesSampleLines() {
+        CommandLineParser.ParsedCommand text = parser.parseCommandLine(
+            "2025-10-01 08:30:15 [john] ~/Documents/project: cd /home/john/Documents");
+        CommandLineParser.ParsedCommand json = parser.parseCommandLine(
+            "{\"timestamp\": \"2025-10-01T08:30:15\", \"user\": \"john\", \"directory\": \"~/Documents/project\", "
+                + "\"command\": \"cd /home/john/Documents\"}");
+
+        for (CommandLineParser.ParsedCommand parsed : List.of(text, json)) {
+            assertThat(parsed.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 10, 1, 8, 30, 15));
+            assertThat(parsed.getDate()).isEqualTo("2025-10-01");
+            assertThat(parsed.getTime()).isEqualTo("08:30:15");
+            assertThat(parsed.getUser()).isEqualTo("john");
+            assertThat(parsed.getDirectory()).isEqualTo("~/Documents/project");
+            assertThat(parsed.getCommand()).isEqualTo("cd /home/john/Documents");
+        }
+    }
+
+    @Test
+    void textDatesAreResolvedLikeTheFormatter() {
+        CommandLineParser.ParsedCommand adjusted = parser.parseCommandLine("2025-02-30 08:30:15 [john] ~: ls");
+
+        assertThat(adjusted.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 2, 28, 8, 30, 15));
+        assertThat(adjusted.getDate()).isEqualTo("2025-02-30");
+        assertThatThrownBy(() -> parser.parseCommandLine("2025-13-01 08:30:15 [john] ~: ls"))
+            .isInstanceOf(DateTimeParseException.class);
+    }
+
+    @Test
+    void edgeCasesMatchTheReference() {
+        for (String line : EDGE_CASES) {
+            assertThat(outcome(() -> parser.parseCommandLine(line)))
+                .as("%s", line)
+                .isEqualTo(expected(line));
+        }
+    }
+
+    @Test
+    void sampleFilesMatchTheReference() throws IOException {
+        for (String file : List.of("sample_command_history.txt", "sample_command_log.jsonl")) {
+            List<String> lines = Files.readAllLines(Path.of("data", file), StandardCharsets.UTF_8);
+            assertThat(lines).isNotEmpty();
+            for (String line : lines) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                assertThat(parser.parseCommandLine(line)).as("%s", line).isNotNull();
+                assertThat(outcome(() -> parser.parseCommandLine(line))).as("%s", line).isEqualTo(expected(line));
+            }
+        }
+    }
+
+    @Test
+    void mutatedSampleLinesMatchTheReference() throws IOException {
+        List<String> samples = new ArrayList<>(EDGE_CASES);
+        samples.addAll(Files.readAllLines(Path.of("data", "sample_command_history.txt"), StandardCharsets.UTF_8));
+        samples.addAll(Files.readAllLines(Path.of("data", "sample_command_log.jsonl"), StandardCharsets.UTF_8));
+        String inserts = " \t\u000B\f\r\n\u0085\u2028\u00A0:[]-0123456789TZ+.\"\\{},é";
+        Random random = new Random(14);
+        for (int round = 0; round < 20_000; round++) {
+            StringBuilder line = new StringBuilder(samples.get(random.nextInt(samples.size())));
+            int edits = 1 + random.nextInt(3);
+            for (int i = 0; i < edits; i++) {
+                int position = random.nextInt(line.length() + 1);
+                char c = inserts.charAt(random.nextInt(inserts.length()));
+                switch (random.nextInt(3)) {
+                    case 0 -> line.insert(position, c);
+                    case 1 -> {
+                        if (position < line.length()) {
+                            line.deleteCharAt(position);
+                        }
+                    }
+                    default -> {
+                        if (position < line.length()) {
+                            line.setCharAt(position, c);
+                        }
+                    }
+                }
+            }
+            String mutated = line.toString();
+            assertThat(outcome(() -> parser.parseCommandLine(mutated))).as("%s", mutated).isEqualTo(expected(mutated));
+        }
+    }
+
+    private String expected(String line) {
+        return outcome(() -> reference.parseCommandLine(line));
+    }
+
+    /**
+     * @return the parsed fields, "null" or the exception type; lines without
+     *         a timestamp are stamped with the current time, which is left out
+     */
+    private static String outcome(Callable<CommandLineParser.ParsedCommand> parse) {
+        CommandLineParser.ParsedCommand parsed;
+        try {
+            parsed = parse.call();
+        } catch (Exception e) {
+            return "throws " + e.getClass().getName();
+        }
+        if (parsed == null) {
+            return "null";
+        }
+        boolean now = parsed.getTimestamp().isAfter(LocalDateTime.now().minusMinutes(1));
+        return String.join("|",
+            now ? "now" : parsed.getTimestamp().toString(),
+            now ? "now" : parsed.getDate(),
+            now ? "now" : parsed.getTime(),
+            parsed.getUser(), parsed.getDirectory(), parsed.getCommand(), parsed.getRawLine());
+    }
+
+    /**
+     * The parser before it was rewritten as a single pass.
+     */
+    private static class ReferenceParser {
+        private static final Pattern TEXT_PATTERN = Pattern.compile(
+            "(\\d{4}-\\d{2}-\\d{2})\\s+(\\d{2}:\\d{2}:\\d{2})\\s+\\[([^\\]]+)\\]\\s+(.*?):\\s+(.+)$"
+        );
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        CommandLineParser.ParsedCommand parseCommandLine(String line) {
+            if (line == null || line.trim().isEmpty()) {
+                return null;
+            }
+            line = line.trim();
+            return line.startsWith("{") ? parseJsonLine(line) : parseTextLine(line);
+        }
+
+        private CommandLineParser.ParsedCommand parseJsonLine(String line) {
+            try {
+                JsonNode data = objectMapper.readTree(line);
+
+                LocalDateTime timestamp;
+                if (data.has("timestamp") && data.get("timestamp").isTextual()) {
+                    String timestampStr = data.get("timestamp").asText().replace("Z", "+00:00");
+                    timestamp = LocalDateTime.parse(timestampStr, DateTimeFormatter.ISO_DATE_TIME);
+                } else if (data.has("date") && data.has("time")) {
+                    timestamp = LocalDateTime.parse(data.get("date").asText() + " " + data.get("time").asText(),
+                        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+                } else {
+                    timestamp = LocalDateTime.now();
+                }
+
+                return new CommandLineParser.ParsedCommand(
+                    timestamp,
+                    timestamp.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
+                    timestamp.format(DateTimeFormatter.ofPattern("HH:mm:ss")),
+                    data.has("user") ? data.get("user").asText()
+                        : (data.has("username") ? data.get("username").asText() : "unknown"),
+                    data.has("directory") ? data.get("directory").asText()
+                        : (data.has("cwd") ? data.get("cwd").asText() : ""),
+                    data.has("command") ? data.get("command").asText() : "",
+                    line
+                );
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        private CommandLineParser.ParsedCommand parseTextLine(String line) {
+            Matcher matcher = TEXT_PATTERN.matcher(line);
+            if (!matcher.matches()) {
+                return null;
+            }
+            LocalDateTime timestamp = LocalDateTime.parse(matcher.group(1) + " " + matcher.group(2),
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+            return new CommandLineParser.ParsedCommand(timestamp, matcher.group(1), matcher.group(2),
+                matcher.group(3), matcher.group(4), matcher.group(5), line);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.tracer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineDiffTest {
+
+    @Test
+    void identicalTextsHaveNoHunks() {
+        LineDiff.Result result = LineDiff.diff("a\nb\n", "a\nb\n", 3, 100);
+
+        assertThat(result.additions()).isZero();
+        assertThat(result.deletions()).isZero();
+        assertThat(result.hunks()).isEmpty();
+    }
+
+    @Test
+    void hunkHasUnifiedDiffHeaderAndContext() {
+        LineDiff.Result result = LineDiff.diff("a\nb\nc\nd\ne\n", "a\nb\nC\nd\ne\n", 1, 100);
+
+        assertThat(result.hunks()).containsExactly(
+            new LineDiff.Hunk(2, 3, 2, 3, List.of(" b", "-c", "+C", " d")));
+    }
+
+    @Test
+    void emptySidePointsAtTheLineBefore() {
+        LineDiff.Result added = LineDiff.diff(null, "a\nb\n", 0, 100);
+        LineDiff.Result removed = LineDiff.diff("a\n", "", 0, 100);
+
+        assertThat(added.hunks()).containsExactly(new LineDiff.Hunk(0, 0, 1, 2, List.of("+a", "+b")));
+        assertThat(removed.hunks()).containsExactly(new LineDiff.Hunk(1, 1, 0, 0, List.of("-a")));
+    }
+
+    @Test
+    void onlyTheChangedRegionCountsAgainstMaxLines() {
+        StringBuilder before = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            before.append("line ").append(i).append('\n');
+        }
+        String after = before.toString().replace("line 500\n", "changed\n");
+
+        assertThat(LineDiff.diff(before.toString(), after, 3, 2)).isNotNull();
+        assertThat(LineDiff.diff("a\nb\n", "c\nd\n", 3, 3)).isNull();
+    }
+
+    @Test
+    void randomDiffsAreMinimalAndReproduceTheNewText() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            List<String> oldLines = randomLines(random);
+            List<String> newLines = random.nextBoolean() ? mutate(oldLines, random) : randomLines(random);
+            int context = random.nextInt(4);
+
+            LineDiff.Result result = LineDiff.diff(join(oldLines), join(newLines), context, 10_000);
+
+            int lcs = lcsLength(oldLines, newLines);
+            assertThat(result.deletions()).as("deletions of %s -> %s", oldLines, newLines)
+                .isEqualTo(oldLines.size() - lcs);
+            assertThat(result.additions()).as("additions of %s -> %s", oldLines, newLines)
+                .isEqualTo(newLines.size() - lcs);
+            assertThat(apply(oldLines, result.hunks())).as("patch of %s -> %s", oldLines, newLines)
+                .isEqualTo(newLines);
+        }
+    }
+
+    private static List<String> randomLines(Random random) {
+        List<String> lines = new ArrayList<>();
+        int count = random.nextInt(20);
+        for (int i = 0; i < count; i++) {
+            lines.add(String.valueOf((char) ('a' + random.nextInt(4))));
+        }
+        return lines;
+    }
+
+    private static List<String> mutate(List<String> lines, Random random) {
+        List<String> result = new ArrayList<>(lines);
+        int edits = 1 + random.nextInt(3);
+        for (int i = 0; i < edits; i++) {
+            int position = random.nextInt(result.size() + 1);
+            if (random.nextBoolean() && position < result.size()) {
+                result.remove(position);
+            } else {
+                result.add(position, String.valueOf((char) ('a' + random.nextInt(6))));
+            }
+        }
+        return result;
+    }
+
+    private static String join(List<String> lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static int lcsLength(List<String> a, List<String> b) {
+        int[][] lengths = new int[a.size() + 1][b.size() + 1];
+        for (int i = a.size() - 1; i >= 0; i--) {
+            for (int j = b.size() - 1; j >= 0; j--) {
+                lengths[i][j] = a.get(i).equals(b.get(j))
+                    ? lengths[i + 1][j + 1] + 1 : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+            }
+        }
+        return lengths[0][0];
+    }
+
+    /**
+     * Applies the hunks to the old lines, checking their headers and the lines they keep or remove.
+     */
+    private static List<String> apply(List<String> oldLines, List<LineDiff.Hunk> hunks) {
+        List<String> result = new ArrayList<>();
+        int position = 0;
+        for (LineDiff.Hunk hunk : hunks) {
+            int start = hunk.oldLines() > 0 ? hunk.oldStart() - 1 : hunk.oldStart();
+            assertThat(start).isGreaterThanOrEqualTo(position);
+            result.addAll(oldLines.subList(position, start));
+            assertThat(hunk.newLines() > 0 ? hunk.newStart() - 1 : hunk.newStart()).isEqualTo(result.size());
+
+            position = start;
+            int oldCount = 0;
+            int newCount = 0;
+            for (String line : hunk.lines()) {
+                String text = line.substring(1);
+                if (line.charAt(0) != '+') {
+                    assertThat(oldLines.get(position++)).isEqualTo(text);
+                    oldCount++;
+                }
+                if (line.charAt(0) != '-') {
+                    result.add(text);
+                    newCount++;
+                }
+            }
+            assertThat(oldCount).isEqualTo(hunk.oldLines());
+            assertThat(newCount).isEqualTo(hunk.newLines());
+        }
+        result.addAll(oldLines.subList(position, oldLines.size()));
+        return result;
+    }
+}
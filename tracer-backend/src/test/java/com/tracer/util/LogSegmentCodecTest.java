@@ -0,0 +1,122 @@
+package com.tracer.util;
+
+import com.tracer.entity.CommandLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogSegmentCodecTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 14, 0, 0);
+
+    @Test
+    void roundTripsEveryColumn() {
+        Random random = new Random(11);
+        List<CommandLog> logs = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Late imports give old timestamps to new ids, so ids are not sorted
+            LocalDateTime timestamp = DAY.plusNanos(random.nextInt(86_400_000) * 1_000_000L);
+            if (i > 0 && random.nextInt(10) == 0) {
+                timestamp = logs.get(i - 1).getTimestamp();
+            }
+            logs.add(log(1 + random.nextInt(1_000_000), timestamp,
+                "user" + random.nextInt(3), "/home/dir" + random.nextInt(50),
+                randomText(random), randomText(random)));
+        }
+        logs.sort(Comparator.comparing(CommandLog::getTimestamp).thenComparing(CommandLog::getId));
+
+        LogSegmentCodec.Segment segment = LogSegmentCodec.decode(LogSegmentCodec.encode(logs));
+
+        LogSegmentCodec.Header header = segment.header();
+        assertThat(header.rows()).isEqualTo(logs.size());
+        assertThat(header.firstTimestamp()).isEqualTo(logs.get(0).getTimestamp());
+        assertThat(header.lastTimestamp()).isEqualTo(logs.get(logs.size() - 1).getTimestamp());
+        assertThat(header.minId()).isEqualTo(logs.stream().mapToInt(CommandLog::getId).min().orElseThrow());
+        assertThat(header.maxId()).isEqualTo(logs.stream().mapToInt(CommandLog::getId).max().orElseThrow());
+        assertThat(segment.users()).hasSize(3);
+        for (int row = 0; row < logs.size(); row++) {
+            CommandLog log = logs.get(row);
+            assertThat(segment.id(row)).isEqualTo(log.getId());
+            assertThat(segment.timestamp(row)).isEqualTo(log.getTimestamp());
+            assertThat(segment.user(row)).isEqualTo(log.getUser());
+            assertThat(segment.directory(row)).isEqualTo(log.getDirectory());
+            assertThat(segment.command(row)).isEqualTo(log.getCommand());
+        }
+        assertThat(segment.rawLine(0)).isEqualTo(logs.get(0).getRawLine());
+        assertThat(segment.rawLine(logs.size() - 1)).isEqualTo(logs.get(logs.size() - 1).getRawLine());
+    }
+
+    @Test
+    void headerIsReadFromTheStartOfTheSegment() {
+        byte[] data = LogSegmentCodec.encode(List.of(
+            log(7, DAY.plusHours(1), "a", "/", "ls", "{}"),
+            log(3, DAY.plusHours(2), "a", "/", "pwd", "{}")));
+
+        LogSegmentCodec.Header header = LogSegmentCodec.readHeader(
+            Arrays.copyOf(data, LogSegmentCodec.HEADER_SIZE));
+
+        assertThat(header.rows()).isEqualTo(2);
+        assertThat(header.minId()).isEqualTo(3);
+        assertThat(header.maxId()).isEqualTo(7);
+        assertThat(header.lastTimestamp()).isEqualTo(DAY.plusHours(2));
+    }
+
+    @Test
+    void dictionariesAreReadWithoutTheRows() {
+        byte[] data = LogSegmentCodec.encode(List.of(
+            log(1, DAY.plusHours(1), "a", "/home", "ls", "{}"),
+            log(2, DAY.plusHours(2), "b", "/tmp", "pwd", "{}"),
+            log(3, DAY.plusHours(3), "a", "/home", "id", "{}")));
+        LogSegmentCodec.Header header = LogSegmentCodec.readHeader(data);
+        int offset = LogSegmentCodec.dictionariesOffset(header);
+
+        LogSegmentCodec.Dictionaries dictionaries = LogSegmentCodec.readDictionaries(header,
+            Arrays.copyOfRange(data, offset, offset + LogSegmentCodec.dictionariesLength(header)));
+
+        assertThat(dictionaries.users()).containsExactly("a", "b");
+        assertThat(dictionaries.directories()).containsExactly("/home", "/tmp");
+    }
+
+    @Test
+    void rejectsUnsortedLogsAndForeignData() {
+        List<CommandLog> unsorted = List.of(
+            log(1, DAY.plusHours(2), "a", "/", "ls", "{}"),
+            log(2, DAY.plusHours(1), "a", "/", "ls", "{}"));
+
+        assertThatThrownBy(() -> LogSegmentCodec.encode(unsorted)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LogSegmentCodec.decode(new byte[LogSegmentCodec.HEADER_SIZE]))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LogSegmentCodec.readHeader(new byte[3]))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CommandLog log(int id, LocalDateTime timestamp, String user, String directory,
+                                  String command, String rawLine) {
+        CommandLog log = new CommandLog();
+        log.setId(id);
+        log.setTimestamp(timestamp);
+        log.setUser(user);
+        log.setDirectory(directory);
+        log.setCommand(command);
+        log.setRawLine(rawLine);
+        return log;
+    }
+
+    private static String randomText(Random random) {
+        String[] pieces = {"", "git ", "status", "ü", "日本", "\n", "\"", "😀", "-rf /tmp"};
+        StringBuilder text = new StringBuilder();
+        int count = random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            text.append(pieces[random.nextInt(pieces.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.tracer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotCodecTest {
+
+    @Test
+    void splitLinesKeepsTerminators() {
+        assertThat(SnapshotCodec.splitLines("a\r\nb\n\nc")).containsExactly("a\r\n", "b\n", "\n", "c");
+        assertThat(SnapshotCodec.splitLines("")).isEmpty();
+    }
+
+    @Test
+    void fullSnapshotRoundTrips() {
+        String content = "héllo\r\nwörld 😀\n\tlast line without newline";
+
+        assertThat(SnapshotCodec.decodeFull(SnapshotCodec.encodeFull(content))).isEqualTo(content);
+    }
+
+    @Test
+    void deltaChainsRebuildEveryVersion() {
+        Random random = new Random(3);
+        for (int round = 0; round < 500; round++) {
+            String base = randomContent(random);
+            String content = base;
+            for (int version = 0; version < 8; version++) {
+                String next = random.nextInt(4) == 0 ? randomContent(random) : edit(content, random);
+
+                byte[] delta = SnapshotCodec.encodeDelta(content, next);
+
+                assertThat(SnapshotCodec.applyDelta(content, delta)).as("%s -> %s", content, next).isEqualTo(next);
+                content = next;
+            }
+        }
+    }
+
+    @Test
+    void deltaOfSmallEditStoresOnlyTheChangedLines() {
+        StringBuilder base = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            base.append("line ").append(i * 7919 % 10007).append('\n');
+        }
+        String target = base.toString().replace("line 7919\n", "changed\n");
+
+        byte[] delta = SnapshotCodec.encodeDelta(base.toString(), target);
+
+        assertThat(delta.length).isLessThan(100);
+        assertThat(SnapshotCodec.applyDelta(base.toString(), delta)).isEqualTo(target);
+    }
+
+    @Test
+    void deltaRejectsAnotherBase() {
+        byte[] delta = SnapshotCodec.encodeDelta("a\nb\n", "a\nc\n");
+
+        assertThatThrownBy(() -> SnapshotCodec.applyDelta("a\nb\nc\n", delta))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String randomContent(Random random) {
+        String[] lines = {"a\n", "b\n", "c\r\n", "\n", "ü日本\n", "tail"};
+        StringBuilder content = new StringBuilder();
+        int count = random.nextInt(12);
+        for (int i = 0; i < count; i++) {
+            String line = lines[random.nextInt(lines.length)];
+            // Only the last line may lack a terminator
+            content.append(line.endsWith("\n") || i == count - 1 ? line : line + "\n");
+        }
+        return content.toString();
+    }
+
+    private static String edit(String content, Random random) {
+        if (content.isEmpty()) {
+            return randomContent(random);
+        }
+        int start = random.nextInt(content.length());
+        int end = Math.min(content.length(), start + random.nextInt(8));
+        return content.substring(0, start) + randomContent(random) + content.substring(end);
+    }
+}
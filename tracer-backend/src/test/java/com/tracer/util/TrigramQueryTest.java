@@ -0,0 +1,201 @@
+package com.tracer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramQueryTest {
+
+    private static final String ALPHABET = "abcxyz-/ _";
+
+    @Test
+    void substringIsQuotedAndShortTextIsNotNarrowed() {
+        assertThat(TrigramQuery.forSubstring("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(TrigramQuery.forSubstring("ab")).isNull();
+    }
+
+    @Test
+    void regexIsNarrowedByItsRequiredLiterals() {
+        assertThat(TrigramQuery.requiredLiterals("rm\\s+-rf /tmp.*")).containsExactly("-rf /tmp");
+        assertThat(TrigramQuery.requiredLiterals("git (push|pull) origin")).containsExactly("git ", " origin");
+        assertThat(TrigramQuery.requiredLiterals("abcd?")).containsExactly("abc");
+        assertThat(TrigramQuery.requiredLiterals("abc{0,1}x")).isEmpty();
+        assertThat(TrigramQuery.requiredLiterals("\\Qa.b*\\E")).containsExactly("a.b*");
+        assertThat(TrigramQuery.requiredLiterals("docker|podman")).isEmpty();
+        assertThat(TrigramQuery.requiredLiterals("(?x)abc def")).isEmpty();
+        assertThat(TrigramQuery.forRegex(Pattern.compile("a.c", Pattern.LITERAL))).isEqualTo("\"a.c\"");
+        assertThat(TrigramQuery.forRegex(Pattern.compile("abc def", Pattern.COMMENTS))).isNull();
+    }
+
+    @Test
+    void everyMatchContainsTheRequiredLiterals() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20_000; round++) {
+            boolean ignoreCase = random.nextInt(8) == 0;
+            Node regex = random.nextInt(6) == 0 ? alternation(random, 0, true) : sequence(random, 0, true);
+            String source = (ignoreCase ? "(?i)" : "") + regex.regex();
+
+            StringBuilder text = new StringBuilder();
+            noise(random, text);
+            regex.sample(random, text);
+            noise(random, text);
+            String subject = ignoreCase ? randomCase(random, text.toString()) : text.toString();
+
+            assertThat(Pattern.compile(source).matcher(subject).find()).as("%s finds %s", source, subject).isTrue();
+            String folded = subject.toLowerCase(Locale.ROOT);
+            for (String literal : TrigramQuery.requiredLiterals(source)) {
+                assertThat(folded).as("%s matched by %s", literal, source).contains(literal.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * A generated regex that can also produce a string it matches.
+     */
+    private interface Node {
+        String regex();
+
+        void sample(Random random, StringBuilder out);
+    }
+
+    private record Fixed(String regex, String text) implements Node {
+        @Override
+        public void sample(Random random, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private record AnyOf(String regex, String chars) implements Node {
+        @Override
+        public void sample(Random random, StringBuilder out) {
+            out.append(chars.charAt(random.nextInt(chars.length())));
+        }
+    }
+
+    private record Sequence(String prefix, List<Node> nodes, String suffix) implements Node {
+        @Override
+        public String regex() {
+            StringBuilder regex = new StringBuilder(prefix);
+            nodes.forEach(node -> regex.append(node.regex()));
+            return regex.append(suffix).toString();
+        }
+
+        @Override
+        public void sample(Random random, StringBuilder out) {
+            nodes.forEach(node -> node.sample(random, out));
+        }
+    }
+
+    private record Alternation(String prefix, List<Node> branches, String suffix) implements Node {
+        @Override
+        public String regex() {
+            List<String> regexes = branches.stream().map(Node::regex).toList();
+            return prefix + String.join("|", regexes) + suffix;
+        }
+
+        @Override
+        public void sample(Random random, StringBuilder out) {
+            branches.get(random.nextInt(branches.size())).sample(random, out);
+        }
+    }
+
+    private record Repeat(Node atom, String quantifier, int min, int max) implements Node {
+        @Override
+        public String regex() {
+            return atom.regex() + quantifier;
+        }
+
+        @Override
+        public void sample(Random random, StringBuilder out) {
+            int times = min + random.nextInt(max - min + 1);
+            for (int i = 0; i < times; i++) {
+                atom.sample(random, out);
+            }
+        }
+    }
+
+    /**
+     * @param quantifiers whether atoms may be quantified; off inside quantified
+     *                    groups, where nested quantifiers backtrack exponentially
+     */
+    private static Node sequence(Random random, int depth, boolean quantifiers) {
+        List<Node> nodes = new ArrayList<>();
+        int count = 1 + random.nextInt(8);
+        for (int i = 0; i < count; i++) {
+            nodes.add(quantifiers ? quantified(random, depth) : atom(random, depth, false));
+        }
+        return new Sequence("", nodes, "");
+    }
+
+    private static Node alternation(Random random, int depth, boolean quantifiers) {
+        List<Node> branches = new ArrayList<>();
+        int count = 2 + random.nextInt(2);
+        for (int i = 0; i < count; i++) {
+            branches.add(sequence(random, depth + 1, quantifiers));
+        }
+        return new Alternation("", branches, "");
+    }
+
+    private static Node quantified(Random random, int depth) {
+        if (random.nextInt(4) != 0) {
+            return atom(random, depth, true);
+        }
+        Node atom = atom(random, depth, false);
+        // A quantifier after \Q...\E repeats only its last character
+        if (atom.regex().startsWith("\\Q")) {
+            return atom;
+        }
+        String lazy = random.nextBoolean() ? "?" : "";
+        return switch (random.nextInt(6)) {
+            case 0 -> new Repeat(atom, "*" + lazy, 0, 2);
+            case 1 -> new Repeat(atom, "+" + lazy, 1, 2);
+            case 2 -> new Repeat(atom, "?" + lazy, 0, 1);
+            case 3 -> new Repeat(atom, "{2}", 2, 2);
+            case 4 -> new Repeat(atom, "{0,2}" + lazy, 0, 2);
+            default -> new Repeat(atom, "{1,}", 1, 2);
+        };
+    }
+
+    private static Node atom(Random random, int depth, boolean quantifiers) {
+        int kind = random.nextInt(depth < 2 ? 14 : 11);
+        return switch (kind) {
+            case 0 -> new Fixed("\\.", ".");
+            case 1 -> new Fixed("\\(", "(");
+            case 2 -> new AnyOf("\\d", "0123456789");
+            case 3 -> new AnyOf("\\s", " \t");
+            case 4 -> new Fixed("\\t", "\t");
+            case 5 -> new Fixed("\\Qa.b\\E", "a.b");
+            case 6 -> new AnyOf("[abc]", "abc");
+            case 7 -> new AnyOf("[^a-c]", "xyz");
+            case 8 -> new AnyOf(".", ALPHABET);
+            case 11 -> new Sequence("(", List.of(sequence(random, depth + 1, quantifiers)), ")");
+            case 12 -> new Sequence("(?:", List.of(sequence(random, depth + 1, quantifiers)), ")");
+            case 13 -> new Alternation("(", ((Alternation) alternation(random, depth + 1, quantifiers)).branches(), ")");
+            default -> {
+                String c = String.valueOf(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                yield new Fixed(c, c);
+            }
+        };
+    }
+
+    private static void noise(Random random, StringBuilder out) {
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            out.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+    }
+
+    private static String randomCase(Random random, String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            result.append(random.nextBoolean() ? Character.toUpperCase(c) : c);
+        }
+        return result.toString();
+    }
+}
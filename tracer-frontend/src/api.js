@@ -297,6 +297,22 @@ export const fetchLogFilterOptions = async () => {
   }
 };
 
+/**
+ * Fetch the server-side line diff of a file change
+ * @param {number} changeId - File change ID
+ * @param {string|number} against - 'previous' or another change ID
+ * @returns {Promise<{tooLarge: boolean, additions: number, deletions: number, hunks: Array}>} Diff hunks
+ */
+export const fetchFileChangeDiff = async (changeId, against = 'previous') => {
+  try {
+    const response = await api.get(`/api/changes/${changeId}/diff`, { params: { against } });
+    return extractData(response);
+  } catch (error) {
+    console.error('Error fetching file change diff:', error);
+    throw new Error(extractErrorMessage(error));
+  }
+};
+
 export const deleteFileChange = async (changeId) => {
   try {
     const response = await api.delete(`/api/changes/${changeId}`);